@@ -0,0 +1,87 @@
+package com.numbermaze.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 准入控制：读接口和写接口各一组按客户端（IP 或用户ID）划分的令牌桶，超出预算的请求返回429；
+ * 同时处理中的请求数超过上限时新请求直接返回503，让已接受的请求保持正常的响应时间，
+ * 而不是所有请求一起排队等待线程和数据库连接
+ */
+@Component
+public class AdmissionControl {
+
+    private final boolean rateLimitEnabled;
+    private final int maxInFlight;
+    private final TokenBucketLimiter readLimiter;
+    private final TokenBucketLimiter writeLimiter;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter readLimited;
+    private final Counter writeLimited;
+    private final Counter shed;
+
+    @Autowired
+    public AdmissionControl(MeterRegistry meterRegistry,
+                            @Value("${admission.max-in-flight:150}") int maxInFlight,
+                            @Value("${admission.rate-limit.enabled:true}") boolean rateLimitEnabled,
+                            @Value("${admission.rate-limit.stripes:65536}") int stripes,
+                            @Value("${admission.rate-limit.read.per-second:20}") double readPerSecond,
+                            @Value("${admission.rate-limit.read.burst:40}") int readBurst,
+                            @Value("${admission.rate-limit.write.per-second:5}") double writePerSecond,
+                            @Value("${admission.rate-limit.write.burst:20}") int writeBurst) {
+        this.rateLimitEnabled = rateLimitEnabled;
+        this.maxInFlight = maxInFlight;
+        this.readLimiter = new TokenBucketLimiter(readPerSecond, readBurst, stripes);
+        this.writeLimiter = new TokenBucketLimiter(writePerSecond, writeBurst, stripes);
+        Gauge.builder("numbermaze.admission.in_flight", inFlight, AtomicInteger::get)
+                .description("API requests currently being handled")
+                .register(meterRegistry);
+        this.readLimited = Counter.builder("numbermaze.admission.rejected").tag("reason", "rate-limit").tag("budget", "read")
+                .description("API requests rejected before reaching a controller")
+                .register(meterRegistry);
+        this.writeLimited = Counter.builder("numbermaze.admission.rejected").tag("reason", "rate-limit").tag("budget", "write")
+                .description("API requests rejected before reaching a controller")
+                .register(meterRegistry);
+        this.shed = Counter.builder("numbermaze.admission.rejected").tag("reason", "overload").tag("budget", "all")
+                .description("API requests rejected before reaching a controller")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 从 client 的读或写预算中取一个令牌：成功返回 0，否则返回建议的重试等待秒数（至少1秒）
+     */
+    public long acquire(String client, boolean write) {
+        if (!rateLimitEnabled) {
+            return 0;
+        }
+        long waitNanos = (write ? writeLimiter : readLimiter).tryAcquire(client);
+        if (waitNanos == 0) {
+            return 0;
+        }
+        (write ? writeLimited : readLimited).increment();
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+    }
+
+    /**
+     * 请求开始处理前调用；处理中的请求数已达上限时返回 false，此时不需要调用 exit
+     */
+    public boolean enter() {
+        if (inFlight.incrementAndGet() > maxInFlight) {
+            inFlight.decrementAndGet();
+            shed.increment();
+            return false;
+        }
+        return true;
+    }
+
+    public void exit() {
+        inFlight.decrementAndGet();
+    }
+}
@@ -0,0 +1,63 @@
+package com.numbermaze.admission;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * 无锁的分段令牌桶：键按哈希落到固定数量的槽位上，每个槽位是一个 long，以 GCRA 形式记录令牌桶状态
+ * （桶被重新填满的理论时间），取令牌只是一次 CAS，不加锁，也不为每个客户端分配对象，内存与客户端数量无关。
+ * 哈希冲突的两个键共享一个桶，只会让它们更早被限流；槽位数远大于活跃客户端数时很少发生
+ */
+public final class TokenBucketLimiter {
+
+    // One token is refilled every interval; the theoretical arrival time may run up to burst-1 intervals ahead
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final AtomicLongArray slots;
+    private final int mask;
+    private final LongSupplier nanoClock;
+    // Slots start at 0, i.e. a full bucket
+    private final long origin;
+
+    public TokenBucketLimiter(double permitsPerSecond, int burst, int stripes) {
+        this(permitsPerSecond, burst, stripes, System::nanoTime);
+    }
+
+    // Tests drive the clock by hand
+    TokenBucketLimiter(double permitsPerSecond, int burst, int stripes, LongSupplier nanoClock) {
+        if (permitsPerSecond <= 0 || burst < 1 || stripes < 1) {
+            throw new IllegalArgumentException("无效的限流参数: " + permitsPerSecond + "/s, burst=" + burst + ", stripes=" + stripes);
+        }
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / permitsPerSecond));
+        this.toleranceNanos = intervalNanos * (burst - 1);
+        int size = stripes == 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.slots = new AtomicLongArray(size);
+        this.mask = size - 1;
+        this.nanoClock = nanoClock;
+        this.origin = nanoClock.getAsLong();
+    }
+
+    /**
+     * 为 key 取一个令牌：成功返回 0，否则返回下一个令牌可用前还需等待的纳秒数（不消耗令牌）
+     */
+    public long tryAcquire(String key) {
+        int slot = spread(key.hashCode()) & mask;
+        long now = nanoClock.getAsLong() - origin;
+        while (true) {
+            long arrival = slots.get(slot);
+            long start = Math.max(arrival, now);
+            long wait = start - now - toleranceNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (slots.compareAndSet(slot, arrival, start + intervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    private static int spread(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
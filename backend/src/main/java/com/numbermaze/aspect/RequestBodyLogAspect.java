@@ -5,57 +5,65 @@ import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import org.springframework.web.context.request.RequestContextHolder;
-import org.springframework.web.context.request.ServletRequestAttributes;
 
-import javax.servlet.http.HttpServletRequest;
 import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
- * AOP切面，用于记录请求和响应的详细内容
+ * AOP切面，按采样率记录控制器方法的参数和返回结果（DEBUG级别）
  */
 @Aspect
 @Component
 public class RequestBodyLogAspect {
 
     private static final Logger logger = LoggerFactory.getLogger(RequestBodyLogAspect.class);
+    private static final int MAX_LENGTH = 1000;
+
+    private final double sampleRate;
+
+    public RequestBodyLogAspect(@Value("${request-log.body-sample-rate:0.01}") double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
 
     /**
      * 环绕通知，记录控制器方法的请求参数和返回结果
      */
     @Around("execution(* com.numbermaze.controller.*Controller.*(..))")
     public Object logRequestBody(ProceedingJoinPoint joinPoint) throws Throwable {
-        ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
-        if (attributes != null) {
-            HttpServletRequest request = attributes.getRequest();
-            String methodName = joinPoint.getSignature().getName();
-            
-            // 记录请求参数
-            if (joinPoint.getArgs().length > 0) {
-                logger.debug("请求方法: {}.{}, 参数: {}", 
-                        joinPoint.getTarget().getClass().getSimpleName(), 
-                        methodName, 
-                        Arrays.toString(joinPoint.getArgs()));
-            }
+        // Decide before touching the arguments: unsampled calls pay no formatting cost
+        if (!shouldLog()) {
+            return joinPoint.proceed();
+        }
+        
+        String target = joinPoint.getTarget().getClass().getSimpleName();
+        String methodName = joinPoint.getSignature().getName();
+        if (joinPoint.getArgs().length > 0) {
+            logger.debug("请求方法: {}.{}, 参数: {}", target, methodName, truncate(Arrays.toString(joinPoint.getArgs())));
         }
         
         // 执行目标方法
         Object result = joinPoint.proceed();
         
-        // 记录返回结果，但要避免日志过大
         if (result != null) {
-            String resultStr = result.toString();
-            // 如果结果太长，只记录部分
-            if (resultStr.length() > 1000) {
-                resultStr = resultStr.substring(0, 1000) + "... (结果已截断)";
-            }
-            logger.debug("方法返回: {}.{}, 结果: {}", 
-                    joinPoint.getTarget().getClass().getSimpleName(),
-                    joinPoint.getSignature().getName(), 
-                    resultStr);
+            logger.debug("方法返回: {}.{}, 结果: {}", target, methodName, truncate(result.toString()));
         }
-        
         return result;
     }
+
+    /**
+     * 本次调用是否需要记录：DEBUG已开启且命中采样
+     */
+    public boolean shouldLog() {
+        if (sampleRate <= 0 || !logger.isDebugEnabled()) {
+            return false;
+        }
+        return sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    private static String truncate(String text) {
+        // 如果结果太长，只记录部分
+        return text.length() > MAX_LENGTH ? text.substring(0, MAX_LENGTH) + "... (结果已截断)" : text;
+    }
 }
@@ -0,0 +1,104 @@
+package com.numbermaze.config;
+
+import com.numbermaze.admission.AdmissionControl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 准入控制拦截器：按客户端IP对读（GET/HEAD）和写接口分别限流，超出时返回429和 Retry-After；
+ * 通过限流后，处理中的请求数已达上限时返回503。被拒绝的请求不会到达控制器，也不占用数据库连接。
+ * 客户端IP取连接的对端地址；只有对端是配置的可信代理时才采用 X-Forwarded-For，客户端无法伪造请求头换一个预算
+ */
+@Component
+public class AdmissionInterceptor implements AsyncHandlerInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionInterceptor.class);
+    private static final String ADMITTED_ATTRIBUTE = AdmissionInterceptor.class.getName() + ".admitted";
+
+    private final AdmissionControl admissionControl;
+    private final Set<String> trustedProxies;
+
+    @Autowired
+    public AdmissionInterceptor(AdmissionControl admissionControl,
+                                @Value("${admission.trusted-proxies:}") String[] trustedProxies) {
+        this.admissionControl = admissionControl;
+        this.trustedProxies = new HashSet<>(Arrays.asList(trustedProxies));
+        this.trustedProxies.remove("");
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // Async dispatches (SSE, streaming export) were admitted by their initial dispatch; preflights are free
+        if (request.getDispatcherType() == DispatcherType.ASYNC || HttpMethod.OPTIONS.matches(request.getMethod())) {
+            return true;
+        }
+        String clientIp = clientIp(request);
+        boolean write = !HttpMethod.GET.matches(request.getMethod()) && !HttpMethod.HEAD.matches(request.getMethod());
+        long retryAfter = admissionControl.acquire("ip:" + clientIp, write);
+        if (retryAfter > 0) {
+            logger.debug("请求被限流 | {} {} | 客户端IP: {}", request.getMethod(), request.getRequestURI(), clientIp);
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, retryAfter);
+            return false;
+        }
+        if (!admissionControl.enter()) {
+            logger.warn("处理中的请求已达上限，拒绝请求 | {} {} | 客户端IP: {}", request.getMethod(), request.getRequestURI(), clientIp);
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, 1);
+            return false;
+        }
+        request.setAttribute(ADMITTED_ATTRIBUTE, Boolean.TRUE);
+        return true;
+    }
+
+    // The handler went async and released the request thread: long-lived streams do not hold a slot
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        release(request);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        release(request);
+    }
+
+    private void release(HttpServletRequest request) {
+        if (request.getAttribute(ADMITTED_ATTRIBUTE) != null) {
+            request.removeAttribute(ADMITTED_ATTRIBUTE);
+            admissionControl.exit();
+        }
+    }
+
+    // The right-most X-Forwarded-For hop not added by one of our proxies is the first address we can trust
+    private String clientIp(HttpServletRequest request) {
+        String remote = request.getRemoteAddr();
+        String forwarded = trustedProxies.contains(remote) ? request.getHeader("X-Forwarded-For") : null;
+        if (forwarded != null) {
+            String[] hops = forwarded.split(",");
+            for (int i = hops.length - 1; i >= 0; i--) {
+                String hop = hops[i].trim();
+                if (!hop.isEmpty() && !trustedProxies.contains(hop)) {
+                    return hop;
+                }
+            }
+        }
+        return remote;
+    }
+
+    private static void reject(HttpServletResponse response, HttpStatus status, long retryAfterSeconds) {
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+    }
+}
@@ -0,0 +1,79 @@
+package com.numbermaze.config;
+
+import com.numbermaze.dto.CompactScoreCodec;
+import com.numbermaze.dto.ScoreDTO;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 以紧凑二进制编码 (CompactScoreCodec) 输出分数列表接口的 List&lt;ScoreDTO&gt;；
+ * 注册在 JSON 转换器之后，只有 Accept 明确要求该类型时才会使用，默认仍返回 JSON
+ */
+public class CompactScoreHttpMessageConverter extends AbstractGenericHttpMessageConverter<List<ScoreDTO>> {
+
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(CompactScoreCodec.MEDIA_TYPE);
+
+    public CompactScoreHttpMessageConverter() {
+        super(MEDIA_TYPE);
+    }
+
+    // Only the generic List<ScoreDTO> check below applies
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return false;
+    }
+
+    // Content negotiation asks for the producible types by raw class, after canWrite(Type, ...) accepted the element type
+    @Override
+    public List<MediaType> getSupportedMediaTypes(Class<?> clazz) {
+        return List.class.isAssignableFrom(clazz) ? getSupportedMediaTypes() : Collections.emptyList();
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return isScoreList(type) && canWrite(mediaType);
+    }
+
+    @Override
+    protected void writeInternal(List<ScoreDTO> scores, Type type, HttpOutputMessage outputMessage) throws IOException {
+        OutputStream out = new BufferedOutputStream(outputMessage.getBody());
+        CompactScoreCodec.encode(scores, out);
+        out.flush();
+    }
+
+    @Override
+    public List<ScoreDTO> read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("分数列表紧凑编码只用于响应", inputMessage);
+    }
+
+    @Override
+    protected List<ScoreDTO> readInternal(Class<? extends List<ScoreDTO>> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("分数列表紧凑编码只用于响应", inputMessage);
+    }
+
+    private static boolean isScoreList(Type type) {
+        if (!(type instanceof ParameterizedType)) {
+            return false;
+        }
+        ParameterizedType parameterized = (ParameterizedType) type;
+        return parameterized.getRawType() instanceof Class
+                && List.class.isAssignableFrom((Class<?>) parameterized.getRawType())
+                && parameterized.getActualTypeArguments()[0] == ScoreDTO.class;
+    }
+}
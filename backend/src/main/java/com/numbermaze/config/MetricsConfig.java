@@ -0,0 +1,35 @@
+package com.numbermaze.config;
+
+import com.numbermaze.puzzle.PuzzleLevel;
+import com.numbermaze.puzzle.PuzzlePool;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 自定义指标配置：启用 @Timed 注解，并注册谜题池的库存指标
+ * 通过 /actuator/prometheus 以 Prometheus 文本格式暴露
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    @Bean
+    public MeterBinder puzzlePoolMetrics(PuzzlePool puzzlePool) {
+        return registry -> {
+            for (PuzzleLevel level : PuzzleLevel.values()) {
+                Gauge.builder("numbermaze.puzzle.pool.size", puzzlePool, pool -> pool.size(level))
+                        .description("Pre-generated puzzles waiting in the pool")
+                        .tag("level", String.valueOf(level.getLevel()))
+                        .register(registry);
+            }
+        };
+    }
+}
@@ -0,0 +1,48 @@
+package com.numbermaze.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 虚拟线程执行模式（execution.virtual-threads=true，需要 Java 21 运行环境）：
+ * Tomcat 为每个请求创建一个虚拟线程，阻塞的 JPA 调用不再占用有限的工作线程；
+ * 同时访问数据库的请求数由 Hikari 连接池上限约束（spring.datasource.hikari.maximum-pool-size）。
+ * 代码按 Java 17 编译，虚拟线程执行器通过反射创建，在 Java 17 上开启该模式时启动失败
+ */
+@Configuration
+@ConditionalOnProperty(name = "execution.virtual-threads", havingValue = "true")
+public class VirtualThreadConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        ExecutorService executor = newVirtualThreadPerTaskExecutor();
+        logger.info("请求处理使用虚拟线程");
+        return protocolHandler -> protocolHandler.setExecutor(executor);
+    }
+
+    // 异步 MVC 请求（流式导出）同样在虚拟线程上执行，不使用有界的任务线程池
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        return new TaskExecutorAdapter(newVirtualThreadPerTaskExecutor());
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("虚拟线程模式需要 Java 21 运行环境，当前为 " + Runtime.version(), e);
+        }
+    }
+}
@@ -4,98 +4,93 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 import org.springframework.stereotype.Component;
-import org.springframework.web.servlet.HandlerInterceptor;
-import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.util.Enumeration;
-import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
- * 通用Web请求日志拦截器，记录所有API请求的详细信息
+ * 通用Web请求日志拦截器：每个请求结束时输出一行访问日志（方法、URI、状态码、耗时、客户端IP），
+ * 请求头和响应头只在DEBUG级别下按需格式化
  */
 @Component
-public class WebLogInterceptor implements HandlerInterceptor {
+public class WebLogInterceptor implements AsyncHandlerInterceptor {
 
     private static final Logger logger = LoggerFactory.getLogger(WebLogInterceptor.class);
     private static final String REQUEST_ID = "requestId";
-    private static final String START_TIME = "startTime";
+    private static final String REQUEST_ID_HEADER = "X-Request-Id";
+    private static final String REQUEST_ID_ATTRIBUTE = WebLogInterceptor.class.getName() + ".requestId";
+    private static final String START_NANOS_ATTRIBUTE = WebLogInterceptor.class.getName() + ".startNanos";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
 
     @Override
-    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
-        // 为每个请求生成唯一ID并放入MDC
-        String requestId = UUID.randomUUID().toString().substring(0, 8);
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // Async dispatches (e.g. streaming export) pass through again; keep the original id and start time
+        String requestId = (String) request.getAttribute(REQUEST_ID_ATTRIBUTE);
+        if (requestId == null) {
+            requestId = nextRequestId();
+            request.setAttribute(REQUEST_ID_ATTRIBUTE, requestId);
+            request.setAttribute(START_NANOS_ATTRIBUTE, System.nanoTime());
+            response.setHeader(REQUEST_ID_HEADER, requestId);
+        }
         MDC.put(REQUEST_ID, requestId);
-        
-        // 记录请求开始时间
-        long startTime = System.currentTimeMillis();
-        request.setAttribute(START_TIME, startTime);
-
-        // 记录请求URI、方法和IP地址
-        String uri = request.getRequestURI();
-        String method = request.getMethod();
-        String remoteAddr = getClientIp(request);
-        
-        // 构建请求头信息日志
-        StringBuilder reqHeadersLog = new StringBuilder();
-        Enumeration<String> headerNames = request.getHeaderNames();
-        while (headerNames.hasMoreElements()) {
-            String headerName = headerNames.nextElement();
-            // 过滤掉敏感信息，如授权信息
-            if (!"authorization".equalsIgnoreCase(headerName) && 
-                !"cookie".equalsIgnoreCase(headerName)) {
-                reqHeadersLog.append(headerName).append(": ")
-                            .append(request.getHeader(headerName)).append(", ");
-            }
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("API请求开始 | {} {} | 客户端IP: {} | Headers: [{}]",
+                    request.getMethod(), request.getRequestURI(), getClientIp(request), new RequestHeaders(request));
         }
-        
-        // 记录详细的请求信息
-        logger.info("API请求开始 | ID: {} | {} {} | 客户端IP: {} | Headers: [{}]", 
-                requestId, method, uri, remoteAddr, 
-                reqHeadersLog.length() > 0 ? reqHeadersLog.substring(0, reqHeadersLog.length() - 2) : "");
-        
         return true;
     }
 
+    // SSE and streaming export go async: afterCompletion only runs on the final dispatch, so free the container thread's MDC now
     @Override
-    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
-                           ModelAndView modelAndView) throws Exception {
-        // 这里不需要实现，请求处理后的逻辑在afterCompletion中处理
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        MDC.remove(REQUEST_ID);
     }
 
     @Override
-    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex)
-            throws Exception {
-        String requestId = MDC.get(REQUEST_ID);
-        Long startTime = (Long) request.getAttribute(START_TIME);
-        long endTime = System.currentTimeMillis();
-        long processingTime = endTime - startTime;
-        
-        // 构建响应头信息日志
-        StringBuilder respHeadersLog = new StringBuilder();
-        response.getHeaderNames().forEach(headerName -> {
-            respHeadersLog.append(headerName).append(": ")
-                        .append(response.getHeader(headerName)).append(", ");
-        });
-
-        // 记录响应详情
-        logger.info("API请求结束 | ID: {} | 状态码: {} | 耗时: {}ms | Headers: [{}]",
-                requestId, response.getStatus(), processingTime,
-                respHeadersLog.length() > 0 ? respHeadersLog.substring(0, respHeadersLog.length() - 2) : "");
-        
-        // 请求处理完毕，清除MDC中的数据
-        MDC.remove(REQUEST_ID);
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        try {
+            if (logger.isInfoEnabled()) {
+                Long startNanos = (Long) request.getAttribute(START_NANOS_ATTRIBUTE);
+                long elapsedMicros = startNanos == null ? -1 : (System.nanoTime() - startNanos) / 1_000;
+                logger.info("API请求 | {} {} | 状态码: {} | 耗时: {}ms | 客户端IP: {}",
+                        request.getMethod(), request.getRequestURI(), response.getStatus(),
+                        elapsedMicros / 1_000.0, getClientIp(request));
+            }
+            if (logger.isDebugEnabled()) {
+                logger.debug("API响应头 | Headers: [{}]", new ResponseHeaders(response));
+            }
+        } finally {
+            // 请求处理完毕，清除MDC中的数据
+            MDC.remove(REQUEST_ID);
+        }
+    }
+
+    /**
+     * 8位十六进制请求ID；只用于关联同一请求的日志，不需要全局唯一，避免 UUID 使用 SecureRandom 的开销
+     */
+    private static String nextRequestId() {
+        int bits = ThreadLocalRandom.current().nextInt();
+        char[] chars = new char[8];
+        for (int i = chars.length - 1; i >= 0; i--) {
+            chars[i] = HEX[bits & 0xF];
+            bits >>>= 4;
+        }
+        return new String(chars);
     }
-    
+
     /**
      * 获取客户端真实IP地址
      */
-    private String getClientIp(HttpServletRequest request) {
+    static String getClientIp(HttpServletRequest request) {
         String xForwardedFor = request.getHeader("X-Forwarded-For");
         if (xForwardedFor != null && !xForwardedFor.isEmpty() && !"unknown".equalsIgnoreCase(xForwardedFor)) {
             // 多次代理的情况，第一个IP为客户端真实IP,多个IP按照','分割
-            return xForwardedFor.split(",")[0];
+            int comma = xForwardedFor.indexOf(',');
+            return comma < 0 ? xForwardedFor : xForwardedFor.substring(0, comma);
         }
         
         String ip = request.getHeader("X-Real-IP");
@@ -105,4 +100,51 @@ public class WebLogInterceptor implements HandlerInterceptor {
         
         return request.getRemoteAddr();
     }
+
+    /**
+     * 请求头，仅在日志真正输出时格式化；过滤掉授权等敏感信息
+     */
+    private static final class RequestHeaders {
+        private final HttpServletRequest request;
+
+        RequestHeaders(HttpServletRequest request) {
+            this.request = request;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder headers = new StringBuilder();
+            Enumeration<String> headerNames = request.getHeaderNames();
+            while (headerNames.hasMoreElements()) {
+                String headerName = headerNames.nextElement();
+                if (!"authorization".equalsIgnoreCase(headerName) && !"cookie".equalsIgnoreCase(headerName)) {
+                    if (headers.length() > 0) {
+                        headers.append(", ");
+                    }
+                    headers.append(headerName).append(": ").append(request.getHeader(headerName));
+                }
+            }
+            return headers.toString();
+        }
+    }
+
+    private static final class ResponseHeaders {
+        private final HttpServletResponse response;
+
+        ResponseHeaders(HttpServletResponse response) {
+            this.response = response;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder headers = new StringBuilder();
+            for (String headerName : response.getHeaderNames()) {
+                if (headers.length() > 0) {
+                    headers.append(", ");
+                }
+                headers.append(headerName).append(": ").append(response.getHeader(headerName));
+            }
+            return headers.toString();
+        }
+    }
 }
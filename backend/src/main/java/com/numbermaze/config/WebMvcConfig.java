@@ -2,20 +2,25 @@ package com.numbermaze.config;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.util.List;
+
 /**
- * Web MVC 配置类，用于注册拦截器
+ * Web MVC 配置类，用于注册日志和准入控制拦截器，以及分数列表的紧凑编码
  */
 @Configuration
 public class WebMvcConfig implements WebMvcConfigurer {
 
     private final WebLogInterceptor webLogInterceptor;
+    private final AdmissionInterceptor admissionInterceptor;
 
     @Autowired
-    public WebMvcConfig(WebLogInterceptor webLogInterceptor) {
+    public WebMvcConfig(WebLogInterceptor webLogInterceptor, AdmissionInterceptor admissionInterceptor) {
         this.webLogInterceptor = webLogInterceptor;
+        this.admissionInterceptor = admissionInterceptor;
     }
 
     @Override
@@ -23,5 +28,14 @@ public class WebMvcConfig implements WebMvcConfigurer {
         // 为所有API路径添加日志拦截器
         registry.addInterceptor(webLogInterceptor)
                 .addPathPatterns("/api/**");
+        // After the log interceptor so rejected requests still get an access log line
+        registry.addInterceptor(admissionInterceptor)
+                .addPathPatterns("/api/**");
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        // Appended after the JSON converter so that Accept: */* still gets JSON
+        converters.add(new CompactScoreHttpMessageConverter());
     }
 }
@@ -0,0 +1,86 @@
+package com.numbermaze.controller;
+
+import com.numbermaze.dto.PuzzleDTO;
+import com.numbermaze.dto.PuzzleSolutionDTO;
+import com.numbermaze.puzzle.IssuedPuzzle;
+import com.numbermaze.puzzle.PuzzleLevel;
+import com.numbermaze.puzzle.PuzzlePool;
+import com.numbermaze.puzzle.PuzzleValidator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/puzzles")
+@CrossOrigin(origins = "*")
+public class PuzzleController {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PuzzleController.class);
+    private final PuzzlePool puzzlePool;
+    
+    @Autowired
+    public PuzzleController(PuzzlePool puzzlePool) {
+        this.puzzlePool = puzzlePool;
+    }
+    
+    /**
+     * 发放一个谜题；传入 userId 时只有该用户能提交这个谜题的分数
+     */
+    @GetMapping
+    public ResponseEntity<PuzzleDTO> getPuzzle(@RequestParam(defaultValue = "1") int level,
+                                               @RequestParam(required = false) Long userId) {
+        logger.debug("获取谜题请求: 难度等级={}", level);
+        
+        Optional<PuzzleLevel> puzzleLevel = PuzzleLevel.of(level);
+        if (!puzzleLevel.isPresent()) {
+            logger.warn("不支持的难度等级: {}", level);
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        
+        IssuedPuzzle puzzle = puzzlePool.take(puzzleLevel.get(), userId);
+        logger.debug("返回谜题: ID={}, 剩余库存={}", puzzle.getId(), puzzlePool.size(puzzleLevel.get()));
+        return new ResponseEntity<>(PuzzleDTO.fromIssued(puzzle), HttpStatus.OK);
+    }
+    
+    @GetMapping("/daily")
+    public ResponseEntity<PuzzleDTO> getDailyPuzzle(@RequestParam(defaultValue = "1") int level,
+                                                    @RequestParam(required = false) Long userId) {
+        logger.debug("获取每日谜题请求: 难度等级={}", level);
+        
+        Optional<PuzzleLevel> puzzleLevel = PuzzleLevel.of(level);
+        if (!puzzleLevel.isPresent()) {
+            logger.warn("不支持的难度等级: {}", level);
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        
+        IssuedPuzzle puzzle = puzzlePool.daily(puzzleLevel.get(), LocalDate.now(), userId);
+        return new ResponseEntity<>(PuzzleDTO.fromIssued(puzzle), HttpStatus.OK);
+    }
+    
+    /**
+     * 只检查答案，不作废谜题；计分以提交分数时的校验为准
+     */
+    @PostMapping("/{id}/verify")
+    public ResponseEntity<PuzzleSolutionDTO> verifySolution(@PathVariable String id,
+                                                            @RequestBody PuzzleSolutionDTO solutionDTO) {
+        logger.debug("校验谜题答案请求: ID={}", id);
+        
+        Optional<IssuedPuzzle> puzzle = puzzlePool.find(id).filter(issued -> !issued.isSpent());
+        if (!puzzle.isPresent()) {
+            logger.warn("谜题不存在、已过期或已提交: ID={}", id);
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        
+        PuzzleSolutionDTO result = new PuzzleSolutionDTO();
+        result.setPuzzleId(id);
+        result.setValid(PuzzleValidator.isSolved(puzzle.get().getPuzzle(), solutionDTO.getValues()));
+        logger.debug("谜题答案校验结果: ID={}, 正确={}", id, result.getValid());
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+}
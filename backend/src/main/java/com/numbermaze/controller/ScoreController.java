@@ -1,41 +1,114 @@
 package com.numbermaze.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.numbermaze.admission.AdmissionControl;
+import com.numbermaze.dto.ScoreBatchResultDTO;
 import com.numbermaze.dto.ScoreDTO;
+import com.numbermaze.dto.ScoreExportDTO;
+import com.numbermaze.ingestion.ScoreWriteBehindQueue;
+import com.numbermaze.leaderboard.LeaderboardBroadcaster;
+import com.numbermaze.leaderboard.LeaderboardWindow;
+import com.numbermaze.leaderboard.PlayerRank;
 import com.numbermaze.model.Score;
+import com.numbermaze.model.ScoreSubmission;
 import com.numbermaze.model.User;
+import com.numbermaze.puzzle.IssuedPuzzle;
+import com.numbermaze.puzzle.Puzzle;
+import com.numbermaze.puzzle.PuzzleLevel;
+import com.numbermaze.puzzle.PuzzlePool;
+import com.numbermaze.puzzle.PuzzleValidator;
+import com.numbermaze.repository.ScoreCursor;
+import com.numbermaze.repository.ScoreExportFilter;
 import com.numbermaze.service.ScoreService;
 import com.numbermaze.service.UserService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.OptionalLong;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/scores")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = {"X-Next-Cursor", "Retry-After"})
 public class ScoreController {
     
     private static final Logger logger = LoggerFactory.getLogger(ScoreController.class);
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final int EXPORT_BUFFER_BYTES = 64 * 1024;
+    // Clients may keep responses but must revalidate them with If-None-Match before each use
+    private static final CacheControl REVALIDATE = CacheControl.noCache();
+    // Score lists are negotiated between JSON and the compact encoding, so caches must key on Accept
+    private static final List<String> VARY = Collections.singletonList(HttpHeaders.ACCEPT);
     private final ScoreService scoreService;
     private final UserService userService;
+    private final Optional<ScoreWriteBehindQueue> writeBehindQueue;
+    private final PuzzlePool puzzlePool;
+    private final LeaderboardBroadcaster leaderboardBroadcaster;
+    private final AdmissionControl admissionControl;
+    private final boolean verificationRequired;
+    private final int maxPageSize;
+    private final int maxBatchItems;
+    private final int maxTopLimit;
+    private final ObjectWriter exportWriter;
+    private final ObjectReader batchReader;
     
     @Autowired
-    public ScoreController(ScoreService scoreService, UserService userService) {
+    public ScoreController(ScoreService scoreService, UserService userService,
+                           Optional<ScoreWriteBehindQueue> writeBehindQueue, PuzzlePool puzzlePool,
+                           LeaderboardBroadcaster leaderboardBroadcaster, AdmissionControl admissionControl,
+                           ObjectMapper objectMapper,
+                           @Value("${puzzle.verification.required:true}") boolean verificationRequired,
+                           @Value("${score.history.max-page-size:200}") int maxPageSize,
+                           @Value("${score.batch.max-items:10000}") int maxBatchItems,
+                           @Value("${score.top.max-limit:1000}") int maxTopLimit) {
         this.scoreService = scoreService;
         this.userService = userService;
+        this.writeBehindQueue = writeBehindQueue;
+        this.puzzlePool = puzzlePool;
+        this.leaderboardBroadcaster = leaderboardBroadcaster;
+        this.admissionControl = admissionControl;
+        this.verificationRequired = verificationRequired;
+        this.maxPageSize = maxPageSize;
+        this.maxBatchItems = maxBatchItems;
+        this.maxTopLimit = maxTopLimit;
+        this.exportWriter = objectMapper.writerFor(ScoreExportDTO.class);
+        this.batchReader = objectMapper.readerFor(ScoreDTO.class);
     }
     
     @PostMapping
     public ResponseEntity<ScoreDTO> saveScore(@RequestBody ScoreDTO scoreDTO) {
         logger.debug("接收到保存分数请求: {}", scoreDTO);
         
-        // Ensure user exists
+        // Ensure user exists (served from the user cache on the hot path)
         Long userId = scoreDTO.getUser().getId();
         Optional<User> userOpt = userService.getUserById(userId);
         
@@ -44,10 +117,41 @@ public class ScoreController {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
         
+        // The client IP budget is checked by AdmissionInterceptor; this one follows the player across addresses.
+        // Charged once the user is known and before the puzzle ticket is spent, so a 429 does not burn it
+        long retryAfter = admissionControl.acquire("user:" + userId, true);
+        if (retryAfter > 0) {
+            logger.warn("保存分数过于频繁: 用户ID={}", userId);
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter))
+                    .build();
+        }
+        
         // Convert DTO to entity
         Score score = scoreDTO.toEntity();
         score.setUser(userOpt.get());
         
+        List<IssuedPuzzle> claimed = new ArrayList<>(1);
+        String rejection = verifyPuzzle(scoreDTO, score, null, claimed);
+        if (rejection == null) {
+            rejection = checkLevel(score);
+        }
+        if (rejection != null) {
+            logger.warn("保存分数失败: {}, 用户ID={}", rejection, userId);
+            release(claimed, null);
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        
+        ResponseEntity<ScoreDTO> response = writeBehindQueue.isPresent() ? enqueueScore(score) : storeScore(score);
+        // A score that was not stored or queued must not use up the puzzle, so the client can retry it
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            release(claimed, null);
+        }
+        return response;
+    }
+    
+    private ResponseEntity<ScoreDTO> storeScore(Score score) {
+        Long userId = score.getUser().getId();
         try {
             Score savedScore = scoreService.saveScore(score);
             
@@ -55,14 +159,211 @@ public class ScoreController {
             ScoreDTO savedScoreDTO = ScoreDTO.fromEntity(savedScore);
             
             logger.debug("分数保存成功: ID={}, 用户={}, 分数={}", 
-                    savedScore.getId(), userOpt.get().getUsername(), savedScore.getScore());
+                    savedScore.getId(), score.getUser().getUsername(), savedScore.getScore());
             return new ResponseEntity<>(savedScoreDTO, HttpStatus.CREATED);
+        } catch (DataIntegrityViolationException e) {
+            logger.warn("保存分数失败: 用户ID {} 不存在", userId);
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         } catch (Exception e) {
             logger.error("保存分数时发生错误: {}", e.getMessage(), e);
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
     
+    /**
+     * 只接受服务端发出、发给该用户且答案校验通过的谜题，每个谜题只计分一次；
+     * 等级由谜题决定，用时不少于发放至今的秒数，步数不少于隐藏格子数，分数按这些值在服务端计算。
+     * 返回拒绝原因，通过时返回 null
+     *
+     * @param submissionKey 批量上传的 submissionKey，重试时同一谜题不算重复提交；单条上传传 null
+     * @param claimed 本次调用新占用的谜题加入此列表，分数未能保存时由调用方归还
+     */
+    private String verifyPuzzle(ScoreDTO scoreDTO, Score score, String submissionKey, List<IssuedPuzzle> claimed) {
+        if (scoreDTO.getPuzzleId() == null) {
+            return verificationRequired ? "未提供谜题答案" : null;
+        }
+        Optional<IssuedPuzzle> issued = puzzlePool.find(scoreDTO.getPuzzleId());
+        if (!issued.isPresent() || !issued.get().isIssuedTo(score.getUser().getId())
+                || !PuzzleValidator.isSolved(issued.get().getPuzzle(), scoreDTO.getSolution())) {
+            return "谜题 " + scoreDTO.getPuzzleId() + " 不存在或答案校验未通过";
+        }
+        if (issued.get().claim(submissionKey)) {
+            claimed.add(issued.get());
+        } else if (!issued.get().isClaimedBy(submissionKey)) {
+            return "谜题 " + scoreDTO.getPuzzleId() + " 已提交过分数";
+        }
+        Puzzle puzzle = issued.get().getPuzzle();
+        int time = Math.max(score.getTime() == null ? 0 : score.getTime(),
+                issued.get().elapsedSeconds(System.currentTimeMillis()));
+        int steps = Math.max(score.getSteps() == null ? 0 : score.getSteps(), puzzle.hiddenCount());
+        score.setLevel(puzzle.getLevel().getLevel());
+        score.setTime(time);
+        score.setSteps(steps);
+        score.setScore(puzzle.getLevel().score(time, steps));
+        return null;
+    }
+    
+    private static void release(List<IssuedPuzzle> claimed, String submissionKey) {
+        for (IssuedPuzzle issued : claimed) {
+            issued.release(submissionKey);
+        }
+    }
+    
+    // Every level gets in-memory boards, so only the levels the server generates puzzles for are accepted
+    private static String checkLevel(Score score) {
+        return PuzzleLevel.of(score.getLevel()).isPresent() ? null : "难度等级 " + score.getLevel() + " 不存在";
+    }
+    
+    /**
+     * 批量上传分数（JSON 数组），用于离线客户端或比赛现场集中上传。
+     * 涉及的用户一次查询，新分数在一个事务中批量写入（不经过异步写入队列）；
+     * 每条分数单独返回结果，校验失败的分数不影响其他分数，带 submissionKey 的分数重试时不会重复保存
+     */
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ScoreBatchResultDTO> saveScoreBatch(@RequestBody List<ScoreDTO> scoreDTOs) {
+        logger.debug("接收到批量保存分数请求: {} 条", scoreDTOs.size());
+        if (scoreDTOs.size() > maxBatchItems) {
+            logger.warn("批量保存分数失败: {} 条超过上限 {}", scoreDTOs.size(), maxBatchItems);
+            return new ResponseEntity<>(HttpStatus.PAYLOAD_TOO_LARGE);
+        }
+        return saveBatch(scoreDTOs);
+    }
+    
+    /**
+     * 批量上传分数（NDJSON，每行一条），语义同 JSON 数组
+     */
+    @PostMapping(value = "/batch", consumes = "application/x-ndjson")
+    public ResponseEntity<ScoreBatchResultDTO> saveScoreBatchNdjson(InputStream body) {
+        List<ScoreDTO> scoreDTOs = new ArrayList<>();
+        try (MappingIterator<ScoreDTO> lines = batchReader.readValues(body)) {
+            while (lines.hasNextValue()) {
+                if (scoreDTOs.size() == maxBatchItems) {
+                    logger.warn("批量保存分数失败: 超过上限 {} 条", maxBatchItems);
+                    return new ResponseEntity<>(HttpStatus.PAYLOAD_TOO_LARGE);
+                }
+                scoreDTOs.add(lines.nextValue());
+            }
+        } catch (JsonProcessingException e) {
+            logger.warn("批量保存分数失败: 第 {} 行无法解析: {}", scoreDTOs.size() + 1, e.getOriginalMessage());
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (IOException e) {
+            logger.warn("批量保存分数失败: 读取请求失败: {}", e.getMessage());
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        logger.debug("接收到批量保存分数请求: {} 条", scoreDTOs.size());
+        return saveBatch(scoreDTOs);
+    }
+    
+    private ResponseEntity<ScoreBatchResultDTO> saveBatch(List<ScoreDTO> scoreDTOs) {
+        long start = System.currentTimeMillis();
+        ScoreBatchResultDTO result = new ScoreBatchResultDTO();
+        
+        Set<Long> userIds = new HashSet<>();
+        for (ScoreDTO scoreDTO : scoreDTOs) {
+            if (scoreDTO != null && scoreDTO.getUser() != null && scoreDTO.getUser().getId() != null) {
+                userIds.add(scoreDTO.getUser().getId());
+            }
+        }
+        Map<Long, User> users = userService.getUsersById(userIds);
+        
+        // Items that passed validation, in request order, with their scores and keys
+        List<ScoreBatchResultDTO.Item> accepted = new ArrayList<>();
+        List<Score> scores = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        // Puzzles newly claimed by each accepted item (empty when none), returned if the item is not stored
+        List<List<IssuedPuzzle>> claims = new ArrayList<>();
+        Set<String> seenKeys = new HashSet<>();
+        for (int i = 0; i < scoreDTOs.size(); i++) {
+            ScoreDTO scoreDTO = scoreDTOs.get(i);
+            String key = scoreDTO == null ? null : scoreDTO.getSubmissionKey();
+            ScoreBatchResultDTO.Item item = new ScoreBatchResultDTO.Item(i, key, null, null, null);
+            result.getItems().add(item);
+            
+            Score score = scoreDTO == null ? null : scoreDTO.toEntity();
+            List<IssuedPuzzle> claimed = new ArrayList<>(1);
+            String rejection = null;
+            if (score == null) {
+                rejection = "分数为空";
+            } else if (key != null && key.length() > ScoreSubmission.MAX_KEY_LENGTH) {
+                rejection = "submissionKey 超过 " + ScoreSubmission.MAX_KEY_LENGTH + " 个字符";
+            } else if (key != null && !seenKeys.add(key)) {
+                rejection = "submissionKey 在本次请求中重复";
+            } else if (scoreDTO.getUser() == null || !users.containsKey(scoreDTO.getUser().getId())) {
+                rejection = "用户不存在";
+            } else {
+                score.setUser(users.get(scoreDTO.getUser().getId()));
+                rejection = verifyPuzzle(scoreDTO, score, key, claimed);
+                if (rejection == null) {
+                    rejection = checkLevel(score);
+                }
+            }
+            if (rejection != null) {
+                item.setStatus(ScoreBatchResultDTO.Status.REJECTED);
+                item.setError(rejection);
+                result.setRejected(result.getRejected() + 1);
+                release(claimed, key);
+                continue;
+            }
+            accepted.add(item);
+            scores.add(score);
+            keys.add(key);
+            claims.add(claimed);
+        }
+        
+        try {
+            Map<String, Long> existing = scores.isEmpty()
+                    ? Collections.emptyMap() : scoreService.saveScoresOnce(scores, keys);
+            for (int i = 0; i < accepted.size(); i++) {
+                ScoreBatchResultDTO.Item item = accepted.get(i);
+                Long existingId = keys.get(i) == null ? null : existing.get(keys.get(i));
+                if (existingId != null) {
+                    release(claims.get(i), keys.get(i));
+                    item.setStatus(ScoreBatchResultDTO.Status.DUPLICATE);
+                    item.setId(existingId);
+                    result.setDuplicates(result.getDuplicates() + 1);
+                } else {
+                    item.setStatus(ScoreBatchResultDTO.Status.CREATED);
+                    item.setId(scores.get(i).getId());
+                    result.setCreated(result.getCreated() + 1);
+                }
+            }
+        } catch (DataIntegrityViolationException e) {
+            // Usually a concurrent upload of the same keys; nothing was stored, a retry reports them as duplicates
+            logger.warn("批量保存分数冲突, 本批未保存: {}", e.getMessage());
+            releaseAll(claims, keys);
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        } catch (Exception e) {
+            logger.error("批量保存分数时发生错误: {}", e.getMessage(), e);
+            releaseAll(claims, keys);
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+        
+        logger.info("批量保存分数完成: 新增 {} 条, 重复 {} 条, 拒绝 {} 条, 耗时 {}ms",
+                result.getCreated(), result.getDuplicates(), result.getRejected(), System.currentTimeMillis() - start);
+        return ResponseEntity.ok(result);
+    }
+    
+    // Nothing of a failed batch was stored, so every puzzle it claimed goes back
+    private static void releaseAll(List<List<IssuedPuzzle>> claims, List<String> keys) {
+        for (int i = 0; i < claims.size(); i++) {
+            release(claims.get(i), keys.get(i));
+        }
+    }
+    
+    // Write-behind mode: accept now, persist in the next batch; the row id does not exist yet, so none is returned.
+    // The user was resolved before this point and is a detached copy, so the writer thread never touches this request's session
+    private ResponseEntity<ScoreDTO> enqueueScore(Score score) {
+        if (!writeBehindQueue.get().submit(score)) {
+            logger.warn("分数写入队列已满，拒绝请求: 用户ID={}", score.getUser().getId());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .build();
+        }
+        logger.debug("分数已进入写入队列: 用户ID={}, 分数={}", score.getUser().getId(), score.getScore());
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ScoreDTO.fromEntity(score));
+    }
+    
     @GetMapping("/{id}")
     public ResponseEntity<ScoreDTO> getScoreById(@PathVariable Long id) {
         logger.debug("获取分数请求: ID={}", id);
@@ -78,80 +379,307 @@ public class ScoreController {
                 });
     }
     
+    /**
+     * 用户的分数历史；响应带 ETag，该用户没有新分数时 If-None-Match 直接返回304
+     */
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<ScoreDTO>> getUserScores(@PathVariable Long userId) {
-        logger.debug("获取用户分数请求: 用户ID={}", userId);
+    public ResponseEntity<List<ScoreDTO>> getUserScores(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        logger.debug("获取用户分数请求: 用户ID={}, 游标={}, 每页={}", userId, cursor, size);
+        
+        Optional<ScoreCursor> after = cursor == null || cursor.isEmpty()
+                ? Optional.empty() : ScoreCursor.decode(cursor);
+        if (cursor != null && !cursor.isEmpty() && !after.isPresent()) {
+            logger.warn("无效的分页游标: {}", cursor);
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
         
+        // A tag held for a user that no longer exists must not turn the 404 into a 304
         if (!userService.getUserById(userId).isPresent()) {
             logger.warn("用户不存在: ID={}", userId);
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
         
+        // Read the version before the rows so a concurrent save can only make the tag older than the content
+        String etag = etag(scoreService.getUserScoresVersion(userId));
+        if (matches(ifNoneMatch, etag)) {
+            logger.debug("用户 {} 的分数记录未变化", userId);
+            return notModified(etag);
+        }
+        
         try {
-            List<Score> scores = scoreService.getUserScores(userId);
-            List<ScoreDTO> scoreDTOs = scores.stream()
-                    .map(ScoreDTO::fromEntity)
-                    .collect(Collectors.toList());
-            
-            logger.debug("获取到用户 {} 的 {} 条分数记录", userId, scores.size());
-            return new ResponseEntity<>(scoreDTOs, HttpStatus.OK);
+            int pageSize = clampPageSize(size);
+            // One extra row tells whether another page exists
+            List<ScoreDTO> scores = scoreService.getUserScores(userId, after.orElse(null), pageSize + 1);
+            logger.debug("获取到用户 {} 的 {} 条分数记录", userId, Math.min(scores.size(), pageSize));
+            return page(scores, pageSize, etag);
         } catch (Exception e) {
             logger.error("获取用户分数时发生错误: 用户ID={}, 错误={}", userId, e.getMessage(), e);
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
     
+    /**
+     * 总榜前 limit 名（最多 score.top.max-limit 名）；window 为 day / week 时为最近一天 / 一周的滚动排行榜（最多 leaderboard.capacity 名），
+     * 不传或为 all 时为全部历史。由内存排行榜提供时响应带 ETag，榜单未变化时 If-None-Match 直接返回304。
+     * 与其他分数列表接口一样，Accept 为 application/x-numbermaze-scores 时以紧凑二进制编码返回 (CompactScoreCodec)
+     */
     @GetMapping("/top")
-    public ResponseEntity<List<ScoreDTO>> getTopScores(@RequestParam(defaultValue = "10") int limit) {
-        logger.debug("获取前 {} 名分数记录请求", limit);
+    public ResponseEntity<List<ScoreDTO>> getTopScores(
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) String window,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        logger.debug("获取前 {} 名分数记录请求: 时间范围={}", limit, window);
+        // Past the in-memory capacity the list comes from the store, so the size is capped
+        int top = Math.max(1, Math.min(limit, maxTopLimit));
+        
+        Optional<LeaderboardWindow> range = LeaderboardWindow.of(window);
+        if (!range.isPresent()) {
+            logger.warn("无效的时间范围: {}", window);
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        if (range.get() != LeaderboardWindow.ALL) {
+            return windowTopScores(range.get(), null, top, ifNoneMatch);
+        }
+        
+        OptionalLong version = scoreService.getTopScoresVersion(null, top);
+        String etag = version.isPresent() ? etag(version.getAsLong()) : null;
+        if (etag != null && matches(ifNoneMatch, etag)) {
+            logger.debug("总榜未变化");
+            return notModified(etag);
+        }
         
         try {
-            List<Score> topScores = scoreService.getTopScores(limit);
-            List<ScoreDTO> scoreDTOs = topScores.stream()
-                    .map(ScoreDTO::fromEntity)
-                    .collect(Collectors.toList());
+            List<ScoreDTO> scoreDTOs = scoreService.getTopScores(top);
             
             logger.debug("获取到 {} 条最高分记录", scoreDTOs.size());
-            return new ResponseEntity<>(scoreDTOs, HttpStatus.OK);
+            return ok(scoreDTOs, etag);
         } catch (Exception e) {
             logger.error("获取最高分列表时发生错误: {}", e.getMessage(), e);
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
     
+    /**
+     * 指定难度榜前 limit 名，时间范围和缓存语义同总榜
+     */
     @GetMapping("/top/level/{level}")
     public ResponseEntity<List<ScoreDTO>> getTopScoresByLevel(
             @PathVariable Integer level, 
-            @RequestParam(defaultValue = "10") int limit) {
-        logger.debug("获取难度等级 {} 的前 {} 名分数记录请求", level, limit);
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) String window,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        logger.debug("获取难度等级 {} 的前 {} 名分数记录请求: 时间范围={}", level, limit, window);
+        int top = Math.max(1, Math.min(limit, maxTopLimit));
+        
+        Optional<LeaderboardWindow> range = LeaderboardWindow.of(window);
+        if (!range.isPresent()) {
+            logger.warn("无效的时间范围: {}", window);
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        if (range.get() != LeaderboardWindow.ALL) {
+            return windowTopScores(range.get(), level, top, ifNoneMatch);
+        }
+        
+        OptionalLong version = scoreService.getTopScoresVersion(level, top);
+        String etag = version.isPresent() ? etag(version.getAsLong()) : null;
+        if (etag != null && matches(ifNoneMatch, etag)) {
+            logger.debug("难度等级 {} 的排行榜未变化", level);
+            return notModified(etag);
+        }
         
         try {
-            List<Score> topScores = scoreService.getTopScoresByLevel(level, limit);
-            List<ScoreDTO> scoreDTOs = topScores.stream()
-                    .map(ScoreDTO::fromEntity)
-                    .collect(Collectors.toList());
+            List<ScoreDTO> scoreDTOs = scoreService.getTopScoresByLevel(level, top);
             
             logger.debug("获取到难度等级 {} 的 {} 条最高分记录", level, scoreDTOs.size());
-            return new ResponseEntity<>(scoreDTOs, HttpStatus.OK);
+            return ok(scoreDTOs, etag);
         } catch (Exception e) {
             logger.error("获取难度等级 {} 的最高分列表时发生错误: {}", level, e.getMessage(), e);
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
     
+    // Rolling windows are always served from memory, so they always carry an ETag
+    private ResponseEntity<List<ScoreDTO>> windowTopScores(LeaderboardWindow window, Integer level, int limit,
+                                                           String ifNoneMatch) {
+        try {
+            String etag = etag(scoreService.getWindowTopScoresVersion(window, level));
+            if (matches(ifNoneMatch, etag)) {
+                logger.debug("{} 排行榜未变化: 难度等级={}", window, level);
+                return notModified(etag);
+            }
+            List<ScoreDTO> scoreDTOs = scoreService.getWindowTopScores(window, level, limit);
+            logger.debug("获取到 {} 排行榜的 {} 条记录: 难度等级={}", window, scoreDTOs.size(), level);
+            return ok(scoreDTOs, etag);
+        } catch (IllegalStateException e) {
+            logger.warn("获取时间窗口排行榜失败: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .build();
+        }
+    }
+    
+    /**
+     * 以 SSE 订阅总榜（不传 level）或指定难度榜的前 limit 名：
+     * 首条 snapshot 事件为完整榜单，之后的 update 事件只包含变化的名次
+     */
+    @GetMapping(value = "/top/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamTopScores(
+            @RequestParam(required = false) Integer level,
+            @RequestParam(defaultValue = "10") int limit) {
+        logger.debug("订阅排行榜请求: 难度等级={}, 前 {} 名", level, limit);
+        
+        try {
+            return ResponseEntity.ok(leaderboardBroadcaster.subscribe(level, limit));
+        } catch (IllegalStateException e) {
+            logger.warn("订阅排行榜失败: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .build();
+        }
+    }
+    
     @GetMapping("/player/{playerName}")
-    public ResponseEntity<?> getPlayerScores(@PathVariable String playerName) {
-        logger.debug("获取玩家 '{}' 的分数记录请求", playerName);
+    public ResponseEntity<List<ScoreDTO>> getPlayerScores(
+            @PathVariable String playerName,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        logger.debug("获取玩家 '{}' 的分数记录请求: 游标={}, 每页={}", playerName, cursor, size);
+        
+        Optional<ScoreCursor> after = cursor == null || cursor.isEmpty()
+                ? Optional.empty() : ScoreCursor.decode(cursor);
+        if (cursor != null && !cursor.isEmpty() && !after.isPresent()) {
+            logger.warn("无效的分页游标: {}", cursor);
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
         
         try {
-            List<Score> scores = scoreService.getScoresByPlayer(playerName);
-            logger.debug("获取到玩家 '{}' 的 {} 条分数记录", playerName, scores.size());
-            return ResponseEntity.ok(scores);
+            int pageSize = clampPageSize(size);
+            List<ScoreDTO> scores = scoreService.getScoresByPlayer(playerName, after.orElse(null), pageSize + 1);
+            logger.debug("获取到玩家 '{}' 的 {} 条分数记录", playerName, Math.min(scores.size(), pageSize));
+            return page(scores, pageSize, null);
         } catch (Exception e) {
             logger.error("获取玩家 '{}' 的分数记录时发生错误: {}", playerName, e.getMessage(), e);
-            return ResponseEntity
-                .status(HttpStatus.INTERNAL_SERVER_ERROR)
-                .body("Error retrieving scores for player: " + playerName + ", " + e.getMessage());
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
+    
+    private int clampPageSize(int size) {
+        return Math.max(1, Math.min(size, maxPageSize));
+    }
+    
+    @GetMapping("/rank")
+    public ResponseEntity<PlayerRank> getRank(@RequestParam Long userId, @RequestParam(required = false) Integer level) {
+        logger.debug("获取名次请求: 用户ID={}, 难度等级={}", userId, level);
+        
+        try {
+            return scoreService.getRank(userId, level)
+                    .map(rank -> new ResponseEntity<>(rank, HttpStatus.OK))
+                    .orElseGet(() -> {
+                        logger.debug("用户 {} 在难度等级 {} 上没有分数", userId, level);
+                        return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+                    });
+        } catch (IllegalStateException e) {
+            logger.warn("获取名次失败: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .build();
+        }
+    }
+    
+    /**
+     * 以 NDJSON 流式导出分数（按ID升序），可按难度和时间范围 [from, to) 过滤（UTC 时间，与导出的 timestamp 相同），
+     * 中断后可用最后收到的ID作为 afterId 继续导出
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportScores(
+            @RequestParam(required = false) Integer level,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "0") long afterId) {
+        ScoreExportFilter filter = new ScoreExportFilter(level, from, to);
+        logger.info("导出分数请求: {}, afterId={}", filter, afterId);
+        
+        StreamingResponseBody body = out -> {
+            long start = System.currentTimeMillis();
+            OutputStream buffered = new BufferedOutputStream(out, EXPORT_BUFFER_BYTES);
+            try {
+                long exported = scoreService.exportScores(filter, afterId, row -> writeLine(buffered, row));
+                buffered.flush();
+                logger.info("分数导出完成: {} 条, 耗时 {}ms", exported, System.currentTimeMillis() - start);
+            } catch (UncheckedIOException e) {
+                logger.warn("分数导出中断: {}", e.getMessage());
+                throw e.getCause();
+            }
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+    
+    private void writeLine(OutputStream out, ScoreExportDTO row) {
+        try {
+            out.write(exportWriter.writeValueAsBytes(row));
+            out.write('\n');
+        } catch (IOException e) {
+            // Usually the client went away; abort the export loop
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    // Trim the look-ahead row and hand out a cursor for the last row of this page
+    private static ResponseEntity<List<ScoreDTO>> page(List<ScoreDTO> scores, int pageSize, String etag) {
+        if (scores.size() <= pageSize) {
+            return ok(scores, etag);
+        }
+        List<ScoreDTO> rows = scores.subList(0, pageSize);
+        ScoreDTO last = rows.get(rows.size() - 1);
+        return ResponseEntity.ok()
+                .header(NEXT_CURSOR_HEADER, new ScoreCursor(last.getScore(), last.getId()).encode())
+                .headers(validators(etag))
+                .body(rows);
+    }
+    
+    private static ResponseEntity<List<ScoreDTO>> ok(List<ScoreDTO> scores, String etag) {
+        return ResponseEntity.ok().headers(validators(etag)).body(scores);
+    }
+    
+    // The 304 repeats the validators so the client's stored copy stays fresh
+    private static ResponseEntity<List<ScoreDTO>> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(validators(etag)).build();
+    }
+    
+    private static HttpHeaders validators(String etag) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setVary(VARY);
+        if (etag != null) {
+            headers.setETag(etag);
+            headers.setCacheControl(REVALIDATE);
+        }
+        return headers;
+    }
+    
+    // If-None-Match uses the weak comparison: W/ prefixes are ignored
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String opaque = etag.substring(2);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    // Weak: the same version is served as JSON or the compact encoding, gzipped or not
+    private static String etag(long version) {
+        return "W/\"" + version + "\"";
+    }
 }
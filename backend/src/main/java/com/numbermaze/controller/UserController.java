@@ -2,10 +2,14 @@ package com.numbermaze.controller;
 
 import com.numbermaze.dto.UserDTO;
 import com.numbermaze.model.User;
+import com.numbermaze.model.UserStats;
 import com.numbermaze.service.UserService;
+import com.numbermaze.service.UserStatsService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -15,23 +19,71 @@ import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/users")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = "X-Next-Cursor")
 public class UserController {
     
     private static final Logger logger = LoggerFactory.getLogger(UserController.class);
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
     private final UserService userService;
+    private final UserStatsService userStatsService;
+    private final int maxPageSize;
+    private final int maxSearchResults;
     
     @Autowired
-    public UserController(UserService userService) {
+    public UserController(UserService userService, UserStatsService userStatsService,
+                          @Value("${user.directory.max-page-size:200}") int maxPageSize,
+                          @Value("${user.search.max-results:50}") int maxSearchResults) {
         this.userService = userService;
+        this.userStatsService = userStatsService;
+        this.maxPageSize = maxPageSize;
+        this.maxSearchResults = maxSearchResults;
     }
     
+    /**
+     * 按ID升序分页列出用户；cursor 为上一页响应头 X-Next-Cursor 的值（最后一个用户的ID），
+     * 没有该响应头表示已是最后一页
+     */
     @GetMapping
-    public ResponseEntity<List<User>> getAllUsers() {
-        logger.debug("获取所有用户请求");
-        List<User> users = userService.getAllUsers();
-        logger.debug("获取到 {} 个用户", users.size());
-        return new ResponseEntity<>(users, HttpStatus.OK);
+    public ResponseEntity<List<User>> getUsers(
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        logger.debug("获取用户列表请求: 游标={}, 每页={}", cursor, size);
+        int pageSize = Math.max(1, Math.min(size, maxPageSize));
+        // One extra row tells whether another page exists
+        List<User> users = userService.getUsersPage(cursor, pageSize + 1);
+        if (users.size() <= pageSize) {
+            logger.debug("获取到 {} 个用户", users.size());
+            return new ResponseEntity<>(users, HttpStatus.OK);
+        }
+        List<User> rows = users.subList(0, pageSize);
+        logger.debug("获取到 {} 个用户", rows.size());
+        return ResponseEntity.ok()
+                .header(NEXT_CURSOR_HEADER, String.valueOf(rows.get(rows.size() - 1).getId()))
+                .body(rows);
+    }
+    
+    /**
+     * 按用户名前缀搜索用户（不区分大小写），按用户名排序返回前 limit 个，只包含ID和用户名
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<UserDTO>> searchUsers(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        logger.debug("搜索用户请求: 前缀='{}', 前 {} 个", prefix, limit);
+        if (prefix.isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        
+        try {
+            List<UserDTO> users = userService.searchUsers(prefix, Math.max(1, Math.min(limit, maxSearchResults)));
+            logger.debug("前缀 '{}' 匹配到 {} 个用户", prefix, users.size());
+            return new ResponseEntity<>(users, HttpStatus.OK);
+        } catch (IllegalStateException e) {
+            logger.warn("搜索用户失败: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .build();
+        }
     }
     
     @PostMapping
@@ -66,6 +118,20 @@ public class UserController {
         });
     }
     
+    @GetMapping("/{id}/stats")
+    public ResponseEntity<List<UserStats>> getUserStats(@PathVariable Long id) {
+        logger.debug("获取用户统计请求: ID={}", id);
+        
+        if (!userService.getUserById(id).isPresent()) {
+            logger.warn("用户不存在: ID={}", id);
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        
+        List<UserStats> stats = userStatsService.getUserStats(id);
+        logger.debug("获取到用户 {} 的 {} 个难度统计", id, stats.size());
+        return new ResponseEntity<>(stats, HttpStatus.OK);
+    }
+    
     @GetMapping("/username/{username}")
     public ResponseEntity<User> getUserByUsername(@PathVariable String username) {
         logger.debug("通过用户名获取用户: 用户名={}", username);
@@ -0,0 +1,235 @@
+package com.numbermaze.dto;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分数列表的紧凑二进制编码（application/x-numbermaze-scores），供带宽受限的客户端使用。
+ * 只包含读取接口返回的字段：用户去重为一张用户表，每条分数只记录用户在表中的下标；
+ * 各字段按列存放，整数使用 varint，ID 和分数按与上一行的差值编码（排行榜中相邻行的差值很小）
+ * <pre>
+ * 格式版本 用户数 (用户ID 用户名)* 行数 ID列 用户下标列 分数列 难度列 用时列 步数列
+ * </pre>
+ * 可为 null 的整数用 0 表示 null，其余为 zigzag 编码后加 1（因此 Long.MIN_VALUE 及等于它的差值无法编码，写入时抛出 IOException）；字符串为 UTF-8 字节数加 1（0 为 null）后跟字节；
+ * 用户下标从 1 开始，0 表示没有用户
+ */
+public final class CompactScoreCodec {
+
+    public static final String MEDIA_TYPE = "application/x-numbermaze-scores";
+    public static final int FORMAT_VERSION = 1;
+
+    private CompactScoreCodec() {
+    }
+
+    public static void encode(List<ScoreDTO> scores, OutputStream out) throws IOException {
+        Map<Long, Integer> userIndex = new HashMap<>();
+        List<UserDTO> users = new ArrayList<>();
+        int[] userRefs = new int[scores.size()];
+        for (int i = 0; i < scores.size(); i++) {
+            UserDTO user = scores.get(i).getUser();
+            if (user == null) {
+                continue;
+            }
+            Integer index = userIndex.get(user.getId());
+            if (index == null) {
+                index = users.size();
+                userIndex.put(user.getId(), index);
+                users.add(user);
+            }
+            userRefs[i] = index + 1;
+        }
+
+        out.write(FORMAT_VERSION);
+        writeVarint(out, users.size());
+        for (UserDTO user : users) {
+            writeNullable(out, user.getId());
+            writeString(out, user.getUsername());
+        }
+        writeVarint(out, scores.size());
+        long previous = 0;
+        for (ScoreDTO score : scores) {
+            previous = writeDelta(out, score.getId(), previous);
+        }
+        for (int userRef : userRefs) {
+            writeVarint(out, userRef);
+        }
+        previous = 0;
+        for (ScoreDTO score : scores) {
+            previous = writeDelta(out, toLong(score.getScore()), previous);
+        }
+        for (ScoreDTO score : scores) {
+            writeNullable(out, toLong(score.getLevel()));
+        }
+        for (ScoreDTO score : scores) {
+            writeNullable(out, toLong(score.getTime()));
+        }
+        for (ScoreDTO score : scores) {
+            writeNullable(out, toLong(score.getSteps()));
+        }
+    }
+
+    /**
+     * encode 的逆过程；格式版本不符或数据不完整时抛出 IOException
+     */
+    public static List<ScoreDTO> decode(InputStream in) throws IOException {
+        int version = in.read();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("不支持的分数列表格式版本: " + version);
+        }
+        int userCount = readCount(in);
+        List<UserDTO> users = new ArrayList<>(userCount);
+        for (int i = 0; i < userCount; i++) {
+            UserDTO user = new UserDTO();
+            user.setId(readNullable(in));
+            user.setUsername(readString(in));
+            users.add(user);
+        }
+        int rows = readCount(in);
+        List<ScoreDTO> scores = new ArrayList<>(rows);
+        Long previous = 0L;
+        for (int i = 0; i < rows; i++) {
+            ScoreDTO score = new ScoreDTO();
+            score.setId(readDelta(in, previous));
+            previous = score.getId() != null ? score.getId() : previous;
+            scores.add(score);
+        }
+        for (ScoreDTO score : scores) {
+            int userRef = readCount(in);
+            if (userRef > users.size()) {
+                throw new IOException("用户下标越界: " + userRef);
+            }
+            score.setUser(userRef == 0 ? null : users.get(userRef - 1));
+        }
+        previous = 0L;
+        for (ScoreDTO score : scores) {
+            Long value = readDelta(in, previous);
+            score.setScore(toInteger(value));
+            previous = value != null ? value : previous;
+        }
+        for (ScoreDTO score : scores) {
+            score.setLevel(toInteger(readNullable(in)));
+        }
+        for (ScoreDTO score : scores) {
+            score.setTime(toInteger(readNullable(in)));
+        }
+        for (ScoreDTO score : scores) {
+            score.setSteps(toInteger(readNullable(in)));
+        }
+        return scores;
+    }
+
+    // Returns the new base for the next delta: a null keeps the previous one
+    private static long writeDelta(OutputStream out, Long value, long previous) throws IOException {
+        if (value == null) {
+            writeVarint(out, 0);
+            return previous;
+        }
+        writeVarint(out, present(zigzag(value - previous)));
+        return value;
+    }
+
+    private static Long readDelta(InputStream in, long previous) throws IOException {
+        long encoded = readVarint(in);
+        return encoded == 0 ? null : previous + unzigzag(encoded - 1);
+    }
+
+    private static void writeNullable(OutputStream out, Long value) throws IOException {
+        writeVarint(out, value == null ? 0 : present(zigzag(value)));
+    }
+
+    private static Long readNullable(InputStream in) throws IOException {
+        long encoded = readVarint(in);
+        return encoded == 0 ? null : unzigzag(encoded - 1);
+    }
+
+    // The +1 that keeps 0 for null would wrap the one value that zigzags to all ones
+    private static long present(long zigzagged) throws IOException {
+        if (zigzagged == -1L) {
+            throw new IOException("数值超出紧凑编码范围");
+        }
+        return zigzagged + 1;
+    }
+
+    private static void writeString(OutputStream out, String value) throws IOException {
+        if (value == null) {
+            writeVarint(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length + 1L);
+        out.write(bytes);
+    }
+
+    private static String readString(InputStream in) throws IOException {
+        int length = readCount(in);
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length - 1];
+        int read = 0;
+        while (read < bytes.length) {
+            int n = in.read(bytes, read, bytes.length - read);
+            if (n < 0) {
+                throw new EOFException("分数列表数据不完整");
+            }
+            read += n;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Unsigned LEB128: 7 bits per byte, high bit set on all but the last byte
+    private static void writeVarint(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(InputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("分数列表数据不完整");
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("varint 过长");
+    }
+
+    private static int readCount(InputStream in) throws IOException {
+        long count = readVarint(in);
+        if (count > Integer.MAX_VALUE) {
+            throw new IOException("长度超出范围: " + count);
+        }
+        return (int) count;
+    }
+
+    // Small magnitudes of either sign become small unsigned values
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static Long toLong(Integer value) {
+        return value == null ? null : value.longValue();
+    }
+
+    private static Integer toInteger(Long value) {
+        return value == null ? null : Math.toIntExact(value);
+    }
+}
@@ -0,0 +1,29 @@
+package com.numbermaze.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 排行榜推送消息：只包含名次发生变化的位置，客户端按 rank 覆盖对应行并截断到 size 条；
+ * 订阅时的首条消息（snapshot）包含全部位置
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeaderboardUpdateDTO {
+    // null for the overall leaderboard
+    private Integer level;
+    private int size;
+    private List<Change> changes;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Change {
+        private int rank;
+        private ScoreDTO score;
+    }
+}
@@ -0,0 +1,42 @@
+package com.numbermaze.dto;
+
+import com.numbermaze.puzzle.HexGrid;
+import com.numbermaze.puzzle.IssuedPuzzle;
+import com.numbermaze.puzzle.Puzzle;
+import lombok.Data;
+
+@Data
+public class PuzzleDTO {
+    // Opaque ticket of this issue; submit it with the score as puzzleId
+    private String id;
+    private Integer level;
+    private Integer sideLength;
+    // Axial coordinates of every cell, in the same order as values
+    private int[] q;
+    private int[] r;
+    // Visible number per cell, 0 for cells the player has to fill
+    private int[] values;
+    private int[][] diamonds;
+    
+    // Convert an issued puzzle to DTO (neither the seed nor the solution is sent to the client)
+    public static PuzzleDTO fromIssued(IssuedPuzzle issued) {
+        Puzzle puzzle = issued.getPuzzle();
+        HexGrid grid = puzzle.getGrid();
+        PuzzleDTO dto = new PuzzleDTO();
+        dto.setId(issued.getId());
+        dto.setLevel(puzzle.getLevel().getLevel());
+        dto.setSideLength(grid.getSideLength());
+        
+        int[] q = new int[grid.size()];
+        int[] r = new int[grid.size()];
+        for (int cell = 0; cell < grid.size(); cell++) {
+            q[cell] = grid.q(cell);
+            r[cell] = grid.r(cell);
+        }
+        dto.setQ(q);
+        dto.setR(r);
+        dto.setValues(puzzle.getGivens());
+        dto.setDiamonds(puzzle.getDiamonds());
+        return dto;
+    }
+}
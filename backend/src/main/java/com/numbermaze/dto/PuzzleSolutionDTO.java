@@ -0,0 +1,11 @@
+package com.numbermaze.dto;
+
+import lombok.Data;
+
+@Data
+public class PuzzleSolutionDTO {
+    private String puzzleId;
+    // Number filled into each cell, in the cell order of PuzzleDTO
+    private int[] values;
+    private Boolean valid;
+}
@@ -0,0 +1,38 @@
+package com.numbermaze.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量上传分数的结果：items 与请求中的分数一一对应（按 index），单条失败不影响其他分数的保存
+ */
+@Data
+@NoArgsConstructor
+public class ScoreBatchResultDTO {
+    private int created;
+    private int duplicates;
+    private int rejected;
+    private List<Item> items = new ArrayList<>();
+
+    public enum Status {
+        CREATED,
+        // The submission key was stored by an earlier upload (or earlier in this one); id is that score
+        DUPLICATE,
+        REJECTED
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+        private int index;
+        private String submissionKey;
+        private Status status;
+        private Long id;
+        private String error;
+    }
+}
@@ -1,9 +1,12 @@
 package com.numbermaze.dto;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.numbermaze.model.Score;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 @Data
+@NoArgsConstructor
 public class ScoreDTO {
     private Long id;
     private UserDTO user;
@@ -11,11 +14,33 @@ public class ScoreDTO {
     private Integer level;
     private Integer time;
     private Integer steps;
+    // Server-issued puzzle and the player's fill, checked before the score is accepted; request-only
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+    private String puzzleId;
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+    private int[] solution;
+    // Client-generated key of a batch upload; a retry with the same key does not store the score again.
+    // Request-only: the batch result reports it per item
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+    private String submissionKey;
     
-    // Convert DTO to Entity
+    // Constructor expression for read queries: rows go straight into DTOs without loading entities
+    public ScoreDTO(Long id, Long userId, String username, Integer score, Integer level, Integer time, Integer steps) {
+        this.id = id;
+        this.score = score;
+        this.level = level;
+        this.time = time;
+        this.steps = steps;
+        if (userId != null) {
+            this.user = new UserDTO();
+            this.user.setId(userId);
+            this.user.setUsername(username);
+        }
+    }
+    
+    // Convert DTO to Entity; the id is never taken from the client, saving always inserts a new score
     public Score toEntity() {
         Score score = new Score();
-        score.setId(this.id);
         score.setScore(this.score);
         score.setLevel(this.level);
         score.setTime(this.time);
@@ -0,0 +1,24 @@
+package com.numbermaze.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 导出用的扁平分数行，每行对应 NDJSON 中的一条记录
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScoreExportDTO {
+    private Long id;
+    private Long userId;
+    private String username;
+    private Integer score;
+    private Integer level;
+    private Integer time;
+    private Integer steps;
+    private LocalDateTime timestamp;
+}
@@ -0,0 +1,145 @@
+package com.numbermaze.ingestion;
+
+import com.numbermaze.model.Score;
+import com.numbermaze.service.ScoreService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分数异步写入队列：接收的分数先进入有界队列，由后台线程按批次大小或刷新间隔批量写入数据库
+ */
+@Component
+@ConditionalOnProperty(name = "score.ingestion.mode", havingValue = "write-behind")
+public class ScoreWriteBehindQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScoreWriteBehindQueue.class);
+
+    private final ScoreService scoreService;
+    private final BlockingQueue<Score> queue;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final Counter rejected;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    @Autowired
+    public ScoreWriteBehindQueue(ScoreService scoreService, MeterRegistry meterRegistry,
+                                 @Value("${score.ingestion.queue-capacity:10000}") int queueCapacity,
+                                 @Value("${score.ingestion.batch-size:50}") int batchSize,
+                                 @Value("${score.ingestion.flush-interval-ms:200}") long flushIntervalMs) {
+        this.scoreService = scoreService;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.writer = new Thread(this::drainLoop, "score-write-behind");
+        this.writer.setDaemon(true);
+        Gauge.builder("numbermaze.ingestion.queue.depth", queue, BlockingQueue::size)
+                .description("Scores accepted but not yet persisted")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("numbermaze.ingestion.rejected")
+                .description("Scores refused because the queue was full")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        writer.start();
+        logger.info("分数异步写入已启用: 批次大小={}, 刷新间隔={}ms, 队列容量={}",
+                batchSize, flushIntervalMs, queue.remainingCapacity());
+    }
+
+    /**
+     * 提交一条分数，返回是否已进入队列；队列已满时返回 false，由调用方拒绝请求。
+     * 分数ID在批量写库时才分配，入队时不返回任何ID
+     */
+    public boolean submit(Score score) {
+        if (!running || !queue.offer(score)) {
+            rejected.increment();
+            return false;
+        }
+        return true;
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    private void drainLoop() {
+        List<Score> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Score first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    Score next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                queue.drainTo(batch);
+                flush(batch);
+                return;
+            }
+            flush(batch);
+        }
+    }
+
+    private void flush(List<Score> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            scoreService.saveScores(batch);
+            logger.debug("批量写入分数 {} 条", batch.size());
+        } catch (Exception e) {
+            // Retry row by row so one bad record does not drop the whole batch
+            logger.error("批量写入 {} 条分数失败，改为逐条写入: {}", batch.size(), e.getMessage(), e);
+            for (Score score : batch) {
+                try {
+                    score.setId(null);
+                    scoreService.saveScore(score);
+                } catch (Exception single) {
+                    logger.error("分数写入失败，已丢弃: 用户ID={}, 分数={}, 错误={}",
+                            score.getUser().getId(), score.getScore(), single.getMessage());
+                }
+            }
+        } finally {
+            batch.clear();
+        }
+    }
+
+    // Stop accepting, then let the writer drain whatever is still queued
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+        logger.info("分数异步写入队列已关闭, 未写入数量={}", queue.size());
+    }
+}
@@ -0,0 +1,307 @@
+package com.numbermaze.leaderboard;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.numbermaze.dto.LeaderboardUpdateDTO;
+import com.numbermaze.dto.ScoreDTO;
+import com.numbermaze.model.Score;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 排行榜推送：客户端通过 SSE 订阅某个榜单的前N名，新分数只标记榜单为脏，
+ * 由单个推送线程按合并窗口重新读取内存排行榜，与上次推送的内容比较后只把变化的名次发给订阅者。
+ * 每个榜单每个窗口最多序列化一次，与订阅人数无关。
+ * 推送线程只把事件放入每个订阅者的有界队列，由发送线程池写出；队列满说明客户端消费过慢，直接断开，
+ * 慢客户端不会拖住推送线程和其他订阅者
+ */
+@Component
+public class LeaderboardBroadcaster {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeaderboardBroadcaster.class);
+    private static final String SNAPSHOT_EVENT = "snapshot";
+    private static final String UPDATE_EVENT = "update";
+
+    private final LeaderboardIndex leaderboardIndex;
+    private final ObjectWriter updateWriter;
+    private final long coalesceMs;
+    private final long heartbeatMs;
+    private final long timeoutMs;
+    private final int maxSubscribers;
+    private final int queueSize;
+    private final ConcurrentMap<String, Topic> topics = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ScheduledExecutorService pusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "leaderboard-push");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService sender;
+
+    @Autowired
+    public LeaderboardBroadcaster(LeaderboardIndex leaderboardIndex, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                                  @Value("${leaderboard.push.coalesce-ms:250}") long coalesceMs,
+                                  @Value("${leaderboard.push.heartbeat-ms:15000}") long heartbeatMs,
+                                  @Value("${leaderboard.push.timeout-ms:1800000}") long timeoutMs,
+                                  @Value("${leaderboard.push.max-subscribers:10000}") int maxSubscribers,
+                                  @Value("${leaderboard.push.queue-size:32}") int queueSize,
+                                  @Value("${leaderboard.push.send-threads:4}") int sendThreads) {
+        this.leaderboardIndex = leaderboardIndex;
+        this.updateWriter = objectMapper.writerFor(LeaderboardUpdateDTO.class);
+        this.coalesceMs = coalesceMs;
+        this.heartbeatMs = heartbeatMs;
+        this.timeoutMs = timeoutMs;
+        this.maxSubscribers = maxSubscribers;
+        this.queueSize = queueSize;
+        AtomicInteger senderIds = new AtomicInteger();
+        this.sender = Executors.newFixedThreadPool(sendThreads, runnable -> {
+            Thread thread = new Thread(runnable, "leaderboard-send-" + senderIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("numbermaze.leaderboard.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Open leaderboard push connections")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        pusher.scheduleWithFixedDelay(this::flush, coalesceMs, coalesceMs, TimeUnit.MILLISECONDS);
+        pusher.scheduleWithFixedDelay(this::heartbeat, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        pusher.shutdownNow();
+        sender.shutdownNow();
+        for (Topic topic : topics.values()) {
+            topic.subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        }
+    }
+
+    /**
+     * 订阅总榜（level 为 null）或指定难度榜的前 limit 名（截断到索引容量）；
+     * 排行榜未预热或订阅数已满时抛出 IllegalStateException
+     */
+    public SseEmitter subscribe(Integer level, int limit) {
+        int size = Math.max(1, Math.min(limit, leaderboardIndex.getCapacity()));
+        if (!leaderboardIndex.canServe(size)) {
+            throw new IllegalStateException("排行榜索引尚未预热完成");
+        }
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new IllegalStateException("排行榜订阅数已达上限 " + maxSubscribers);
+        }
+        Topic topic = topics.computeIfAbsent((level == null ? "all" : level) + ":" + size, key -> new Topic(level, size));
+        Subscriber subscriber = new Subscriber(topic, new SseEmitter(timeoutMs), queueSize);
+        subscriber.emitter.onCompletion(subscriber::close);
+        subscriber.emitter.onTimeout(subscriber::close);
+        subscriber.emitter.onError(error -> subscriber.close());
+        // Joining on the push thread keeps the snapshot and the following updates in order
+        pusher.execute(() -> join(subscriber));
+        return subscriber.emitter;
+    }
+
+    /**
+     * 新分数进入内存排行榜后调用：只标记受影响的榜单，实际推送在下一个合并窗口进行
+     */
+    public void publish(Score score) {
+        for (Topic topic : topics.values()) {
+            if (topic.level == null || topic.level.equals(score.getLevel())) {
+                topic.dirty.set(true);
+            }
+        }
+    }
+
+    /**
+     * 用户改名后调用：所有榜单在下一个合并窗口重新比较，推送名字变化的名次
+     */
+    public void publishAll() {
+        for (Topic topic : topics.values()) {
+            topic.dirty.set(true);
+        }
+    }
+
+    private void join(Subscriber subscriber) {
+        Topic topic = subscriber.topic;
+        try {
+            // Bring existing subscribers up to date first so the snapshot matches what they hold
+            broadcast(topic, UPDATE_EVENT, refresh(topic));
+            topic.subscribers.add(subscriber);
+            if (subscriber.closed.get()) {
+                topic.subscribers.remove(subscriber);
+                return;
+            }
+            List<LeaderboardUpdateDTO.Change> changes = new ArrayList<>(topic.last.size());
+            for (int i = 0; i < topic.last.size(); i++) {
+                changes.add(new LeaderboardUpdateDTO.Change(i + 1, topic.last.get(i)));
+            }
+            String snapshot = updateWriter.writeValueAsString(new LeaderboardUpdateDTO(topic.level, topic.last.size(), changes));
+            enqueue(subscriber, SseEmitter.event().name(SNAPSHOT_EVENT).data(snapshot, MediaType.APPLICATION_JSON));
+        } catch (Exception e) {
+            logger.error("发送排行榜快照失败: {}", e.getMessage(), e);
+            subscriber.emitter.completeWithError(e);
+        }
+    }
+
+    // A failure must not cancel the periodic task
+    private void flush() {
+        for (Topic topic : topics.values()) {
+            if (!topic.dirty.getAndSet(false) || topic.subscribers.isEmpty()) {
+                continue;
+            }
+            try {
+                broadcast(topic, UPDATE_EVENT, refresh(topic));
+            } catch (Exception e) {
+                logger.error("推送排行榜更新失败: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    private void heartbeat() {
+        for (Topic topic : topics.values()) {
+            for (Subscriber subscriber : topic.subscribers) {
+                enqueue(subscriber, SseEmitter.event().comment("ping"));
+            }
+        }
+    }
+
+    /**
+     * 读取当前前N名并与上次推送的内容逐位比较，返回变化的名次；没有变化时返回 null
+     */
+    private LeaderboardUpdateDTO refresh(Topic topic) {
+        List<ScoreDTO> current = topic.level == null
+                ? leaderboardIndex.getTopScores(topic.size)
+                : leaderboardIndex.getTopScoresByLevel(topic.level, topic.size);
+        List<LeaderboardUpdateDTO.Change> changes = new ArrayList<>();
+        for (int i = 0; i < current.size(); i++) {
+            ScoreDTO score = current.get(i);
+            // Same DTO instance unless the score moved or its player was renamed
+            if (i >= topic.last.size() || topic.last.get(i) != score) {
+                changes.add(new LeaderboardUpdateDTO.Change(i + 1, score));
+            }
+        }
+        boolean shrunk = current.size() < topic.last.size();
+        topic.last = current;
+        return changes.isEmpty() && !shrunk ? null : new LeaderboardUpdateDTO(topic.level, current.size(), changes);
+    }
+
+    private void broadcast(Topic topic, String event, LeaderboardUpdateDTO update) throws JsonProcessingException {
+        if (update == null || topic.subscribers.isEmpty()) {
+            return;
+        }
+        String json = updateWriter.writeValueAsString(update);
+        for (Subscriber subscriber : topic.subscribers) {
+            enqueue(subscriber, SseEmitter.event().name(event).data(json, MediaType.APPLICATION_JSON));
+        }
+    }
+
+    /**
+     * 在推送线程中调用，从不阻塞：事件放入订阅者队列，必要时安排发送线程写出；队列已满时断开该订阅者
+     */
+    private void enqueue(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        if (subscriber.closed.get()) {
+            return;
+        }
+        if (!subscriber.pending.offer(event)) {
+            logger.warn("排行榜订阅者积压 {} 条推送未发出，断开连接", queueSize);
+            // The draining sender completes the emitter once its blocked write returns
+            subscriber.close();
+            return;
+        }
+        if (subscriber.draining.compareAndSet(false, true)) {
+            sender.execute(() -> drain(subscriber));
+        }
+    }
+
+    private static void drain(Subscriber subscriber) {
+        do {
+            SseEmitter.SseEventBuilder event;
+            while ((event = subscriber.pending.poll()) != null && !subscriber.closed.get()) {
+                try {
+                    subscriber.emitter.send(event);
+                } catch (IOException | IllegalStateException e) {
+                    // Client went away; the container completes the emitter
+                    subscriber.close();
+                }
+            }
+            if (subscriber.closed.get()) {
+                subscriber.pending.clear();
+                complete(subscriber.emitter);
+            }
+            subscriber.draining.set(false);
+            // An event offered after the last poll but before draining was cleared still needs a sender
+        } while (!subscriber.pending.isEmpty() && subscriber.draining.compareAndSet(false, true));
+    }
+
+    private static void complete(SseEmitter emitter) {
+        try {
+            emitter.complete();
+        } catch (IllegalStateException e) {
+            // Already completed by the container
+        }
+    }
+
+    /**
+     * 一个榜单的一种条数（如 难度2 前10名），last 只在推送线程中读写
+     */
+    private static final class Topic {
+        private final Integer level;
+        private final int size;
+        private final AtomicBoolean dirty = new AtomicBoolean();
+        private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+        private List<ScoreDTO> last = Collections.emptyList();
+
+        Topic(Integer level, int size) {
+            this.level = level;
+            this.size = size;
+        }
+    }
+
+    private final class Subscriber {
+        private final Topic topic;
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> pending;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        Subscriber(Topic topic, SseEmitter emitter, int queueSize) {
+            this.topic = topic;
+            this.emitter = emitter;
+            this.pending = new ArrayBlockingQueue<>(queueSize);
+        }
+
+        void close() {
+            if (closed.compareAndSet(false, true)) {
+                topic.subscribers.remove(this);
+                subscriberCount.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.numbermaze.leaderboard;
+
+import com.numbermaze.dto.ScoreDTO;
+import com.numbermaze.model.Score;
+import com.numbermaze.puzzle.PuzzleLevel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 内存排行榜索引：按难度等级 (PuzzleLevel) 维护有界的前K名有序集合，读取前N名无需访问数据库。
+ * 每条记录在进入榜单时转换一次 ScoreDTO，读取时直接返回，不再逐次转换；用户改名时替换其记录的 ScoreDTO。
+ * 每个榜单有一个版本号，内容变化后递增，用作 HTTP ETag；版本号从启动时间（微秒）开始，重启后不会与之前的重复
+ */
+@Component
+public class LeaderboardIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeaderboardIndex.class);
+
+    // Ordered by score desc, then earlier timestamp, then lower id
+    static final Comparator<Entry> ORDER = Comparator
+            .comparingInt((Entry e) -> e.score).reversed()
+            .thenComparingLong(e -> e.timestamp)
+            .thenComparingLong(e -> e.id);
+
+    private final int capacity;
+    // Versions start at the boot time in micros; the start value itself stands for a level with no board yet
+    private final long emptyVersion = System.currentTimeMillis() * 1000;
+    private final AtomicLong versions = new AtomicLong(emptyVersion);
+    private final Board global;
+    // Keyed by the enum so that the number of boards stays bounded whatever levels arrive
+    private final ConcurrentMap<PuzzleLevel, Board> levels = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    public LeaderboardIndex(@Value("${leaderboard.capacity:100}") int capacity) {
+        this.capacity = capacity;
+        this.global = new Board(capacity, versions);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * 索引是否已预热完成，且请求的条数在索引容量之内
+     */
+    public boolean canServe(int limit) {
+        return ready && limit > 0 && limit <= capacity;
+    }
+
+    /**
+     * 使用数据库中的前K名数据预热索引，完成后开始对外提供读取
+     */
+    public void warm(Collection<Score> topScores, Map<Integer, List<Score>> topScoresByLevel) {
+        topScores.forEach(score -> global.offer(new Entry(score)));
+        topScoresByLevel.forEach((level, scores) -> PuzzleLevel.of(level).ifPresent(puzzleLevel ->
+                scores.forEach(score -> board(puzzleLevel).offer(new Entry(score)))));
+        ready = true;
+        logger.info("排行榜索引预热完成: 总榜 {} 条, {} 个难度等级", global.size, topScoresByLevel.size());
+    }
+
+    /**
+     * 新分数写入后同步更新总榜和对应难度等级的榜单，返回分数是否进入了其中任一榜单
+     */
+    public boolean offer(Score score) {
+        if (score == null || score.getId() == null) {
+            return false;
+        }
+        // One entry (and one DTO) shared by both boards
+        Entry entry = new Entry(score);
+        boolean changed = global.offer(entry);
+        Optional<PuzzleLevel> level = PuzzleLevel.of(score.getLevel());
+        if (level.isPresent()) {
+            changed |= board(level.get()).offer(entry);
+        }
+        return changed;
+    }
+
+    /**
+     * 用户改名后替换其在各榜单中记录的用户名，并递增这些榜单的版本号；返回是否有榜单包含该用户
+     */
+    public boolean rename(Long userId, String username) {
+        boolean changed = global.rename(userId, username);
+        for (Board board : levels.values()) {
+            changed |= board.rename(userId, username);
+        }
+        return changed;
+    }
+
+    public List<ScoreDTO> getTopScores(int limit) {
+        return global.top(limit);
+    }
+
+    public List<ScoreDTO> getTopScoresByLevel(Integer level, int limit) {
+        Board board = PuzzleLevel.of(level).map(levels::get).orElse(null);
+        return board == null ? Collections.emptyList() : board.top(limit);
+    }
+
+    /**
+     * 总榜（level 为 null）或指定难度榜的当前版本号；读取版本号应在读取榜单内容之前
+     */
+    public long getVersion(Integer level) {
+        Board board = level == null ? global : PuzzleLevel.of(level).map(levels::get).orElse(null);
+        return board == null ? emptyVersion : board.version;
+    }
+
+    private Board board(PuzzleLevel level) {
+        return levels.computeIfAbsent(level, l -> new Board(capacity, versions));
+    }
+
+    static long epochMillis(LocalDateTime timestamp) {
+        return timestamp == null ? Long.MAX_VALUE : timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    /**
+     * 单个榜单：写入时加锁维护容量上限，读取时无锁遍历跳表（时间窗口排行榜的每个时间桶也使用）
+     */
+    static final class Board {
+        private final int capacity;
+        private final AtomicLong versions;
+        private final ConcurrentSkipListSet<Entry> entries = new ConcurrentSkipListSet<>(ORDER);
+        private int size;
+        // Bumped after the change is visible, so a reader never tags old content with a new version
+        private volatile long version;
+
+        Board(int capacity, AtomicLong versions) {
+            this.capacity = capacity;
+            this.versions = versions;
+            this.version = versions.incrementAndGet();
+        }
+
+        synchronized boolean offer(Entry entry) {
+            if (size >= capacity && ORDER.compare(entry, entries.last()) >= 0) {
+                return false;
+            }
+            if (!entries.add(entry)) {
+                return false;
+            }
+            if (++size > capacity) {
+                entries.pollLast();
+                size--;
+            }
+            version = versions.incrementAndGet();
+            return true;
+        }
+
+        // Entries are shared with other boards, which may have renamed them already: any entry of the user counts
+        synchronized boolean rename(Long userId, String username) {
+            boolean found = false;
+            for (Entry entry : entries) {
+                if (userId.equals(entry.userId())) {
+                    entry.rename(username);
+                    found = true;
+                }
+            }
+            if (found) {
+                version = versions.incrementAndGet();
+            }
+            return found;
+        }
+
+        Iterator<Entry> iterator() {
+            return entries.iterator();
+        }
+
+        long version() {
+            return version;
+        }
+
+        List<ScoreDTO> top(int limit) {
+            List<ScoreDTO> result = new ArrayList<>(Math.min(limit, capacity));
+            Iterator<Entry> it = entries.iterator();
+            while (it.hasNext() && result.size() < limit) {
+                result.add(it.next().value);
+            }
+            return result;
+        }
+    }
+
+    static final class Entry {
+        private final int score;
+        private final long timestamp;
+        private final long id;
+        // Replaced, never mutated, on a rename: readers holding the old DTO keep a consistent row
+        private volatile ScoreDTO value;
+
+        Entry(Score score) {
+            this.score = score.getScore() == null ? Integer.MIN_VALUE : score.getScore();
+            this.timestamp = epochMillis(score.getTimestamp());
+            this.id = score.getId();
+            this.value = ScoreDTO.fromEntity(score);
+        }
+
+        ScoreDTO value() {
+            return value;
+        }
+
+        Long userId() {
+            ScoreDTO current = value;
+            return current.getUser() == null ? null : current.getUser().getId();
+        }
+
+        void rename(String username) {
+            ScoreDTO current = value;
+            if (!username.equals(current.getUser().getUsername())) {
+                value = new ScoreDTO(current.getId(), current.getUser().getId(), username,
+                        current.getScore(), current.getLevel(), current.getTime(), current.getSteps());
+            }
+        }
+    }
+}
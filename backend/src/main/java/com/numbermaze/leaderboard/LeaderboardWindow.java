@@ -0,0 +1,39 @@
+package com.numbermaze.leaderboard;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * 排行榜的时间范围：ALL 为全部历史，DAY / WEEK 为截至当前的滚动窗口
+ */
+public enum LeaderboardWindow {
+    ALL(null),
+    DAY(Duration.ofDays(1)),
+    WEEK(Duration.ofDays(7));
+
+    private final Duration length;
+
+    LeaderboardWindow(Duration length) {
+        this.length = length;
+    }
+
+    // null for ALL
+    public Duration getLength() {
+        return length;
+    }
+
+    /**
+     * 按请求参数解析（不区分大小写），null 或空串为 ALL，无法识别时返回 empty
+     */
+    public static Optional<LeaderboardWindow> of(String name) {
+        if (name == null || name.isEmpty()) {
+            return Optional.of(ALL);
+        }
+        try {
+            return Optional.of(valueOf(name.toUpperCase(Locale.ROOT)));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.numbermaze.leaderboard;
+
+/**
+ * 玩家最高分在榜单中的名次；level 为 null 表示总榜
+ */
+public final class PlayerRank {
+
+    private final long userId;
+    private final Integer level;
+    private final int bestScore;
+    private final int rank;
+    private final int total;
+
+    PlayerRank(long userId, Integer level, int bestScore, int rank, int total) {
+        this.userId = userId;
+        this.level = level;
+        this.bestScore = bestScore;
+        this.rank = rank;
+        this.total = total;
+    }
+
+    public long getUserId() {
+        return userId;
+    }
+
+    public Integer getLevel() {
+        return level;
+    }
+
+    public int getBestScore() {
+        return bestScore;
+    }
+
+    /**
+     * 1 + 最高分严格高于该玩家的人数，同分并列
+     */
+    public int getRank() {
+        return rank;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     * 最高分不高于该玩家的玩家占比（含自己），0-100
+     */
+    public double getPercentile() {
+        return 100.0 * (total - rank + 1) / total;
+    }
+}
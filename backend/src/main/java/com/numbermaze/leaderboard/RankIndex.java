@@ -0,0 +1,134 @@
+package com.numbermaze.leaderboard;
+
+import com.numbermaze.model.Score;
+import com.numbermaze.model.UserStats;
+import com.numbermaze.puzzle.PuzzleLevel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 名次索引：每个榜单记录每位玩家的最高分，并用按分数分桶的树状数组统计人数，
+ * 查询名次只需一次前缀和，O(log maxScore)
+ */
+@Component
+public class RankIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(RankIndex.class);
+
+    private final int maxScore;
+    private final Board global;
+    // Each board is a maxScore-sized tree, so only the known levels get one
+    private final ConcurrentMap<PuzzleLevel, Board> levels = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    public RankIndex(@Value("${leaderboard.rank.max-score:100000}") int maxScore) {
+        this.maxScore = maxScore;
+        this.global = new Board(maxScore);
+    }
+
+    /**
+     * 用各用户各难度的最高分预热；offer 只保留更高的分数，与预热的先后顺序无关
+     */
+    public void warm(Collection<UserStats> stats) {
+        for (UserStats stat : stats) {
+            if (stat.getBestScore() != null) {
+                offer(stat.getUserId(), stat.getLevel(), stat.getBestScore());
+            }
+        }
+        ready = true;
+        logger.info("名次索引预热完成: 总榜 {} 名玩家, {} 个难度等级", global.size(), levels.size());
+    }
+
+    public void offer(Score score) {
+        if (score == null || score.getUser() == null || score.getUser().getId() == null || score.getScore() == null) {
+            return;
+        }
+        offer(score.getUser().getId(), score.getLevel(), score.getScore());
+    }
+
+    /**
+     * 查询玩家在总榜（level 为 null）或指定难度榜上的名次；预热完成前抛出 IllegalStateException
+     */
+    public Optional<PlayerRank> getRank(long userId, Integer level) {
+        if (!ready) {
+            throw new IllegalStateException("名次索引尚未预热完成");
+        }
+        Board board = level == null ? global : PuzzleLevel.of(level).map(levels::get).orElse(null);
+        return board == null ? Optional.empty() : board.rank(userId, level);
+    }
+
+    private void offer(long userId, Integer level, int score) {
+        global.offer(userId, score);
+        PuzzleLevel.of(level).ifPresent(puzzleLevel ->
+                levels.computeIfAbsent(puzzleLevel, l -> new Board(maxScore)).offer(userId, score));
+    }
+
+    /**
+     * 单个榜单；分数按 [0, maxScore] 截断后作为桶下标，超出范围的分数并列在两端
+     */
+    private static final class Board {
+        private final int maxScore;
+        // Fenwick tree, 1-based: bucket i holds score i - 1
+        private final int[] tree;
+        private final Map<Long, Integer> best = new HashMap<>();
+
+        Board(int maxScore) {
+            this.maxScore = maxScore;
+            this.tree = new int[maxScore + 2];
+        }
+
+        synchronized int size() {
+            return best.size();
+        }
+
+        synchronized void offer(long userId, int score) {
+            Integer current = best.get(userId);
+            if (current != null && current >= score) {
+                return;
+            }
+            if (current != null) {
+                add(bucket(current), -1);
+            }
+            add(bucket(score), 1);
+            best.put(userId, score);
+        }
+
+        synchronized Optional<PlayerRank> rank(long userId, Integer level) {
+            Integer score = best.get(userId);
+            if (score == null) {
+                return Optional.empty();
+            }
+            int total = best.size();
+            int higher = total - prefix(bucket(score));
+            return Optional.of(new PlayerRank(userId, level, score, higher + 1, total));
+        }
+
+        private int bucket(int score) {
+            return Math.max(0, Math.min(score, maxScore)) + 1;
+        }
+
+        private void add(int index, int delta) {
+            for (int i = index; i < tree.length; i += i & -i) {
+                tree[i] += delta;
+            }
+        }
+
+        // Number of players whose best falls in buckets [1, index]
+        private int prefix(int index) {
+            int sum = 0;
+            for (int i = index; i > 0; i -= i & -i) {
+                sum += tree[i];
+            }
+            return sum;
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package com.numbermaze.leaderboard;
+
+import com.numbermaze.dto.ScoreDTO;
+import com.numbermaze.model.Score;
+import com.numbermaze.puzzle.PuzzleLevel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 滚动时间窗口排行榜（最近一天 / 最近一周）：按分数时间戳把分数放入固定宽度的时间桶，
+ * 每个桶按难度等级维护有界的前K名，环形数组只保留最长窗口内的桶，过期的桶在槽位复用时被替换。
+ * 读取时合并窗口内各桶的前K名，合并结果缓存到窗口内有桶变化或窗口滑过一个桶为止
+ */
+@Component
+public class WindowedLeaderboard {
+
+    private static final Logger logger = LoggerFactory.getLogger(WindowedLeaderboard.class);
+
+    private final int capacity;
+    private final long bucketMillis;
+    private final AtomicReferenceArray<Bucket> ring;
+    // Versions start at the boot time in micros; the start value itself stands for an empty window
+    private final long emptyVersion = System.currentTimeMillis() * 1000;
+    private final AtomicLong versions = new AtomicLong(emptyVersion);
+    private final ConcurrentMap<ViewKey, View> views = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    public WindowedLeaderboard(@Value("${leaderboard.capacity:100}") int capacity,
+                               @Value("${leaderboard.window.bucket:1h}") Duration bucket) {
+        this.capacity = capacity;
+        this.bucketMillis = bucket.toMillis();
+        this.ring = new AtomicReferenceArray<>(buckets(LeaderboardWindow.WEEK));
+    }
+
+    /**
+     * 预热时需要读取的最早时间：早于它的分数不在任何窗口内
+     */
+    public LocalDateTime getRetainedSince() {
+        return LocalDateTime.now(ZoneOffset.UTC).minus(LeaderboardWindow.WEEK.getLength());
+    }
+
+    /**
+     * 预热（offer 最长窗口内的分数）完成后开始对外提供读取；预热期间写入的分数照常 offer，重复的分数会被忽略
+     */
+    public void markReady() {
+        ready = true;
+        int buckets = 0;
+        for (int i = 0; i < ring.length(); i++) {
+            buckets += ring.get(i) == null ? 0 : 1;
+        }
+        logger.info("时间窗口排行榜预热完成: {} 个时间桶, 每桶 {}ms", buckets, bucketMillis);
+    }
+
+    /**
+     * 按分数的时间戳放入对应的时间桶，返回是否进入了该桶的总榜或难度榜；早于最长窗口的分数直接忽略
+     */
+    public boolean offer(Score score) {
+        if (score == null || score.getId() == null || score.getTimestamp() == null) {
+            return false;
+        }
+        long current = currentBucket();
+        // Scores stamped slightly in the future (clock skew) count towards the current bucket
+        long index = Math.min(Math.floorDiv(LeaderboardIndex.epochMillis(score.getTimestamp()), bucketMillis), current);
+        Bucket bucket = bucket(index, current);
+        if (bucket == null) {
+            return false;
+        }
+        LeaderboardIndex.Entry entry = new LeaderboardIndex.Entry(score);
+        boolean changed = bucket.global.offer(entry);
+        Optional<PuzzleLevel> level = PuzzleLevel.of(score.getLevel());
+        if (level.isPresent()) {
+            changed |= bucket.board(level.get()).offer(entry);
+        }
+        return changed;
+    }
+
+    /**
+     * 用户改名后替换各时间桶中该用户记录的用户名；受影响的桶版本号递增，合并结果随之重新计算
+     */
+    public void rename(Long userId, String username) {
+        for (int i = 0; i < ring.length(); i++) {
+            Bucket bucket = ring.get(i);
+            if (bucket != null) {
+                bucket.global.rename(userId, username);
+                bucket.levels.values().forEach(board -> board.rename(userId, username));
+            }
+        }
+    }
+
+    /**
+     * 窗口内总榜（level 为 null）或指定难度榜的前 limit 名（最多 capacity 名）；预热完成前抛出 IllegalStateException
+     */
+    public List<ScoreDTO> getTopScores(LeaderboardWindow window, Integer level, int limit) {
+        List<ScoreDTO> scores = view(window, level).scores;
+        return scores.subList(0, Math.max(0, Math.min(limit, scores.size())));
+    }
+
+    /**
+     * 窗口榜单的版本号，只在前K名实际变化时改变，用作 HTTP ETag
+     */
+    public long getVersion(LeaderboardWindow window, Integer level) {
+        return view(window, level).version;
+    }
+
+    private View view(LeaderboardWindow window, Integer level) {
+        if (!ready) {
+            throw new IllegalStateException("时间窗口排行榜尚未预热完成");
+        }
+        long current = currentBucket();
+        PuzzleLevel puzzleLevel = PuzzleLevel.of(level).orElse(null);
+        // Board versions are read before their entries, so a concurrent offer can only leave the view stale, not mislabeled
+        List<LeaderboardIndex.Board> boards = new ArrayList<>();
+        long newest = emptyVersion;
+        for (long index = current - buckets(window) + 1; index <= current; index++) {
+            Bucket bucket = ring.get(slot(index));
+            LeaderboardIndex.Board board = bucket == null || bucket.index != index ? null
+                    : level == null ? bucket.global : puzzleLevel == null ? null : bucket.levels.get(puzzleLevel);
+            if (board != null) {
+                boards.add(board);
+                newest = Math.max(newest, board.version());
+            }
+        }
+        if (boards.isEmpty()) {
+            // Not cached: keeps unknown levels from filling the view map
+            return new View(current, newest, Collections.emptyList(), emptyVersion);
+        }
+        ViewKey key = new ViewKey(window, level);
+        View cached = views.get(key);
+        if (cached != null && cached.bucket == current && cached.newest == newest) {
+            return cached;
+        }
+        List<ScoreDTO> merged = merge(boards);
+        long version = cached != null && sameScores(cached.scores, merged) ? cached.version : versions.incrementAndGet();
+        View view = new View(current, newest, merged, version);
+        views.put(key, view);
+        return view;
+    }
+
+    // k-way merge of the per-bucket top-K lists, each already in leaderboard order
+    private List<ScoreDTO> merge(List<LeaderboardIndex.Board> boards) {
+        PriorityQueue<Head> heads = new PriorityQueue<>(boards.size(),
+                (a, b) -> LeaderboardIndex.ORDER.compare(a.entry, b.entry));
+        for (LeaderboardIndex.Board board : boards) {
+            Head head = new Head(board.iterator());
+            if (head.advance()) {
+                heads.add(head);
+            }
+        }
+        List<ScoreDTO> merged = new ArrayList<>(capacity);
+        while (!heads.isEmpty() && merged.size() < capacity) {
+            Head head = heads.poll();
+            merged.add(head.entry.value());
+            if (head.advance()) {
+                heads.add(head);
+            }
+        }
+        return merged;
+    }
+
+    // Entries hand out the same DTO until a rename replaces it, so identity also catches renamed rows
+    private static boolean sameScores(List<ScoreDTO> a, List<ScoreDTO> b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            if (a.get(i) != b.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Bucket for index, replacing an expired one in its slot; null when the slot already moved past index
+    private Bucket bucket(long index, long current) {
+        if (index <= current - ring.length()) {
+            return null;
+        }
+        int slot = slot(index);
+        while (true) {
+            Bucket existing = ring.get(slot);
+            if (existing != null && existing.index == index) {
+                return existing;
+            }
+            if (existing != null && existing.index > index) {
+                return null;
+            }
+            Bucket fresh = new Bucket(index, capacity, versions);
+            if (ring.compareAndSet(slot, existing, fresh)) {
+                return fresh;
+            }
+        }
+    }
+
+    private long currentBucket() {
+        return Math.floorDiv(LeaderboardIndex.epochMillis(LocalDateTime.now(ZoneOffset.UTC)), bucketMillis);
+    }
+
+    private int buckets(LeaderboardWindow window) {
+        if (window.getLength() == null) {
+            throw new IllegalArgumentException("不是时间窗口: " + window);
+        }
+        return (int) ((window.getLength().toMillis() + bucketMillis - 1) / bucketMillis);
+    }
+
+    private int slot(long index) {
+        return (int) Math.floorMod(index, (long) ring.length());
+    }
+
+    /**
+     * 一个时间桶：总榜和各难度榜的前K名
+     */
+    private static final class Bucket {
+        private final long index;
+        private final int capacity;
+        private final AtomicLong versions;
+        private final LeaderboardIndex.Board global;
+        private final ConcurrentMap<PuzzleLevel, LeaderboardIndex.Board> levels = new ConcurrentHashMap<>();
+
+        Bucket(long index, int capacity, AtomicLong versions) {
+            this.index = index;
+            this.capacity = capacity;
+            this.versions = versions;
+            this.global = new LeaderboardIndex.Board(capacity, versions);
+        }
+
+        LeaderboardIndex.Board board(PuzzleLevel level) {
+            return levels.computeIfAbsent(level, l -> new LeaderboardIndex.Board(capacity, versions));
+        }
+    }
+
+    private static final class Head {
+        private final Iterator<LeaderboardIndex.Entry> entries;
+        private LeaderboardIndex.Entry entry;
+
+        Head(Iterator<LeaderboardIndex.Entry> entries) {
+            this.entries = entries;
+        }
+
+        boolean advance() {
+            entry = entries.hasNext() ? entries.next() : null;
+            return entry != null;
+        }
+    }
+
+    /**
+     * 合并后的窗口榜单，bucket 和 newest 记录合并时的当前桶和窗口内最新的桶版本
+     */
+    private static final class View {
+        private final long bucket;
+        private final long newest;
+        private final List<ScoreDTO> scores;
+        private final long version;
+
+        View(long bucket, long newest, List<ScoreDTO> scores, long version) {
+            this.bucket = bucket;
+            this.newest = newest;
+            this.scores = scores;
+            this.version = version;
+        }
+    }
+
+    private static final class ViewKey {
+        private final LeaderboardWindow window;
+        private final Integer level;
+
+        ViewKey(LeaderboardWindow window, Integer level) {
+            this.window = window;
+            this.level = level;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof ViewKey)) {
+                return false;
+            }
+            ViewKey other = (ViewKey) o;
+            return window == other.window && Objects.equals(level, other.level);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(window, level);
+        }
+    }
+}
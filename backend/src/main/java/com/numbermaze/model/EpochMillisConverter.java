@@ -0,0 +1,25 @@
+package com.numbermaze.model;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * 时间戳以 UTC 毫秒数存为 BIGINT，与分数日志记录的时间格式一致；
+ * 实体中的 LocalDateTime 为 UTC 时间（LocalDateTime.now(ZoneOffset.UTC)），不是服务器本地时间
+ */
+@Converter
+public class EpochMillisConverter implements AttributeConverter<LocalDateTime, Long> {
+
+    @Override
+    public Long convertToDatabaseColumn(LocalDateTime timestamp) {
+        return timestamp == null ? null : timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    @Override
+    public LocalDateTime convertToEntityAttribute(Long epochMillis) {
+        return epochMillis == null ? null : LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC);
+    }
+}
@@ -2,11 +2,16 @@ package com.numbermaze.model;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 
 @Entity
 public class Score {
+    public static final int ID_ALLOCATION_SIZE = 50;
+    
+    // Pooled sequence ids let Hibernate batch inserts (IDENTITY forces one round trip per row)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "score_seq")
+    @SequenceGenerator(name = "score_seq", sequenceName = "score_seq", allocationSize = Score.ID_ALLOCATION_SIZE)
     private Long id;
     
     @ManyToOne
@@ -14,17 +19,17 @@ public class Score {
     private User user;
     
     private Integer score;
+    // Level numbers are small (see PuzzleLevel); SMALLINT keeps the level index narrow
+    @Column(columnDefinition = "SMALLINT")
     private Integer level;
     private Integer time;
     private Integer steps;
-    private String playerName;
-    private Integer scoreValue;
-    private LocalDateTime timestamp = LocalDateTime.now();
+    // UTC wall-clock time, so the stored epoch millis are the real instant on any host zone
+    @Convert(converter = EpochMillisConverter.class)
+    private LocalDateTime timestamp = LocalDateTime.now(ZoneOffset.UTC);
     
     // Default constructor required by JPA
     public Score() {
-        // Initialize scoreValue to same as score for compatibility with existing queries
-        this.scoreValue = 0;
     }
     
     // Getters and setters
@@ -42,10 +47,6 @@ public class Score {
 
     public void setUser(User user) {
         this.user = user;
-        // Set playerName from user for backward compatibility
-        if (user != null) {
-            this.playerName = user.getUsername();
-        }
     }
 
     public Integer getScore() {
@@ -54,8 +55,6 @@ public class Score {
 
     public void setScore(Integer score) {
         this.score = score;
-        // Keep scoreValue in sync with score for backward compatibility
-        this.scoreValue = score;
     }
 
     public Integer getLevel() {
@@ -82,22 +81,6 @@ public class Score {
         this.steps = steps;
     }
     
-    public String getPlayerName() {
-        return playerName;
-    }
-    
-    public void setPlayerName(String playerName) {
-        this.playerName = playerName;
-    }
-    
-    public Integer getScoreValue() {
-        return scoreValue;
-    }
-    
-    public void setScoreValue(Integer scoreValue) {
-        this.scoreValue = scoreValue;
-    }
-    
     public LocalDateTime getTimestamp() {
         return timestamp;
     }
@@ -0,0 +1,41 @@
+package com.numbermaze.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * 批量上传时客户端为每条分数生成的提交键及其对应的分数ID；重试上传时已存在的键不再写入
+ */
+@Entity
+@Table(name = "score_submission")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScoreSubmission implements Persistable<String> {
+    public static final int MAX_KEY_LENGTH = 64;
+    
+    @Id
+    @Column(length = MAX_KEY_LENGTH)
+    private String submissionKey;
+    // No foreign key: in the score-log profile the score lives in the log, not in the score table.
+    // Null only inside the saving transaction, between reserving the key and storing the score
+    private Long scoreId;
+    
+    @Override
+    public String getId() {
+        return submissionKey;
+    }
+    
+    // Keys are only ever inserted: skip the select that merge() would issue for an assigned id
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
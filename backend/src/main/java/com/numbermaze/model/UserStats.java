@@ -0,0 +1,45 @@
+package com.numbermaze.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import java.time.LocalDateTime;
+
+/**
+ * 每个用户在每个难度等级上的汇总统计，随分数写入增量维护
+ */
+@Entity
+@Table(name = "user_stats",
+        uniqueConstraints = @UniqueConstraint(name = "uk_user_stats_user_level", columnNames = {"user_id", "level"}))
+@Data
+@NoArgsConstructor
+public class UserStats {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    @Column(nullable = false)
+    private Integer level;
+    
+    private long playCount;
+    private Integer bestScore;
+    // Lower is better for time and steps
+    private Integer bestTime;
+    private Integer fewestSteps;
+    private double meanScore;
+    private LocalDateTime lastPlayed;
+    
+    public UserStats(Long userId, Integer level) {
+        this.userId = userId;
+        this.level = level;
+    }
+}
@@ -0,0 +1,142 @@
+package com.numbermaze.puzzle;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * 哈密顿路径生成器：位图记录访问状态的迭代回溯，候选格子按 Warnsdorff 规则（剩余出口最少优先）排序
+ */
+public final class HamiltonianPathGenerator {
+
+    // Expansions allowed per start cell before restarting from a fresh random start
+    private static final int EXPANSION_BUDGET_PER_CELL = 64;
+    private static final int MAX_RESTARTS = 1000;
+
+    private HamiltonianPathGenerator() {
+    }
+
+    /**
+     * 生成一条经过所有格子的路径，返回按访问顺序排列的格子下标
+     */
+    public static int[] generate(HexGrid grid, SplittableRandom random) {
+        int n = grid.size();
+        int[] path = new int[n];
+        if (n == 1) {
+            return path;
+        }
+        Search search = new Search(grid, random, path);
+        for (int attempt = 0; attempt < MAX_RESTARTS; attempt++) {
+            if (search.run(random.nextInt(n), n * EXPANSION_BUDGET_PER_CELL)) {
+                return path;
+            }
+        }
+        throw new IllegalStateException("No Hamiltonian path found for side length " + grid.getSideLength());
+    }
+
+    private static final class Search {
+        private final HexGrid grid;
+        private final SplittableRandom random;
+        private final int n;
+        private final int[] path;
+        private final long[] visited;
+        // Ordered candidates for each depth, six slots per depth
+        private final int[] candidates;
+        private final int[] candidateCount;
+        private final int[] candidateNext;
+        private final int[] onward = new int[HexGrid.DIRECTIONS];
+
+        Search(HexGrid grid, SplittableRandom random, int[] path) {
+            this.grid = grid;
+            this.random = random;
+            this.n = grid.size();
+            this.path = path;
+            this.visited = new long[(n + 63) >>> 6];
+            this.candidates = new int[n * HexGrid.DIRECTIONS];
+            this.candidateCount = new int[n];
+            this.candidateNext = new int[n];
+        }
+
+        boolean run(int start, int budget) {
+            Arrays.fill(visited, 0L);
+            int depth = 0;
+            path[0] = start;
+            mark(start);
+            order(0);
+            while (true) {
+                if (depth == n - 1) {
+                    return true;
+                }
+                if (candidateNext[depth] < candidateCount[depth]) {
+                    if (--budget < 0) {
+                        return false;
+                    }
+                    int next = candidates[depth * HexGrid.DIRECTIONS + candidateNext[depth]++];
+                    depth++;
+                    path[depth] = next;
+                    mark(next);
+                    order(depth);
+                } else {
+                    unmark(path[depth]);
+                    if (--depth < 0) {
+                        return false;
+                    }
+                }
+            }
+        }
+
+        /**
+         * 收集当前格子的未访问邻居，按剩余出口数升序排列，出口数相同时随机打乱
+         */
+        private void order(int depth) {
+            int cell = path[depth];
+            int base = depth * HexGrid.DIRECTIONS;
+            int count = 0;
+            boolean last = depth + 1 == n - 1;
+            for (int d = 0; d < HexGrid.DIRECTIONS; d++) {
+                int next = grid.neighbor(cell, d);
+                if (next < 0 || isVisited(next)) {
+                    continue;
+                }
+                int exits = unvisitedNeighbors(next);
+                // A dead end is only acceptable as the final cell
+                if (exits == 0 && !last) {
+                    continue;
+                }
+                // Insert with a random position among equal exit counts
+                int i = count++;
+                while (i > 0 && (onward[i - 1] > exits || (onward[i - 1] == exits && random.nextBoolean()))) {
+                    candidates[base + i] = candidates[base + i - 1];
+                    onward[i] = onward[i - 1];
+                    i--;
+                }
+                candidates[base + i] = next;
+                onward[i] = exits;
+            }
+            candidateCount[depth] = count;
+            candidateNext[depth] = 0;
+        }
+
+        private int unvisitedNeighbors(int cell) {
+            int exits = 0;
+            for (int d = 0; d < HexGrid.DIRECTIONS; d++) {
+                int next = grid.neighbor(cell, d);
+                if (next >= 0 && !isVisited(next)) {
+                    exits++;
+                }
+            }
+            return exits;
+        }
+
+        private boolean isVisited(int cell) {
+            return (visited[cell >>> 6] & (1L << cell)) != 0;
+        }
+
+        private void mark(int cell) {
+            visited[cell >>> 6] |= 1L << cell;
+        }
+
+        private void unmark(int cell) {
+            visited[cell >>> 6] &= ~(1L << cell);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.numbermaze.puzzle;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 六边形棋盘：使用轴向坐标(q, r)编号格子，邻接关系预先计算为基本类型数组
+ * 格子顺序与前端 drawPattern 一致：q 外层循环，r 内层循环
+ */
+public final class HexGrid {
+
+    public static final int DIRECTIONS = 6;
+
+    private static final int[] DQ = {1, 1, 0, -1, -1, 0};
+    private static final int[] DR = {0, -1, -1, 0, 1, 1};
+    private static final ConcurrentMap<Integer, HexGrid> CACHE = new ConcurrentHashMap<>();
+
+    private final int sideLength;
+    private final int size;
+    private final int[] q;
+    private final int[] r;
+    // neighbors[cell * 6 + d] is the neighbouring cell index, or -1 off the board
+    private final int[] neighbors;
+    private final int[] degree;
+
+    private HexGrid(int sideLength) {
+        this.sideLength = sideLength;
+        this.size = 3 * sideLength * (sideLength - 1) + 1;
+        this.q = new int[size];
+        this.r = new int[size];
+        int span = 2 * sideLength - 1;
+        int[] indexOf = new int[span * span];
+        Arrays.fill(indexOf, -1);
+
+        int cell = 0;
+        for (int cq = -sideLength + 1; cq < sideLength; cq++) {
+            for (int cr = -sideLength + 1; cr < sideLength; cr++) {
+                if (Math.abs(-cq - cr) < sideLength) {
+                    q[cell] = cq;
+                    r[cell] = cr;
+                    indexOf[(cq + sideLength - 1) * span + (cr + sideLength - 1)] = cell;
+                    cell++;
+                }
+            }
+        }
+
+        this.neighbors = new int[size * DIRECTIONS];
+        this.degree = new int[size];
+        for (int c = 0; c < size; c++) {
+            for (int d = 0; d < DIRECTIONS; d++) {
+                int nq = q[c] + DQ[d] + sideLength - 1;
+                int nr = r[c] + DR[d] + sideLength - 1;
+                int n = (nq >= 0 && nq < span && nr >= 0 && nr < span) ? indexOf[nq * span + nr] : -1;
+                neighbors[c * DIRECTIONS + d] = n;
+                if (n >= 0) {
+                    degree[c]++;
+                }
+            }
+        }
+    }
+
+    /**
+     * 获取指定边长的棋盘，同一边长的棋盘只构建一次
+     */
+    public static HexGrid of(int sideLength) {
+        if (sideLength < 1) {
+            throw new IllegalArgumentException("sideLength must be positive: " + sideLength);
+        }
+        return CACHE.computeIfAbsent(sideLength, HexGrid::new);
+    }
+
+    public int getSideLength() {
+        return sideLength;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int q(int cell) {
+        return q[cell];
+    }
+
+    public int r(int cell) {
+        return r[cell];
+    }
+
+    public int neighbor(int cell, int direction) {
+        return neighbors[cell * DIRECTIONS + direction];
+    }
+
+    public int degree(int cell) {
+        return degree[cell];
+    }
+
+    public boolean areAdjacent(int a, int b) {
+        int base = a * DIRECTIONS;
+        for (int d = 0; d < DIRECTIONS; d++) {
+            if (neighbors[base + d] == b) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
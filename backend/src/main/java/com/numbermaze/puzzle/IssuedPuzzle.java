@@ -0,0 +1,86 @@
+package com.numbermaze.puzzle;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 发放给玩家的一局谜题：ID是随机生成的不透明令牌，不能据此推出谜题或答案；
+ * 记录发放时间和绑定的用户（可选），答案校验通过的分数提交后即作废，只能计分一次
+ */
+public final class IssuedPuzzle {
+
+    // Claim of a keyless submission; keyed ones store their submission key
+    private static final String UNKEYED = "";
+
+    private final String id;
+    private final Puzzle puzzle;
+    private final Long userId;
+    private final long issuedAt;
+    private final AtomicReference<String> claim = new AtomicReference<>();
+
+    IssuedPuzzle(String id, Puzzle puzzle, Long userId, long issuedAt) {
+        this.id = id;
+        this.puzzle = puzzle;
+        this.userId = userId;
+        this.issuedAt = issuedAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Puzzle getPuzzle() {
+        return puzzle;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public long getIssuedAt() {
+        return issuedAt;
+    }
+
+    /**
+     * 发放时未绑定用户的谜题任何用户都可以提交
+     */
+    public boolean isIssuedTo(Long userId) {
+        return this.userId == null || this.userId.equals(userId);
+    }
+
+    public boolean isSpent() {
+        return claim.get() != null;
+    }
+
+    /**
+     * 作废（占用）该谜题，返回是否由本次调用占用：只有第一次成功，分数未能保存时应调用 release 归还；
+     * 带 submissionKey 的提交重试时返回 false 但 isClaimedBy 为 true，由 submissionKey 去重报告为重复
+     */
+    public boolean claim(String submissionKey) {
+        return claim.compareAndSet(null, keyOf(submissionKey));
+    }
+
+    /**
+     * 该谜题是否已被带同一 submissionKey 的提交占用（重试）
+     */
+    public boolean isClaimedBy(String submissionKey) {
+        return submissionKey != null && submissionKey.equals(claim.get());
+    }
+
+    /**
+     * 归还 claim 占用的谜题，使客户端可以重试；只在占用者仍是同一提交时生效
+     */
+    public void release(String submissionKey) {
+        claim.compareAndSet(keyOf(submissionKey), null);
+    }
+
+    private static String keyOf(String submissionKey) {
+        return submissionKey == null ? UNKEYED : submissionKey;
+    }
+
+    /**
+     * 从发放到现在经过的秒数，作为用时的下限
+     */
+    public int elapsedSeconds(long now) {
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(0, now - issuedAt) / 1000);
+    }
+}
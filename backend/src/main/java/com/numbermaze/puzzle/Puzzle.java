@@ -0,0 +1,73 @@
+package com.numbermaze.puzzle;
+
+/**
+ * 已生成的谜题：solution 为每个格子的正确数字，givens 为展示给玩家的数字（0 表示隐藏）
+ * 种子可以重新生成同一谜题，只留在服务端；发给玩家的ID见 IssuedPuzzle
+ */
+public final class Puzzle {
+
+    private final PuzzleLevel level;
+    private final long seed;
+    private final HexGrid grid;
+    private final int[] solution;
+    private final int[] givens;
+    // Each diamond joins two hidden cells that hold consecutive numbers
+    private final int[][] diamonds;
+
+    Puzzle(PuzzleLevel level, long seed, HexGrid grid, int[] solution, int[] givens, int[][] diamonds) {
+        this.level = level;
+        this.seed = seed;
+        this.grid = grid;
+        this.solution = solution;
+        this.givens = givens;
+        this.diamonds = diamonds;
+    }
+
+    public PuzzleLevel getLevel() {
+        return level;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public HexGrid getGrid() {
+        return grid;
+    }
+
+    public int[] getSolution() {
+        return solution.clone();
+    }
+
+    public int[] getGivens() {
+        return givens.clone();
+    }
+
+    // Every hidden cell takes at least one placement, so this is the fewest possible steps
+    public int hiddenCount() {
+        int hidden = 0;
+        for (int given : givens) {
+            if (given == 0) {
+                hidden++;
+            }
+        }
+        return hidden;
+    }
+
+    // Package-private views without defensive copies, for the allocation-free validator
+    int[] givens() {
+        return givens;
+    }
+
+    int[][] diamonds() {
+        return diamonds;
+    }
+
+    public int[][] getDiamonds() {
+        int[][] copy = new int[diamonds.length][];
+        for (int i = 0; i < diamonds.length; i++) {
+            copy[i] = diamonds[i].clone();
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,67 @@
+package com.numbermaze.puzzle;
+
+import java.util.SplittableRandom;
+
+/**
+ * 谜题生成：生成哈密顿路径后按难度随机隐藏数字并放置菱形提示，相同种子总是生成相同谜题
+ */
+public final class PuzzleGenerator {
+
+    private PuzzleGenerator() {
+    }
+
+    public static Puzzle generate(PuzzleLevel level, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        HexGrid grid = HexGrid.of(level.getSideLength());
+        int n = grid.size();
+        int[] path = HamiltonianPathGenerator.generate(grid, random);
+
+        int[] solution = new int[n];
+        for (int i = 0; i < n; i++) {
+            solution[path[i]] = i + 1;
+        }
+
+        // Shuffle the interior of the path (start and end always stay visible) and hide a prefix
+        int[] interior = new int[Math.max(0, n - 2)];
+        System.arraycopy(path, 1, interior, 0, interior.length);
+        for (int i = interior.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = interior[i];
+            interior[i] = interior[j];
+            interior[j] = tmp;
+        }
+        int hidden = Math.min(interior.length, between(random, level.getMinHidden(), level.getMaxHidden()));
+        int[] givens = solution.clone();
+        for (int i = 0; i < hidden; i++) {
+            givens[interior[i]] = 0;
+        }
+
+        return new Puzzle(level, seed, grid, solution, givens, placeDiamonds(level, random, path, givens));
+    }
+
+    private static int[][] placeDiamonds(PuzzleLevel level, SplittableRandom random, int[] path, int[] givens) {
+        int[] pairs = new int[path.length];
+        int pairCount = 0;
+        for (int i = 0; i + 1 < path.length; i++) {
+            if (givens[path[i]] == 0 && givens[path[i + 1]] == 0) {
+                pairs[pairCount++] = i;
+            }
+        }
+        int count = pairCount == 0 ? 0
+                : Math.min(pairCount, between(random, level.getMinDiamonds(), level.getMaxDiamonds()));
+        int[][] diamonds = new int[count][];
+        for (int k = 0; k < count; k++) {
+            // Partial Fisher-Yates: pick without replacement
+            int j = k + random.nextInt(pairCount - k);
+            int step = pairs[j];
+            pairs[j] = pairs[k];
+            pairs[k] = step;
+            diamonds[k] = new int[]{path[step], path[step + 1]};
+        }
+        return diamonds;
+    }
+
+    private static int between(SplittableRandom random, int min, int max) {
+        return min + random.nextInt(max - min + 1);
+    }
+}
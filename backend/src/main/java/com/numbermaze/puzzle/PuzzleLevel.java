@@ -0,0 +1,72 @@
+package com.numbermaze.puzzle;
+
+import java.util.Optional;
+
+/**
+ * 难度等级配置：前三级与前端 difficultySettings 保持一致，后三级为服务端生成的大棋盘
+ */
+public enum PuzzleLevel {
+    EASY(1, 2, 3, 4, 1, 1),
+    MEDIUM(2, 3, 8, 12, 2, 3),
+    HARD(3, 4, 25, 33, 4, 5),
+    EXPERT(4, 6, 60, 75, 6, 8),
+    MASTER(5, 8, 115, 140, 8, 11),
+    GRANDMASTER(6, 10, 185, 225, 10, 14);
+
+    private final int level;
+    private final int sideLength;
+    private final int minHidden;
+    private final int maxHidden;
+    private final int minDiamonds;
+    private final int maxDiamonds;
+
+    PuzzleLevel(int level, int sideLength, int minHidden, int maxHidden, int minDiamonds, int maxDiamonds) {
+        this.level = level;
+        this.sideLength = sideLength;
+        this.minHidden = minHidden;
+        this.maxHidden = maxHidden;
+        this.minDiamonds = minDiamonds;
+        this.maxDiamonds = maxDiamonds;
+    }
+
+    // Empty for null and for levels the server does not know
+    public static Optional<PuzzleLevel> of(Integer level) {
+        for (PuzzleLevel value : values()) {
+            if (level != null && value.level == level) {
+                return Optional.of(value);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * 计分规则与前端 calculateScore 一致：基础分 1000×等级，每秒扣2分，每步扣10分，最低0分
+     */
+    public int score(int time, int steps) {
+        return (int) Math.max(0, 1000L * level - 2L * time - 10L * steps);
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public int getSideLength() {
+        return sideLength;
+    }
+
+    public int getMinHidden() {
+        return minHidden;
+    }
+
+    public int getMaxHidden() {
+        return maxHidden;
+    }
+
+    public int getMinDiamonds() {
+        return minDiamonds;
+    }
+
+    public int getMaxDiamonds() {
+        return maxDiamonds;
+    }
+}
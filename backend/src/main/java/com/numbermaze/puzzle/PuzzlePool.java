@@ -0,0 +1,148 @@
+package com.numbermaze.puzzle;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.security.SecureRandom;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 谜题池：每个难度等级预先生成一批谜题，后台线程持续补充，请求时直接取用
+ */
+@Component
+public class PuzzlePool {
+
+    private static final Logger logger = LoggerFactory.getLogger(PuzzlePool.class);
+
+    private final int poolSize;
+    private final long refillIntervalMs;
+    private final Map<PuzzleLevel, BlockingQueue<Puzzle>> pools = new EnumMap<>(PuzzleLevel.class);
+    private final ConcurrentMap<String, Puzzle> dailyPuzzles = new ConcurrentHashMap<>();
+    // Puzzles handed out to players, kept (FIFO-bounded) so submissions can be verified by id
+    private final int issuedCapacity;
+    private final ConcurrentMap<String, IssuedPuzzle> issued = new ConcurrentHashMap<>();
+    private final SecureRandom ids = new SecureRandom();
+    private final Queue<String> issuedOrder = new ConcurrentLinkedQueue<>();
+    private final ScheduledExecutorService refiller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "puzzle-pool-refill");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public PuzzlePool(@Value("${puzzle.pool.size:20}") int poolSize,
+                      @Value("${puzzle.pool.refill-interval-ms:200}") long refillIntervalMs,
+                      @Value("${puzzle.issued-capacity:100000}") int issuedCapacity) {
+        this.poolSize = poolSize;
+        this.refillIntervalMs = refillIntervalMs;
+        this.issuedCapacity = issuedCapacity;
+        for (PuzzleLevel level : PuzzleLevel.values()) {
+            pools.put(level, new ArrayBlockingQueue<>(poolSize));
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        refiller.scheduleWithFixedDelay(this::refill, 0, refillIntervalMs, TimeUnit.MILLISECONDS);
+        logger.info("谜题池已启动: 每个难度等级 {} 个, 补充间隔 {}ms", poolSize, refillIntervalMs);
+    }
+
+    @PreDestroy
+    public void stop() {
+        refiller.shutdownNow();
+    }
+
+    /**
+     * 从池中取出一个谜题发放给玩家；池为空时当场生成，不阻塞请求
+     *
+     * @param userId 绑定的用户，为 null 时任何用户都可以提交
+     */
+    public IssuedPuzzle take(PuzzleLevel level, Long userId) {
+        Puzzle puzzle = pools.get(level).poll();
+        if (puzzle == null) {
+            logger.debug("谜题池为空，直接生成: 难度={}", level);
+            puzzle = PuzzleGenerator.generate(level, ThreadLocalRandom.current().nextLong());
+        }
+        return issue(puzzle, userId);
+    }
+
+    /**
+     * 每日谜题：种子由日期和难度等级决定，同一天所有玩家得到相同的谜题，但每次发放的ID不同
+     */
+    public IssuedPuzzle daily(PuzzleLevel level, LocalDate date, Long userId) {
+        String key = date + "/" + level;
+        Puzzle puzzle = dailyPuzzles.get(key);
+        if (puzzle == null) {
+            // Only today's puzzles are worth keeping
+            dailyPuzzles.keySet().removeIf(k -> !k.startsWith(date + "/"));
+            puzzle = dailyPuzzles.computeIfAbsent(key, k -> PuzzleGenerator.generate(level, dailySeed(level, date)));
+        }
+        return issue(puzzle, userId);
+    }
+
+    /**
+     * 按ID查找已发放的谜题（含已提交过的），只有服务端发出的谜题才能被校验
+     */
+    public Optional<IssuedPuzzle> find(String id) {
+        return Optional.ofNullable(issued.get(id));
+    }
+
+    public int size(PuzzleLevel level) {
+        return pools.get(level).size();
+    }
+
+    private IssuedPuzzle issue(Puzzle puzzle, Long userId) {
+        byte[] token = new byte[16];
+        ids.nextBytes(token);
+        StringBuilder id = new StringBuilder(32);
+        for (byte b : token) {
+            id.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        IssuedPuzzle issuedPuzzle = new IssuedPuzzle(id.toString(), puzzle, userId, System.currentTimeMillis());
+        issued.put(issuedPuzzle.getId(), issuedPuzzle);
+        issuedOrder.offer(issuedPuzzle.getId());
+        while (issued.size() > issuedCapacity) {
+            String oldest = issuedOrder.poll();
+            if (oldest == null) {
+                break;
+            }
+            issued.remove(oldest);
+        }
+        return issuedPuzzle;
+    }
+
+    private static long dailySeed(PuzzleLevel level, LocalDate date) {
+        return new SplittableRandom(date.toEpochDay() * 31 + level.getLevel()).nextLong();
+    }
+
+    private void refill() {
+        try {
+            for (Map.Entry<PuzzleLevel, BlockingQueue<Puzzle>> entry : pools.entrySet()) {
+                BlockingQueue<Puzzle> pool = entry.getValue();
+                while (pool.remainingCapacity() > 0) {
+                    pool.offer(PuzzleGenerator.generate(entry.getKey(), ThreadLocalRandom.current().nextLong()));
+                }
+            }
+        } catch (RuntimeException e) {
+            // Never let an exception cancel the scheduled refill
+            logger.error("补充谜题池失败: {}", e.getMessage(), e);
+        }
+    }
+}
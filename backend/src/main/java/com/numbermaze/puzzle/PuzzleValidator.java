@@ -0,0 +1,77 @@
+package com.numbermaze.puzzle;
+
+import java.util.Arrays;
+
+/**
+ * 谜题答案校验：检查填写结果是 1..n 的排列、与已给数字一致、相邻数字在棋盘上相邻且满足菱形约束
+ * 使用线程内复用的基本类型数组，校验过程不分配内存
+ */
+public final class PuzzleValidator {
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private PuzzleValidator() {
+    }
+
+    /**
+     * @param values 每个格子填写的数字，顺序与 HexGrid 的格子编号一致
+     */
+    public static boolean isSolved(Puzzle puzzle, int[] values) {
+        HexGrid grid = puzzle.getGrid();
+        int n = grid.size();
+        if (values == null || values.length != n) {
+            return false;
+        }
+
+        Scratch scratch = SCRATCH.get().prepare(n + 1);
+        int[] position = scratch.position;
+        int[] seen = scratch.seen;
+        int epoch = scratch.epoch;
+        int[] givens = puzzle.givens();
+
+        for (int cell = 0; cell < n; cell++) {
+            int value = values[cell];
+            if (value < 1 || value > n || seen[value] == epoch) {
+                return false;
+            }
+            if (givens[cell] != 0 && givens[cell] != value) {
+                return false;
+            }
+            seen[value] = epoch;
+            position[value] = cell;
+        }
+
+        for (int value = 1; value < n; value++) {
+            if (!grid.areAdjacent(position[value], position[value + 1])) {
+                return false;
+            }
+        }
+
+        for (int[] diamond : puzzle.diamonds()) {
+            if (Math.abs(values[diamond[0]] - values[diamond[1]]) != 1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Stamped scratch arrays: bumping the epoch invalidates "seen" without clearing it
+    private static final class Scratch {
+        private int[] position = new int[0];
+        private int[] seen = new int[0];
+        private int epoch;
+
+        Scratch prepare(int length) {
+            if (position.length < length) {
+                position = new int[length];
+                seen = new int[length];
+                epoch = 0;
+            }
+            if (++epoch == 0) {
+                Arrays.fill(seen, 0);
+                epoch = 1;
+            }
+            return this;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.numbermaze.repository;
+
+import com.numbermaze.dto.ScoreDTO;
+import com.numbermaze.dto.ScoreExportDTO;
+import com.numbermaze.model.Score;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+@Component
+@Profile("!score-log")
+public class JpaScoreStore implements ScoreStore {
+    
+    private final ScoreRepository scoreRepository;
+    
+    @Autowired
+    public JpaScoreStore(ScoreRepository scoreRepository) {
+        this.scoreRepository = scoreRepository;
+    }
+    
+    @Override
+    @Transactional
+    public Score save(Score score) {
+        return scoreRepository.save(score);
+    }
+    
+    @Override
+    @Transactional
+    public List<Score> saveAll(List<Score> scores) {
+        return scoreRepository.saveAll(scores);
+    }
+    
+    @Override
+    public Optional<Score> findById(Long id) {
+        return scoreRepository.findById(id);
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public List<ScoreDTO> findUserScoresPage(Long userId, ScoreCursor after, int size) {
+        PageRequest page = PageRequest.of(0, size);
+        return after == null
+                ? scoreRepository.findUserScoresFirstPage(userId, page)
+                : scoreRepository.findUserScoresAfter(userId, after.getScore(), after.getId(), page);
+    }
+    
+    @Override
+    public List<Score> findTopScores(int limit) {
+        return scoreRepository.findTopScores(PageRequest.of(0, limit));
+    }
+    
+    @Override
+    public List<Score> findTopScoresByLevel(Integer level, int limit) {
+        return scoreRepository.findTopScoresByLevel(level, PageRequest.of(0, limit));
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public List<ScoreDTO> findTopScoreViews(int limit) {
+        return scoreRepository.findTopScoreViews(PageRequest.of(0, limit));
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public List<ScoreDTO> findTopScoreViewsByLevel(Integer level, int limit) {
+        return scoreRepository.findTopScoreViewsByLevel(level, PageRequest.of(0, limit));
+    }
+    
+    @Override
+    public List<Integer> findDistinctLevels() {
+        return scoreRepository.findDistinctLevels();
+    }
+    
+    // A JPA stream must be consumed inside the transaction; callers keep each call short by bounding limit
+    @Override
+    @Transactional(readOnly = true)
+    public long exportScores(ScoreExportFilter filter, long afterId, int limit, Consumer<ScoreExportDTO> sink) {
+        long lastId = afterId;
+        try (Stream<ScoreExportDTO> rows = scoreRepository.streamForExport(
+                afterId, filter.getLevel(), filter.getFrom(), filter.getTo(), PageRequest.of(0, limit))) {
+            Iterator<ScoreExportDTO> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                ScoreExportDTO row = iterator.next();
+                sink.accept(row);
+                lastId = row.getId();
+            }
+        }
+        return lastId;
+    }
+}
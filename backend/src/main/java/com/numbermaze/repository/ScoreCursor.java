@@ -0,0 +1,52 @@
+package com.numbermaze.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * 分数历史的键集分页游标：记录上一页最后一条的 (score, id)，下一页从其后继续
+ * 对外以不透明的 Base64 字符串传递
+ */
+public final class ScoreCursor {
+
+    private final int score;
+    private final long id;
+
+    public ScoreCursor(int score, long id) {
+        this.score = score;
+        this.id = id;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String encode() {
+        String raw = score + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * 解析游标，格式不正确时返回空
+     */
+    public static Optional<ScoreCursor> decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII);
+            int separator = raw.indexOf(':');
+            if (separator < 0) {
+                return Optional.empty();
+            }
+            return Optional.of(new ScoreCursor(
+                    Integer.parseInt(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1))));
+        } catch (IllegalArgumentException e) {
+            // Covers both bad Base64 and NumberFormatException
+            return Optional.empty();
+        }
+    }
+}
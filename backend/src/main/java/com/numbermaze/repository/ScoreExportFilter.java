@@ -0,0 +1,49 @@
+package com.numbermaze.repository;
+
+import com.numbermaze.model.Score;
+
+import java.time.LocalDateTime;
+
+/**
+ * 分数导出的过滤条件，各项为 null 表示不限制；时间范围为 [from, to)
+ */
+public final class ScoreExportFilter {
+
+    private final Integer level;
+    private final LocalDateTime from;
+    private final LocalDateTime to;
+
+    public ScoreExportFilter(Integer level, LocalDateTime from, LocalDateTime to) {
+        this.level = level;
+        this.from = from;
+        this.to = to;
+    }
+
+    public Integer getLevel() {
+        return level;
+    }
+
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    public boolean matches(Score score) {
+        if (level != null && !level.equals(score.getLevel())) {
+            return false;
+        }
+        LocalDateTime timestamp = score.getTimestamp();
+        if (from != null && (timestamp == null || timestamp.isBefore(from))) {
+            return false;
+        }
+        return to == null || (timestamp != null && timestamp.isBefore(to));
+    }
+
+    @Override
+    public String toString() {
+        return "level=" + level + ", from=" + from + ", to=" + to;
+    }
+}
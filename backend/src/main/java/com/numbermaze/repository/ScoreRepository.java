@@ -1,31 +1,67 @@
 package com.numbermaze.repository;
 
+import com.numbermaze.dto.ScoreDTO;
+import com.numbermaze.dto.ScoreExportDTO;
 import com.numbermaze.model.Score;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface ScoreRepository extends JpaRepository<Score, Long> {
-    // Find top 10 scores ordered by score value in descending order
-    List<Score> findTop10ByOrderByScoreValueDesc();
-    
-    // Find scores by player name
-    List<Score> findByPlayerNameOrderByScoreValueDesc(String playerName);
-    
     // Find scores by user ID using the User entity relationship
     @Query("SELECT s FROM Score s WHERE s.user.id = :userId ORDER BY s.score DESC")
     List<Score> findByUserIdOrderByScoreDesc(@Param("userId") Long userId);
     
-    // Find top scores ordered by score
-    @Query("SELECT s FROM Score s ORDER BY s.score DESC")
+    // Find top scores ordered by score, with their users fetched in the same query (warms the in-memory indexes)
+    @Query("SELECT s FROM Score s LEFT JOIN FETCH s.user ORDER BY s.score DESC")
     List<Score> findTopScores(Pageable pageable);
     
-    // Find top scores by level ordered by score
-    @Query("SELECT s FROM Score s WHERE s.level = :level ORDER BY s.score DESC")
+    // Find top scores by level ordered by score; the leading level column lets H2 read idx_score_level_score in order
+    @Query("SELECT s FROM Score s LEFT JOIN FETCH s.user WHERE s.level = :level ORDER BY s.level, s.score DESC")
     List<Score> findTopScoresByLevel(@Param("level") Integer level, Pageable pageable);
+    
+    // Read paths below select straight into ScoreDTO: one query, no managed entities, nothing to dirty-check
+    @Query("SELECT new com.numbermaze.dto.ScoreDTO(s.id, u.id, u.username, s.score, s.level, s.time, s.steps) "
+            + "FROM Score s LEFT JOIN s.user u ORDER BY s.score DESC")
+    List<ScoreDTO> findTopScoreViews(Pageable pageable);
+    
+    @Query("SELECT new com.numbermaze.dto.ScoreDTO(s.id, u.id, u.username, s.score, s.level, s.time, s.steps) "
+            + "FROM Score s LEFT JOIN s.user u WHERE s.level = :level ORDER BY s.level, s.score DESC")
+    List<ScoreDTO> findTopScoreViewsByLevel(@Param("level") Integer level, Pageable pageable);
+    
+    // Keyset pagination of a user's history: first page, then seek past (score, id)
+    @Query("SELECT new com.numbermaze.dto.ScoreDTO(s.id, u.id, u.username, s.score, s.level, s.time, s.steps) "
+            + "FROM Score s JOIN s.user u WHERE u.id = :userId AND s.score IS NOT NULL ORDER BY s.score DESC, s.id DESC")
+    List<ScoreDTO> findUserScoresFirstPage(@Param("userId") Long userId, Pageable pageable);
+    
+    @Query("SELECT new com.numbermaze.dto.ScoreDTO(s.id, u.id, u.username, s.score, s.level, s.time, s.steps) "
+            + "FROM Score s JOIN s.user u WHERE u.id = :userId "
+            + "AND (s.score < :score OR (s.score = :score AND s.id < :id)) ORDER BY s.score DESC, s.id DESC")
+    List<ScoreDTO> findUserScoresAfter(@Param("userId") Long userId, @Param("score") Integer score,
+                                       @Param("id") Long id, Pageable pageable);
+    
+    // Find all levels that have at least one score
+    @Query("SELECT DISTINCT s.level FROM Score s WHERE s.level IS NOT NULL")
+    List<Integer> findDistinctLevels();
+    
+    // Export rows in id order as flat projections (no managed entities); the fetch size lets the
+    // driver hand rows over in batches instead of buffering the whole result
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.numbermaze.dto.ScoreExportDTO(s.id, u.id, u.username, s.score, s.level, s.time, s.steps, s.timestamp) "
+            + "FROM Score s LEFT JOIN s.user u WHERE s.id > :afterId "
+            + "AND (:level IS NULL OR s.level = :level) "
+            + "AND (:from IS NULL OR s.timestamp >= :from) AND (:to IS NULL OR s.timestamp < :to) "
+            + "ORDER BY s.id")
+    Stream<ScoreExportDTO> streamForExport(@Param("afterId") Long afterId, @Param("level") Integer level,
+                                           @Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                           Pageable pageable);
 }
@@ -0,0 +1,29 @@
+package com.numbermaze.repository;
+
+import com.numbermaze.dto.ScoreDTO;
+import com.numbermaze.dto.ScoreExportDTO;
+import com.numbermaze.model.Score;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * 分数存储抽象：默认由 JPA 实现，启用 score-log profile 时改为追加写日志实现
+ */
+public interface ScoreStore {
+    Score save(Score score);
+    List<Score> saveAll(List<Score> scores);
+    Optional<Score> findById(Long id);
+    // Seek pagination ordered by (score desc, id desc); after == null means the first page
+    List<ScoreDTO> findUserScoresPage(Long userId, ScoreCursor after, int size);
+    // Entities with their users, for warming the in-memory indexes
+    List<Score> findTopScores(int limit);
+    List<Score> findTopScoresByLevel(Integer level, int limit);
+    // Read-only views for API responses
+    List<ScoreDTO> findTopScoreViews(int limit);
+    List<ScoreDTO> findTopScoreViewsByLevel(Integer level, int limit);
+    List<Integer> findDistinctLevels();
+    // Hands up to limit matching rows with id > afterId to sink in id order; returns the last id handed over, or afterId
+    long exportScores(ScoreExportFilter filter, long afterId, int limit, Consumer<ScoreExportDTO> sink);
+}
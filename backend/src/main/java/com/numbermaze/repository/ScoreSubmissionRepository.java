@@ -0,0 +1,9 @@
+package com.numbermaze.repository;
+
+import com.numbermaze.model.ScoreSubmission;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ScoreSubmissionRepository extends JpaRepository<ScoreSubmission, String> {
+}
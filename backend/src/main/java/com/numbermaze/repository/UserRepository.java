@@ -1,11 +1,21 @@
 package com.numbermaze.repository;
 
 import com.numbermaze.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 
+import javax.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
     Optional<User> findByEmail(String email);
+    // Keyset page on the primary key: cost does not grow with how far the client has paged
+    List<User> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable page);
+    // Row locks taken in id order, so transactions locking several users cannot deadlock each other
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<User> findByIdInOrderByIdAsc(Collection<Long> ids);
 }
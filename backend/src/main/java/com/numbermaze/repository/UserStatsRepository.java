@@ -0,0 +1,17 @@
+package com.numbermaze.repository;
+
+import com.numbermaze.model.UserStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface UserStatsRepository extends JpaRepository<UserStats, Long> {
+    List<UserStats> findByUserIdOrderByLevel(Long userId);
+    List<UserStats> findByBestScoreIsNotNull();
+    
+    // Callers hold the user's row lock, so concurrent saves for the same user and level merge one after another
+    Optional<UserStats> findByUserIdAndLevel(Long userId, Integer level);
+}
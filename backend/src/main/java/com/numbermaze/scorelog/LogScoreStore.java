@@ -0,0 +1,292 @@
+package com.numbermaze.scorelog;
+
+import com.numbermaze.dto.ScoreDTO;
+import com.numbermaze.dto.ScoreExportDTO;
+import com.numbermaze.model.Score;
+import com.numbermaze.model.User;
+import com.numbermaze.repository.ScoreCursor;
+import com.numbermaze.repository.ScoreExportFilter;
+import com.numbermaze.repository.ScoreStore;
+import com.numbermaze.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * 基于追加写日志的分数存储（score-log profile）：分数写入内存映射日志，定期刷盘，
+ * 启动时从日志恢复按用户的历史索引（按分数降序、ID降序，与键集分页游标一致）；用户数据仍保存在数据库中
+ */
+@Component
+@Profile("score-log")
+public class LogScoreStore implements ScoreStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(LogScoreStore.class);
+
+    // Same ordering as the JPA queries: score desc (nulls last), then id
+    private static final Comparator<ScoreRecord> BY_SCORE_DESC = Comparator
+            .comparingInt((ScoreRecord r) -> r.score).reversed()
+            .thenComparingLong(r -> r.id);
+    private final UserRepository userRepository;
+    private final String directory;
+    private final int segmentRecords;
+    private final long fsyncIntervalMs;
+    // Per user history keys in page order, so a page seeks to the cursor instead of scanning the whole history
+    private final ConcurrentMap<Long, NavigableSet<HistoryKey>> historyByUser = new ConcurrentHashMap<>();
+    private final Set<Integer> levels = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService syncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "score-log-fsync");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private ScoreLog log;
+
+    @Autowired
+    public LogScoreStore(UserRepository userRepository,
+                         @Value("${score-log.directory:./data/score-log}") String directory,
+                         @Value("${score-log.segment-records:1048576}") int segmentRecords,
+                         @Value("${score-log.fsync-interval-ms:1000}") long fsyncIntervalMs) {
+        this.userRepository = userRepository;
+        this.directory = directory;
+        this.segmentRecords = segmentRecords;
+        this.fsyncIntervalMs = fsyncIntervalMs;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        long start = System.currentTimeMillis();
+        log = ScoreLog.open(Paths.get(directory), segmentRecords);
+        log.forEach(this::index);
+        syncer.scheduleWithFixedDelay(log::sync, fsyncIntervalMs, fsyncIntervalMs, TimeUnit.MILLISECONDS);
+        logger.info("分数日志存储已启动: {} 条记录, {} 个用户, 耗时 {}ms",
+                log.size(), historyByUser.size(), System.currentTimeMillis() - start);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        syncer.shutdown();
+        log.close();
+    }
+
+    @Override
+    public Score save(Score score) {
+        try {
+            long id = log.append(score);
+            score.setId(id);
+            index(ScoreRecord.of(id, score));
+            return score;
+        } catch (IOException e) {
+            throw new UncheckedIOException("写入分数日志失败", e);
+        }
+    }
+
+    @Override
+    public List<Score> saveAll(List<Score> scores) {
+        List<Score> saved = new ArrayList<>(scores.size());
+        for (Score score : scores) {
+            saved.add(save(score));
+        }
+        return saved;
+    }
+
+    @Override
+    public Optional<Score> findById(Long id) {
+        ScoreRecord record = id == null ? null : log.read(id);
+        return record == null ? Optional.empty() : Optional.of(toScores(Collections.singletonList(record)).get(0));
+    }
+
+    @Override
+    public List<ScoreDTO> findUserScoresPage(Long userId, ScoreCursor after, int size) {
+        NavigableSet<HistoryKey> history = historyByUser.get(userId);
+        if (history == null || size <= 0) {
+            return Collections.emptyList();
+        }
+        NavigableSet<HistoryKey> page = after == null
+                ? history : history.tailSet(new HistoryKey(after.getScore(), after.getId()), false);
+        List<ScoreRecord> records = new ArrayList<>(Math.min(size, 64));
+        for (HistoryKey key : page) {
+            if (records.size() == size) {
+                break;
+            }
+            ScoreRecord record = log.read(key.id);
+            if (record != null) {
+                records.add(record);
+            }
+        }
+        return toViews(toScores(records));
+    }
+
+    // Full scans: only reached when the in-memory leaderboard cannot serve the limit
+    @Override
+    public List<Score> findTopScores(int limit) {
+        return top(limit, record -> true);
+    }
+
+    @Override
+    public List<Score> findTopScoresByLevel(Integer level, int limit) {
+        return top(limit, record -> level != null && level.equals(record.levelOrNull()));
+    }
+
+    @Override
+    public List<ScoreDTO> findTopScoreViews(int limit) {
+        return toViews(findTopScores(limit));
+    }
+
+    @Override
+    public List<ScoreDTO> findTopScoreViewsByLevel(Integer level, int limit) {
+        return toViews(findTopScoresByLevel(level, limit));
+    }
+
+    @Override
+    public List<Integer> findDistinctLevels() {
+        return new ArrayList<>(levels);
+    }
+
+    // Record ids are dense, so resuming after an id is a plain sequential read
+    @Override
+    public long exportScores(ScoreExportFilter filter, long afterId, int limit, Consumer<ScoreExportDTO> sink) {
+        Map<Long, Optional<User>> users = new HashMap<>();
+        long lastId = afterId;
+        long end = log.size();
+        int exported = 0;
+        for (long id = Math.max(afterId, 0) + 1; id <= end && exported < limit; id++) {
+            ScoreRecord record = log.read(id);
+            if (record == null) {
+                continue;
+            }
+            Score score = record.toScore();
+            if (!filter.matches(score)) {
+                continue;
+            }
+            Optional<User> user = record.hasUser()
+                    ? users.computeIfAbsent(record.userId, userRepository::findById) : Optional.empty();
+            sink.accept(new ScoreExportDTO(id, user.map(User::getId).orElse(null), user.map(User::getUsername).orElse(null),
+                    score.getScore(), score.getLevel(), score.getTime(), score.getSteps(), score.getTimestamp()));
+            lastId = id;
+            exported++;
+        }
+        return lastId;
+    }
+
+    // Every score in the log, in id order, with only the user id set; for rebuilding data derived from the log
+    void forEachScore(Consumer<Score> consumer) {
+        log.forEach(record -> {
+            Score score = record.toScore();
+            if (record.hasUser()) {
+                User user = new User();
+                user.setId(record.userId);
+                score.setUser(user);
+            }
+            consumer.accept(score);
+        });
+    }
+
+    private List<Score> top(int limit, Predicate<ScoreRecord> filter) {
+        if (limit <= 0) {
+            return Collections.emptyList();
+        }
+        PriorityQueue<ScoreRecord> heap = new PriorityQueue<>(limit, BY_SCORE_DESC.reversed());
+        log.forEach(record -> {
+            if (!filter.test(record)) {
+                return;
+            }
+            if (heap.size() < limit) {
+                heap.offer(record);
+            } else if (BY_SCORE_DESC.compare(record, heap.peek()) < 0) {
+                heap.poll();
+                heap.offer(record);
+            }
+        });
+        List<ScoreRecord> records = new ArrayList<>(heap);
+        records.sort(BY_SCORE_DESC);
+        return toScores(records);
+    }
+
+    private void index(ScoreRecord record) {
+        // Scores without a value never appear in the history
+        if (record.hasUser() && record.hasScore()) {
+            historyByUser.computeIfAbsent(record.userId, k -> new ConcurrentSkipListSet<>())
+                    .add(new HistoryKey(record.score, record.id));
+        }
+        if (record.levelOrNull() != null) {
+            levels.add(record.level);
+        }
+    }
+
+    // Resolve each distinct user once per call
+    private List<Score> toScores(List<ScoreRecord> records) {
+        Map<Long, Optional<User>> users = new HashMap<>();
+        List<Score> scores = new ArrayList<>(records.size());
+        for (ScoreRecord record : records) {
+            Score score = record.toScore();
+            if (record.hasUser()) {
+                users.computeIfAbsent(record.userId, userRepository::findById).ifPresent(score::setUser);
+            }
+            scores.add(score);
+        }
+        return scores;
+    }
+
+    private static List<ScoreDTO> toViews(List<Score> scores) {
+        List<ScoreDTO> views = new ArrayList<>(scores.size());
+        for (Score score : scores) {
+            views.add(ScoreDTO.fromEntity(score));
+        }
+        return views;
+    }
+
+    /**
+     * 历史索引的键：按分数降序、ID降序排列，与 ScoreCursor 的 (score, id) 一致
+     */
+    private static final class HistoryKey implements Comparable<HistoryKey> {
+        private final int score;
+        private final long id;
+
+        HistoryKey(int score, long id) {
+            this.score = score;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(HistoryKey other) {
+            int byScore = Integer.compare(other.score, score);
+            return byScore != 0 ? byScore : Long.compare(other.id, id);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof HistoryKey && ((HistoryKey) o).score == score && ((HistoryKey) o).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(id) * 31 + score;
+        }
+    }
+}
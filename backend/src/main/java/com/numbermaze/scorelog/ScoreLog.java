@@ -0,0 +1,170 @@
+package com.numbermaze.scorelog;
+
+import com.numbermaze.model.Score;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * 分段追加写分数日志：写满一个段后滚动到新段，启动时逐段恢复
+ * 段文件名为 scores-{起始ID}.log，记录ID从1开始连续递增
+ */
+public final class ScoreLog implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScoreLog.class);
+    private static final String PREFIX = "scores-";
+    private static final String SUFFIX = ".log";
+
+    private static final ThreadLocal<CRC32> READ_CRC = ThreadLocal.withInitial(CRC32::new);
+
+    private final Path directory;
+    private final int segmentRecords;
+    // Sorted by baseId; replaced wholesale on rollover so readers never see a partial list
+    private volatile ScoreLogSegment[] segments;
+    private volatile boolean dirty;
+
+    private ScoreLog(Path directory, int segmentRecords, ScoreLogSegment[] segments) {
+        this.directory = directory;
+        this.segmentRecords = segmentRecords;
+        this.segments = segments;
+    }
+
+    public static ScoreLog open(Path directory, int segmentRecords) throws IOException {
+        if (segmentRecords <= 0 || (long) segmentRecords * ScoreRecord.SIZE > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("segmentRecords out of range: " + segmentRecords);
+        }
+        Files.createDirectories(directory);
+
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        files.sort(Comparator.comparingLong(ScoreLog::baseIdOf));
+
+        List<ScoreLogSegment> opened = new ArrayList<>();
+        long expectedBaseId = 1;
+        for (Path file : files) {
+            long baseId = baseIdOf(file);
+            if (baseId != expectedBaseId) {
+                logger.warn("分数日志段不连续，忽略其后的段: 期望起始ID={}, 实际文件={}", expectedBaseId, file);
+                break;
+            }
+            ScoreLogSegment segment = ScoreLogSegment.open(file, baseId, segmentRecords);
+            opened.add(segment);
+            expectedBaseId = segment.getNextId();
+            if (!segment.isFull()) {
+                // Only the tail segment may be partially written
+                break;
+            }
+        }
+        if (opened.isEmpty() || opened.get(opened.size() - 1).isFull()) {
+            opened.add(ScoreLogSegment.open(segmentPath(directory, expectedBaseId), expectedBaseId, segmentRecords));
+        }
+
+        ScoreLog log = new ScoreLog(directory, segmentRecords, opened.toArray(new ScoreLogSegment[0]));
+        logger.info("分数日志已恢复: 目录={}, 段数={}, 记录数={}", directory, opened.size(), log.size());
+        return log;
+    }
+
+    public long size() {
+        return tail().getNextId() - 1;
+    }
+
+    /**
+     * 追加记录并返回分配的ID
+     */
+    public synchronized long append(Score score) throws IOException {
+        ScoreLogSegment tail = tail();
+        if (tail.isFull()) {
+            tail = roll(tail);
+        }
+        long id = tail.getNextId();
+        tail.append(ScoreRecord.of(id, score));
+        dirty = true;
+        return id;
+    }
+
+    ScoreRecord read(long id) {
+        ScoreLogSegment segment = segmentFor(id);
+        return segment == null ? null : segment.read(id, READ_CRC.get());
+    }
+
+    void forEach(Consumer<ScoreRecord> consumer) {
+        CRC32 crc = new CRC32();
+        for (ScoreLogSegment segment : segments) {
+            segment.forEach(consumer, crc);
+        }
+    }
+
+    /**
+     * 将尾段的修改刷到磁盘；已写满的段在滚动时已经刷盘
+     */
+    public void sync() {
+        if (dirty) {
+            dirty = false;
+            tail().force();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (ScoreLogSegment segment : segments) {
+            segment.close();
+        }
+    }
+
+    private ScoreLogSegment roll(ScoreLogSegment full) throws IOException {
+        full.force();
+        ScoreLogSegment next = ScoreLogSegment.open(
+                segmentPath(directory, full.getNextId()), full.getNextId(), segmentRecords);
+        ScoreLogSegment[] current = segments;
+        ScoreLogSegment[] rolled = Arrays.copyOf(current, current.length + 1);
+        rolled[current.length] = next;
+        segments = rolled;
+        logger.info("分数日志段滚动: 新段={}", next.getPath());
+        return next;
+    }
+
+    private ScoreLogSegment tail() {
+        ScoreLogSegment[] current = segments;
+        return current[current.length - 1];
+    }
+
+    private ScoreLogSegment segmentFor(long id) {
+        ScoreLogSegment[] current = segments;
+        int low = 0;
+        int high = current.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            ScoreLogSegment segment = current[mid];
+            if (id < segment.getBaseId()) {
+                high = mid - 1;
+            } else if (segment.contains(id)) {
+                return segment;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return null;
+    }
+
+    private static Path segmentPath(Path directory, long baseId) {
+        return directory.resolve(String.format("%s%020d%s", PREFIX, baseId, SUFFIX));
+    }
+
+    private static long baseIdOf(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+}
@@ -0,0 +1,121 @@
+package com.numbermaze.scorelog;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * 日志段：预分配固定大小的内存映射文件，按顺序写入定长记录；记录ID = baseId + 段内序号
+ */
+final class ScoreLogSegment implements Closeable {
+
+    private final Path path;
+    private final long baseId;
+    private final int capacity;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final CRC32 writeCrc = new CRC32();
+    // Records [0, count) are complete; published after the bytes are written
+    private volatile int count;
+
+    private ScoreLogSegment(Path path, long baseId, int capacity) throws IOException {
+        this.path = path;
+        this.baseId = baseId;
+        this.capacity = capacity;
+        this.channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) capacity * ScoreRecord.SIZE);
+    }
+
+    static ScoreLogSegment open(Path path, long baseId, int capacity) throws IOException {
+        ScoreLogSegment segment = new ScoreLogSegment(path, baseId, capacity);
+        segment.recover();
+        return segment;
+    }
+
+    /**
+     * 崩溃恢复：从头扫描到第一条无效记录为止，并清除其后残留的记录
+     */
+    private void recover() {
+        CRC32 crc = new CRC32();
+        int valid = 0;
+        while (valid < capacity) {
+            ScoreRecord record = ScoreRecord.readFrom(buffer, valid * ScoreRecord.SIZE, crc);
+            if (record == null || record.id != baseId + valid) {
+                break;
+            }
+            valid++;
+        }
+        count = valid;
+        // Wipe whatever follows a torn record so later appends cannot resurrect stale entries
+        for (int i = valid; i < capacity && buffer.getInt(i * ScoreRecord.SIZE) != 0; i++) {
+            for (int b = 0; b < ScoreRecord.SIZE; b += Long.BYTES) {
+                buffer.putLong(i * ScoreRecord.SIZE + b, 0L);
+            }
+        }
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    long getBaseId() {
+        return baseId;
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    long getNextId() {
+        return baseId + count;
+    }
+
+    boolean isFull() {
+        return count >= capacity;
+    }
+
+    boolean contains(long id) {
+        return id >= baseId && id < baseId + count;
+    }
+
+    /**
+     * 追加一条记录，调用方负责串行化写入
+     */
+    void append(ScoreRecord record) {
+        ByteBuffer target = buffer.duplicate();
+        target.position(count * ScoreRecord.SIZE);
+        record.writeTo(target, writeCrc);
+        count++;
+    }
+
+    ScoreRecord read(long id, CRC32 crc) {
+        return ScoreRecord.readFrom(buffer, (int) (id - baseId) * ScoreRecord.SIZE, crc);
+    }
+
+    void forEach(Consumer<ScoreRecord> consumer, CRC32 crc) {
+        int limit = count;
+        for (int i = 0; i < limit; i++) {
+            ScoreRecord record = ScoreRecord.readFrom(buffer, i * ScoreRecord.SIZE, crc);
+            if (record != null) {
+                consumer.accept(record);
+            }
+        }
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+}
@@ -0,0 +1,140 @@
+package com.numbermaze.scorelog;
+
+import com.numbermaze.model.Score;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.zip.CRC32;
+
+/**
+ * 定长二进制分数记录（48字节）
+ * <pre>
+ * 0  int  magic
+ * 4  int  crc32(8..47)
+ * 8  long id
+ * 16 long userId
+ * 24 long timestamp (epoch millis, UTC)
+ * 32 int  score
+ * 36 int  level
+ * 40 int  time
+ * 44 int  steps
+ * </pre>
+ */
+final class ScoreRecord {
+
+    static final int SIZE = 48;
+    static final int MAGIC = 0x4E4D5343;
+
+    private static final int CRC_FROM = 8;
+    // Integer fields on Score are nullable
+    private static final int NULL_INT = Integer.MIN_VALUE;
+    private static final long NULL_LONG = Long.MIN_VALUE;
+
+    final long id;
+    final long userId;
+    final long timestamp;
+    final int score;
+    final int level;
+    final int time;
+    final int steps;
+
+    ScoreRecord(long id, long userId, long timestamp, int score, int level, int time, int steps) {
+        this.id = id;
+        this.userId = userId;
+        this.timestamp = timestamp;
+        this.score = score;
+        this.level = level;
+        this.time = time;
+        this.steps = steps;
+    }
+
+    static ScoreRecord of(long id, Score score) {
+        return new ScoreRecord(
+                id,
+                score.getUser() == null || score.getUser().getId() == null ? NULL_LONG : score.getUser().getId(),
+                score.getTimestamp() == null ? NULL_LONG : score.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli(),
+                orNull(score.getScore()),
+                orNull(score.getLevel()),
+                orNull(score.getTime()),
+                orNull(score.getSteps()));
+    }
+
+    /**
+     * 转换为分数实体，用户需由调用方设置
+     */
+    Score toScore() {
+        Score result = new Score();
+        result.setId(id);
+        result.setScore(valueOf(score));
+        result.setLevel(valueOf(level));
+        result.setTime(valueOf(time));
+        result.setSteps(valueOf(steps));
+        result.setTimestamp(timestamp == NULL_LONG ? null
+                : LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamp), ZoneOffset.UTC));
+        return result;
+    }
+
+    boolean hasUser() {
+        return userId != NULL_LONG;
+    }
+
+    boolean hasScore() {
+        return score != NULL_INT;
+    }
+
+    Integer levelOrNull() {
+        return valueOf(level);
+    }
+
+    /**
+     * 编码到 target 的当前位置，target 需有至少 SIZE 字节剩余空间
+     */
+    void writeTo(ByteBuffer target, CRC32 crc) {
+        int start = target.position();
+        target.putInt(MAGIC);
+        target.putInt(0);
+        target.putLong(id);
+        target.putLong(userId);
+        target.putLong(timestamp);
+        target.putInt(score);
+        target.putInt(level);
+        target.putInt(time);
+        target.putInt(steps);
+        target.putInt(start + 4, checksum(target, start, crc));
+    }
+
+    /**
+     * 从 source 的 offset 处解码，魔数或校验和不匹配（未写入或写了一半）时返回 null
+     */
+    static ScoreRecord readFrom(ByteBuffer source, int offset, CRC32 crc) {
+        if (source.getInt(offset) != MAGIC || source.getInt(offset + 4) != checksum(source, offset, crc)) {
+            return null;
+        }
+        return new ScoreRecord(
+                source.getLong(offset + 8),
+                source.getLong(offset + 16),
+                source.getLong(offset + 24),
+                source.getInt(offset + 32),
+                source.getInt(offset + 36),
+                source.getInt(offset + 40),
+                source.getInt(offset + 44));
+    }
+
+    private static int checksum(ByteBuffer buffer, int offset, CRC32 crc) {
+        ByteBuffer body = buffer.duplicate();
+        body.limit(offset + SIZE).position(offset + CRC_FROM);
+        crc.reset();
+        crc.update(body);
+        return (int) crc.getValue();
+    }
+
+    private static int orNull(Integer value) {
+        return value == null ? NULL_INT : value;
+    }
+
+    private static Integer valueOf(int value) {
+        return value == NULL_INT ? null : value;
+    }
+}
@@ -0,0 +1,64 @@
+package com.numbermaze.scorelog;
+
+import com.numbermaze.model.Score;
+import com.numbermaze.service.UserStatsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 按分数日志重建 user_stats（score-log profile）：日志追加不随数据库事务回滚，统计事务失败时分数已在日志中却未计入统计。
+ * 开启 score-log.rebuild-stats-on-start 后，启动时（开始接收请求、名次索引预热之前）清空 user_stats 并按日志中的全部分数重新汇总
+ */
+@Component
+@Profile("score-log")
+@ConditionalOnProperty(name = "score-log.rebuild-stats-on-start", havingValue = "true")
+public class UserStatsRebuilder {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserStatsRebuilder.class);
+    // Scores folded per transaction, so the persistence context stays small
+    private static final int CHUNK_SIZE = 10_000;
+
+    private final LogScoreStore logScoreStore;
+    private final UserStatsService userStatsService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public UserStatsRebuilder(LogScoreStore logScoreStore, UserStatsService userStatsService,
+                              PlatformTransactionManager transactionManager) {
+        this.logScoreStore = logScoreStore;
+        this.userStatsService = userStatsService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        userStatsService.deleteAll();
+        List<Score> chunk = new ArrayList<>(CHUNK_SIZE);
+        long[] total = new long[1];
+        logScoreStore.forEachScore(score -> {
+            chunk.add(score);
+            total[0]++;
+            if (chunk.size() == CHUNK_SIZE) {
+                record(chunk);
+            }
+        });
+        record(chunk);
+        logger.info("已按分数日志重建用户统计: {} 条分数, 耗时 {}ms", total[0], System.currentTimeMillis() - start);
+    }
+
+    private void record(List<Score> chunk) {
+        transactionTemplate.executeWithoutResult(status -> userStatsService.recordAll(chunk));
+        chunk.clear();
+    }
+}
@@ -1,14 +1,37 @@
 package com.numbermaze.service;
 
+import com.numbermaze.dto.ScoreDTO;
+import com.numbermaze.dto.ScoreExportDTO;
+import com.numbermaze.leaderboard.LeaderboardWindow;
+import com.numbermaze.leaderboard.PlayerRank;
 import com.numbermaze.model.Score;
+import com.numbermaze.repository.ScoreCursor;
+import com.numbermaze.repository.ScoreExportFilter;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.function.Consumer;
 
 public interface ScoreService {
     Score saveScore(Score score);
+    List<Score> saveScores(List<Score> scores);
+    // submissionKeys is aligned with scores (null = no key, keys distinct); scores whose key was already
+    // stored are skipped and their existing ids returned by key, the others get their new id set
+    Map<String, Long> saveScoresOnce(List<Score> scores, List<String> submissionKeys);
     Optional<Score> getScoreById(Long id);
-    List<Score> getUserScores(Long userId);
-    List<Score> getTopScores(int limit);
-    List<Score> getTopScoresByLevel(Integer level, int limit);
-    List<Score> getScoresByPlayer(String playerName);
+    List<ScoreDTO> getUserScores(Long userId, ScoreCursor after, int size);
+    List<ScoreDTO> getTopScores(int limit);
+    List<ScoreDTO> getTopScoresByLevel(Integer level, int limit);
+    // Version of the top-N list (level null = overall), changed whenever the list may have changed;
+    // empty when the list would not come from the in-memory leaderboard
+    OptionalLong getTopScoresVersion(Integer level, int limit);
+    // Version of a user's score history, changed by every score saved for the user
+    long getUserScoresVersion(Long userId);
+    // Rolling day/week leaderboards (level null = overall), always from memory; IllegalStateException before warm-up
+    List<ScoreDTO> getWindowTopScores(LeaderboardWindow window, Integer level, int limit);
+    long getWindowTopScoresVersion(LeaderboardWindow window, Integer level);
+    List<ScoreDTO> getScoresByPlayer(String playerName, ScoreCursor after, int size);
+    Optional<PlayerRank> getRank(Long userId, Integer level);
+    long exportScores(ScoreExportFilter filter, long afterId, Consumer<ScoreExportDTO> sink);
 }
@@ -1,14 +1,21 @@
 package com.numbermaze.service;
 
+import com.numbermaze.dto.UserDTO;
 import com.numbermaze.model.User;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface UserService {
     User createUser(User user);
     Optional<User> getUserById(Long id);
+    // Users that exist among ids, keyed by id; cache misses are loaded in one query
+    Map<Long, User> getUsersById(Collection<Long> ids);
     Optional<User> getUserByUsername(String username);
     User updateUser(User user);
-    List<User> getAllUsers(); // Add this method
+    // Users with id > afterId (null = from the start) in id order
+    List<User> getUsersPage(Long afterId, int size);
+    List<UserDTO> searchUsers(String prefix, int limit);
 }
@@ -0,0 +1,14 @@
+package com.numbermaze.service;
+
+import com.numbermaze.model.Score;
+import com.numbermaze.model.UserStats;
+
+import java.util.List;
+
+public interface UserStatsService {
+    void record(Score score);
+    void recordAll(List<Score> scores);
+    List<UserStats> getUserStats(Long userId);
+    List<UserStats> getAllBestScores();
+    void deleteAll();
+}
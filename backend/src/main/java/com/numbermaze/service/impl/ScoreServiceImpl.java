@@ -1,52 +1,365 @@
 package com.numbermaze.service.impl;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.numbermaze.dto.ScoreDTO;
+import com.numbermaze.dto.ScoreExportDTO;
+import com.numbermaze.leaderboard.LeaderboardBroadcaster;
+import com.numbermaze.leaderboard.LeaderboardIndex;
+import com.numbermaze.leaderboard.LeaderboardWindow;
+import com.numbermaze.leaderboard.PlayerRank;
+import com.numbermaze.leaderboard.RankIndex;
+import com.numbermaze.leaderboard.WindowedLeaderboard;
 import com.numbermaze.model.Score;
-import com.numbermaze.repository.ScoreRepository;
+import com.numbermaze.model.ScoreSubmission;
+import com.numbermaze.model.User;
+import com.numbermaze.puzzle.PuzzleLevel;
+import com.numbermaze.repository.ScoreCursor;
+import com.numbermaze.repository.ScoreExportFilter;
+import com.numbermaze.repository.ScoreStore;
+import com.numbermaze.repository.ScoreSubmissionRepository;
 import com.numbermaze.service.ScoreService;
+import com.numbermaze.service.UserService;
+import com.numbermaze.service.UserStatsService;
+import com.numbermaze.user.UserRenamedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 @Service
 public class ScoreServiceImpl implements ScoreService {
     
-    private final ScoreRepository scoreRepository;
+    private final ScoreStore scoreStore;
+    private final LeaderboardIndex leaderboardIndex;
+    private final WindowedLeaderboard windowedLeaderboard;
+    private final LeaderboardBroadcaster leaderboardBroadcaster;
+    private final RankIndex rankIndex;
+    private final UserStatsService userStatsService;
+    private final UserService userService;
+    private final ScoreSubmissionRepository submissionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int exportChunkSize;
+    // Per-user history versions for ETags, starting at the boot time in micros so they never repeat across restarts.
+    // Evicted users report the highest evicted version: never lower than their last real one
+    private final AtomicLong userVersionSequence = new AtomicLong(System.currentTimeMillis() * 1000);
+    private final AtomicLong evictedUserVersion = new AtomicLong(userVersionSequence.get());
+    private final Cache<Long, Long> userVersions;
+    
+    private final MeterRegistry meterRegistry;
+    private final Timer saveTimer;
+    private final Timer batchSaveTimer;
+    private final Timer topFromIndexTimer;
+    private final Timer topFromStoreTimer;
+    private final Timer topFromWindowTimer;
+    private final Counter leaderboardHits;
+    private final Counter leaderboardMisses;
     
     @Autowired
-    public ScoreServiceImpl(ScoreRepository scoreRepository) {
-        this.scoreRepository = scoreRepository;
+    public ScoreServiceImpl(ScoreStore scoreStore, LeaderboardIndex leaderboardIndex,
+                            WindowedLeaderboard windowedLeaderboard, LeaderboardBroadcaster leaderboardBroadcaster, RankIndex rankIndex,
+                            UserStatsService userStatsService, UserService userService,
+                            ScoreSubmissionRepository submissionRepository, PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry,
+                            @Value("${score.export.chunk-size:10000}") int exportChunkSize,
+                            @Value("${score.versions.maximum-users:100000}") long maximumVersionedUsers) {
+        this.scoreStore = scoreStore;
+        this.leaderboardIndex = leaderboardIndex;
+        this.windowedLeaderboard = windowedLeaderboard;
+        this.leaderboardBroadcaster = leaderboardBroadcaster;
+        this.rankIndex = rankIndex;
+        this.userStatsService = userStatsService;
+        this.userService = userService;
+        this.submissionRepository = submissionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.exportChunkSize = exportChunkSize;
+        // The listener runs before the entry disappears, so no reader sees neither the entry nor the raised floor
+        this.userVersions = Caffeine.newBuilder()
+                .maximumSize(maximumVersionedUsers)
+                .evictionListener((Long userId, Long version, RemovalCause cause) ->
+                        evictedUserVersion.accumulateAndGet(version, Math::max))
+                .build();
+        
+        this.meterRegistry = meterRegistry;
+        this.saveTimer = Timer.builder("numbermaze.score.save").tag("mode", "single")
+                .description("Score save path including leaderboard, rank and stats updates")
+                .register(meterRegistry);
+        this.batchSaveTimer = Timer.builder("numbermaze.score.save").tag("mode", "batch")
+                .description("Score save path including leaderboard, rank and stats updates")
+                .register(meterRegistry);
+        this.topFromIndexTimer = Timer.builder("numbermaze.score.top").tag("source", "index")
+                .description("Top-N leaderboard queries")
+                .register(meterRegistry);
+        this.topFromStoreTimer = Timer.builder("numbermaze.score.top").tag("source", "store")
+                .description("Top-N leaderboard queries")
+                .register(meterRegistry);
+        this.topFromWindowTimer = Timer.builder("numbermaze.score.top").tag("source", "window")
+                .description("Top-N leaderboard queries")
+                .register(meterRegistry);
+        // Hit ratio = hit / (hit + miss)
+        this.leaderboardHits = Counter.builder("numbermaze.leaderboard.requests").tag("result", "hit")
+                .description("Top-N queries answered by the in-memory leaderboard")
+                .register(meterRegistry);
+        this.leaderboardMisses = Counter.builder("numbermaze.leaderboard.requests").tag("result", "miss")
+                .description("Top-N queries answered by the in-memory leaderboard")
+                .register(meterRegistry);
+    }
+    
+    // Load the top scores of every level into the in-memory leaderboard once the app is up
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmLeaderboard() {
+        int top = leaderboardIndex.getCapacity();
+        Map<Integer, List<Score>> byLevel = new HashMap<>();
+        for (Integer level : scoreStore.findDistinctLevels()) {
+            byLevel.put(level, scoreStore.findTopScoresByLevel(level, top));
+        }
+        leaderboardIndex.warm(scoreStore.findTopScores(top), byLevel);
+        // Each user's best per level is already materialized in user_stats
+        rankIndex.warm(userStatsService.getAllBestScores());
+        // Every score inside the longest window, read in id-ordered chunks; scores saved meanwhile
+        // are offered by the save path as well and the second offer is ignored
+        exportScores(new ScoreExportFilter(null, windowedLeaderboard.getRetainedSince(), null), 0,
+                row -> windowedLeaderboard.offer(toScore(row)));
+        windowedLeaderboard.markReady();
+    }
+    
+    private static Score toScore(ScoreExportDTO row) {
+        Score score = new Score();
+        score.setId(row.getId());
+        score.setScore(row.getScore());
+        score.setLevel(row.getLevel());
+        score.setTime(row.getTime());
+        score.setSteps(row.getSteps());
+        score.setTimestamp(row.getTimestamp());
+        if (row.getUserId() != null) {
+            User user = new User();
+            user.setId(row.getUserId());
+            user.setUsername(row.getUsername());
+            score.setUser(user);
+        }
+        return score;
     }
     
+    // The stats rows are updated in the transaction that inserts the score (with JPA they commit or roll back
+    // together); the in-memory indexes only see the score after the commit
     @Override
     public Score saveScore(Score score) {
-        return scoreRepository.save(score);
+        return saveTimer.record(() -> {
+            Score saved = transactionTemplate.execute(status -> {
+                Score stored = scoreStore.save(score);
+                userStatsService.record(stored);
+                return stored;
+            });
+            bumpUserVersion(saved);
+            offerToLeaderboard(saved);
+            rankIndex.offer(saved);
+            countSubmission(saved);
+            return saved;
+        });
+    }
+    
+    // With JPA, saveAll runs in one transaction and Hibernate flushes it as JDBC batches
+    @Override
+    public List<Score> saveScores(List<Score> scores) {
+        return batchSaveTimer.record(() -> {
+            List<Score> saved = transactionTemplate.execute(status -> {
+                List<Score> stored = scoreStore.saveAll(scores);
+                userStatsService.recordAll(stored);
+                return stored;
+            });
+            saved.forEach(this::bumpUserVersion);
+            saved.forEach(this::offerToLeaderboard);
+            saved.forEach(rankIndex::offer);
+            saved.forEach(this::countSubmission);
+            return saved;
+        });
+    }
+    
+    // Scores and their keys commit together (with JPA in one transaction); a key stored meanwhile by a
+    // concurrent upload fails the whole batch with DataIntegrityViolationException and the retry reports it.
+    // Keys are reserved before the scores are stored: the score-log store appends outside the transaction,
+    // so the conflict has to surface before anything reaches the log
+    @Override
+    public Map<String, Long> saveScoresOnce(List<Score> scores, List<String> submissionKeys) {
+        return batchSaveTimer.record(() -> {
+            Map<String, Long> existing = new HashMap<>();
+            List<Score> saved = transactionTemplate.execute(status -> {
+                List<String> keys = new ArrayList<>();
+                submissionKeys.stream().filter(Objects::nonNull).forEach(keys::add);
+                if (!keys.isEmpty()) {
+                    submissionRepository.findAllById(keys)
+                            .forEach(submission -> existing.put(submission.getSubmissionKey(), submission.getScoreId()));
+                }
+                List<Score> fresh = new ArrayList<>(scores.size());
+                List<String> freshKeys = new ArrayList<>(scores.size());
+                for (int i = 0; i < scores.size(); i++) {
+                    String key = submissionKeys.get(i);
+                    if (key == null || !existing.containsKey(key)) {
+                        fresh.add(scores.get(i));
+                        freshKeys.add(key);
+                    }
+                }
+                ScoreSubmission[] reserved = new ScoreSubmission[fresh.size()];
+                List<ScoreSubmission> submissions = new ArrayList<>(fresh.size());
+                for (int i = 0; i < fresh.size(); i++) {
+                    if (freshKeys.get(i) != null) {
+                        reserved[i] = new ScoreSubmission(freshKeys.get(i), null);
+                        submissions.add(reserved[i]);
+                    }
+                }
+                submissionRepository.saveAllAndFlush(submissions);
+                List<Score> stored = scoreStore.saveAll(fresh);
+                // The reserved submissions are managed, so the ids go out as updates on flush
+                for (int i = 0; i < stored.size(); i++) {
+                    if (reserved[i] != null) {
+                        reserved[i].setScoreId(stored.get(i).getId());
+                    }
+                }
+                submissionRepository.flush();
+                userStatsService.recordAll(stored);
+                return stored;
+            });
+            saved.forEach(this::bumpUserVersion);
+            saved.forEach(this::offerToLeaderboard);
+            saved.forEach(rankIndex::offer);
+            saved.forEach(this::countSubmission);
+            return existing;
+        });
     }
     
     @Override
     public Optional<Score> getScoreById(Long id) {
-        return scoreRepository.findById(id);
+        return scoreStore.findById(id);
+    }
+    
+    @Override
+    public List<ScoreDTO> getUserScores(Long userId, ScoreCursor after, int size) {
+        return scoreStore.findUserScoresPage(userId, after, size);
+    }
+    
+    @Override
+    public List<ScoreDTO> getTopScores(int limit) {
+        if (leaderboardIndex.canServe(limit)) {
+            leaderboardHits.increment();
+            return topFromIndexTimer.record(() -> leaderboardIndex.getTopScores(limit));
+        }
+        leaderboardMisses.increment();
+        return topFromStoreTimer.record(() -> scoreStore.findTopScoreViews(limit));
+    }
+    
+    @Override
+    public List<ScoreDTO> getTopScoresByLevel(Integer level, int limit) {
+        if (leaderboardIndex.canServe(limit)) {
+            leaderboardHits.increment();
+            return topFromIndexTimer.record(() -> leaderboardIndex.getTopScoresByLevel(level, limit));
+        }
+        leaderboardMisses.increment();
+        return topFromStoreTimer.record(() -> scoreStore.findTopScoreViewsByLevel(level, limit));
     }
     
     @Override
-    public List<Score> getUserScores(Long userId) {
-        return scoreRepository.findByUserIdOrderByScoreDesc(userId);
+    public OptionalLong getTopScoresVersion(Integer level, int limit) {
+        return leaderboardIndex.canServe(limit) ? OptionalLong.of(leaderboardIndex.getVersion(level)) : OptionalLong.empty();
     }
     
     @Override
-    public List<Score> getTopScores(int limit) {
-        return scoreRepository.findTopScores(PageRequest.of(0, limit));
+    public long getUserScoresVersion(Long userId) {
+        Long version = userVersions.getIfPresent(userId);
+        return version != null ? version : evictedUserVersion.get();
     }
     
     @Override
-    public List<Score> getTopScoresByLevel(Integer level, int limit) {
-        return scoreRepository.findTopScoresByLevel(level, PageRequest.of(0, limit));
+    public List<ScoreDTO> getWindowTopScores(LeaderboardWindow window, Integer level, int limit) {
+        return topFromWindowTimer.record(() -> windowedLeaderboard.getTopScores(window, level, limit));
+    }
+    
+    @Override
+    public long getWindowTopScoresVersion(LeaderboardWindow window, Integer level) {
+        return windowedLeaderboard.getVersion(window, level);
+    }
+    
+    // Scores no longer carry the player's name: resolve it to the user (usually cached) and page their history
+    @Override
+    public List<ScoreDTO> getScoresByPlayer(String playerName, ScoreCursor after, int size) {
+        return userService.getUserByUsername(playerName)
+                .map(user -> scoreStore.findUserScoresPage(user.getId(), after, size))
+                .orElse(Collections.emptyList());
+    }
+    
+    @Override
+    public Optional<PlayerRank> getRank(Long userId, Integer level) {
+        return rankIndex.getRank(userId, level);
+    }
+    
+    // After the store call returns the score is committed and visible to history reads
+    private void bumpUserVersion(Score score) {
+        if (score.getUser() != null && score.getUser().getId() != null) {
+            bumpUserVersion(score.getUser().getId());
+        }
+    }
+    
+    private void bumpUserVersion(Long userId) {
+        userVersions.put(userId, userVersionSequence.incrementAndGet());
+    }
+    
+    // Leaderboard and history rows carry the username, so a rename replaces them and moves their versions
+    @EventListener
+    public void onUserRenamed(UserRenamedEvent event) {
+        bumpUserVersion(event.getUserId());
+        if (leaderboardIndex.rename(event.getUserId(), event.getUsername())) {
+            leaderboardBroadcaster.publishAll();
+        }
+        windowedLeaderboard.rename(event.getUserId(), event.getUsername());
+    }
+    
+    // Subscribers are only notified when the score actually entered a leaderboard
+    private void offerToLeaderboard(Score score) {
+        if (leaderboardIndex.offer(score)) {
+            leaderboardBroadcaster.publish(score);
+        }
+        windowedLeaderboard.offer(score);
+    }
+    
+    // Level tag is limited to the known puzzle levels to keep the series count bounded
+    private void countSubmission(Score score) {
+        String level = score.getLevel() == null ? "none" : PuzzleLevel.of(score.getLevel())
+                .map(puzzleLevel -> String.valueOf(puzzleLevel.getLevel()))
+                .orElse("other");
+        meterRegistry.counter("numbermaze.score.submissions", "level", level).increment();
     }
     
+    // Export in id-ordered chunks, each read in its own short transaction, resuming after the last id written
     @Override
-    public List<Score> getScoresByPlayer(String playerName) {
-        return scoreRepository.findByPlayerNameOrderByScoreValueDesc(playerName);
+    public long exportScores(ScoreExportFilter filter, long afterId, Consumer<ScoreExportDTO> sink) {
+        long total = 0;
+        long lastId = afterId;
+        int[] chunk = new int[1];
+        do {
+            chunk[0] = 0;
+            lastId = scoreStore.exportScores(filter, lastId, exportChunkSize, row -> {
+                sink.accept(row);
+                chunk[0]++;
+            });
+            total += chunk[0];
+        } while (chunk[0] == exportChunkSize);
+        return total;
     }
 }
@@ -1,46 +1,199 @@
 package com.numbermaze.service.impl;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.numbermaze.dto.UserDTO;
 import com.numbermaze.model.User;
 import com.numbermaze.repository.UserRepository;
 import com.numbermaze.service.UserService;
+import com.numbermaze.user.UserRenamedEvent;
+import com.numbermaze.user.UsernameIndex;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
+/**
+ * 用户服务：按ID和用户名缓存用户（Caffeine，W-TinyLFU 淘汰），保存分数和登录时的用户查询通常无需访问数据库。
+ * 缓存中保存的是副本，调用方修改返回的对象不会影响缓存；更新用户时失效旧的用户名映射。
+ * 用户名前缀搜索由内存中的 UsernameIndex 提供，新建和改名时同步更新；
+ * 改名后发布 UserRenamedEvent，排行榜等保存了用户名的组件据此刷新
+ */
 @Service
 public class UserServiceImpl implements UserService {
-    
+
+    private static final int WARM_PAGE_SIZE = 10_000;
+
     private final UserRepository userRepository;
-    
+    private final UsernameIndex usernameIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Cache<Long, User> usersById;
+    private final Cache<String, Long> idsByUsername;
+
     @Autowired
-    public UserServiceImpl(UserRepository userRepository) {
+    public UserServiceImpl(UserRepository userRepository, UsernameIndex usernameIndex,
+                           ApplicationEventPublisher eventPublisher, MeterRegistry meterRegistry,
+                           @Value("${user.cache.maximum-size:10000}") long maximumSize,
+                           @Value("${user.cache.expire-after-write:10m}") Duration expireAfterWrite) {
         this.userRepository = userRepository;
+        this.usernameIndex = usernameIndex;
+        this.eventPublisher = eventPublisher;
+        this.usersById = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        this.idsByUsername = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, usersById, "users.by-id");
+        CaffeineCacheMetrics.monitor(meterRegistry, idsByUsername, "users.by-username");
+    }
+
+    // Load every username into the prefix index in keyset pages once the app is up
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUsernameIndex() {
+        List<User> users = new ArrayList<>();
+        long afterId = 0;
+        List<User> page;
+        do {
+            page = userRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, WARM_PAGE_SIZE));
+            users.addAll(page);
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == WARM_PAGE_SIZE);
+        usernameIndex.warm(users);
     }
-    
+
     @Override
+    @Timed(value = "numbermaze.user.create", description = "User creation")
     public User createUser(User user) {
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        cache(saved);
+        usernameIndex.add(saved.getId(), saved.getUsername());
+        return saved;
     }
-    
+
     @Override
+    @Timed(value = "numbermaze.user.lookup", extraTags = {"by", "id"}, description = "User lookups")
     public Optional<User> getUserById(Long id) {
-        return userRepository.findById(id);
+        if (id == null) {
+            return Optional.empty();
+        }
+        User cached = usersById.getIfPresent(id);
+        if (cached != null) {
+            return Optional.of(copy(cached));
+        }
+        // Misses are not cached: a user created later must be found.
+        // A detached copy is returned either way, so callers never hold an entity bound to the request's session
+        Optional<User> user = userRepository.findById(id);
+        user.ifPresent(this::cache);
+        return user.map(UserServiceImpl::copy);
+    }
+
+    @Override
+    @Timed(value = "numbermaze.user.lookup", extraTags = {"by", "ids"}, description = "User lookups")
+    public Map<Long, User> getUsersById(Collection<Long> ids) {
+        Map<Long, User> users = new HashMap<>(ids.size() * 2);
+        List<Long> misses = new ArrayList<>();
+        for (Long id : ids) {
+            User cached = id == null ? null : usersById.getIfPresent(id);
+            if (cached != null) {
+                users.put(id, copy(cached));
+            } else if (id != null) {
+                misses.add(id);
+            }
+        }
+        if (!misses.isEmpty()) {
+            for (User user : userRepository.findAllById(misses)) {
+                cache(user);
+                users.put(user.getId(), user);
+            }
+        }
+        return users;
     }
-    
+
     @Override
+    @Timed(value = "numbermaze.user.lookup", extraTags = {"by", "username"}, description = "User lookups")
     public Optional<User> getUserByUsername(String username) {
-        return userRepository.findByUsername(username);
+        Long id = username == null ? null : idsByUsername.getIfPresent(username);
+        User cached = id == null ? null : usersById.getIfPresent(id);
+        if (cached != null && username.equals(cached.getUsername())) {
+            return Optional.of(copy(cached));
+        }
+        Optional<User> user = userRepository.findByUsername(username);
+        user.ifPresent(this::cache);
+        return user;
     }
-    
+
     @Override
     public User updateUser(User user) {
-        return userRepository.save(user);
+        // The old name has to leave the prefix index, so read it from the database on a cache miss
+        User previous = user.getId() == null ? null : usersById.getIfPresent(user.getId());
+        if (previous == null && user.getId() != null) {
+            previous = userRepository.findById(user.getId()).orElse(null);
+        }
+        if (previous != null) {
+            idsByUsername.invalidate(previous.getUsername());
+        }
+        usersById.invalidate(user.getId());
+        User saved = userRepository.save(user);
+        cache(saved);
+        boolean renamed = previous != null && !Objects.equals(previous.getUsername(), saved.getUsername());
+        if (renamed) {
+            usernameIndex.remove(previous.getId(), previous.getUsername());
+        }
+        usernameIndex.add(saved.getId(), saved.getUsername());
+        if (renamed) {
+            eventPublisher.publishEvent(new UserRenamedEvent(saved.getId(), saved.getUsername()));
+        }
+        return saved;
+    }
+
+    @Override
+    @Timed(value = "numbermaze.user.list", description = "Listing users by page")
+    public List<User> getUsersPage(Long afterId, int size) {
+        return userRepository.findByIdGreaterThanOrderByIdAsc(afterId == null ? 0L : afterId, PageRequest.of(0, size));
     }
-    
+
     @Override
-    public List<User> getAllUsers() {
-        return userRepository.findAll();
+    @Timed(value = "numbermaze.user.search", description = "Username prefix search")
+    public List<UserDTO> searchUsers(String prefix, int limit) {
+        return usernameIndex.search(prefix, limit);
+    }
+
+    private void cache(User user) {
+        User copy = copy(user);
+        usersById.put(copy.getId(), copy);
+        if (copy.getUsername() != null) {
+            idsByUsername.put(copy.getUsername(), copy.getId());
+        }
+    }
+
+    private static User copy(User user) {
+        User copy = new User();
+        copy.setId(user.getId());
+        copy.setUsername(user.getUsername());
+        copy.setEmail(user.getEmail());
+        copy.setCreatedAt(user.getCreatedAt());
+        return copy;
     }
 }
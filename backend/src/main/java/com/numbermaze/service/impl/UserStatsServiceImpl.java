@@ -0,0 +1,129 @@
+package com.numbermaze.service.impl;
+
+import com.numbermaze.model.Score;
+import com.numbermaze.model.UserStats;
+import com.numbermaze.repository.UserRepository;
+import com.numbermaze.repository.UserStatsRepository;
+import com.numbermaze.service.UserStatsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 按 (用户, 难度等级) 汇总的统计：在写入分数的同一事务中更新，分数和统计一起提交或回滚
+ */
+@Service
+public class UserStatsServiceImpl implements UserStatsService {
+    
+    private final UserStatsRepository userStatsRepository;
+    private final UserRepository userRepository;
+    
+    @Autowired
+    public UserStatsServiceImpl(UserStatsRepository userStatsRepository, UserRepository userRepository) {
+        this.userStatsRepository = userStatsRepository;
+        this.userRepository = userRepository;
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Score score) {
+        recordAll(Collections.singletonList(score));
+    }
+    
+    // Fold the batch per (user, level) first so each stats row is written once. The user rows are locked
+    // before the stats rows are read, so a missing row is created by one transaction only
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordAll(List<Score> scores) {
+        Map<Long, Map<Integer, Delta>> deltas = new TreeMap<>();
+        for (Score score : scores) {
+            if (score.getUser() == null || score.getUser().getId() == null
+                    || score.getLevel() == null || score.getScore() == null) {
+                continue;
+            }
+            deltas.computeIfAbsent(score.getUser().getId(), k -> new HashMap<>())
+                    .computeIfAbsent(score.getLevel(), k -> new Delta())
+                    .add(score);
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+        userRepository.findByIdInOrderByIdAsc(deltas.keySet());
+        deltas.forEach((userId, byLevel) -> byLevel.forEach((level, delta) -> merge(userId, level, delta)));
+    }
+    
+    @Override
+    public List<UserStats> getUserStats(Long userId) {
+        return userStatsRepository.findByUserIdOrderByLevel(userId);
+    }
+    
+    @Override
+    public List<UserStats> getAllBestScores() {
+        return userStatsRepository.findByBestScoreIsNotNull();
+    }
+    
+    @Override
+    @Transactional
+    public void deleteAll() {
+        userStatsRepository.deleteAllInBatch();
+    }
+    
+    private void merge(Long userId, Integer level, Delta delta) {
+        UserStats stats = userStatsRepository.findByUserIdAndLevel(userId, level)
+                .orElseGet(() -> new UserStats(userId, level));
+        delta.applyTo(stats);
+        userStatsRepository.save(stats);
+    }
+    
+    /**
+     * 同一用户同一难度的一批分数的汇总
+     */
+    private static final class Delta {
+        private long count;
+        private long scoreSum;
+        private Integer bestScore;
+        private Integer bestTime;
+        private Integer fewestSteps;
+        private LocalDateTime lastPlayed;
+        
+        void add(Score score) {
+            count++;
+            scoreSum += score.getScore();
+            bestScore = max(bestScore, score.getScore());
+            bestTime = min(bestTime, score.getTime());
+            fewestSteps = min(fewestSteps, score.getSteps());
+            if (score.getTimestamp() != null && (lastPlayed == null || score.getTimestamp().isAfter(lastPlayed))) {
+                lastPlayed = score.getTimestamp();
+            }
+        }
+        
+        void applyTo(UserStats stats) {
+            long total = stats.getPlayCount() + count;
+            // Running mean: shift the old mean by this batch's deviation from it
+            stats.setMeanScore(stats.getMeanScore() + (scoreSum - count * stats.getMeanScore()) / total);
+            stats.setPlayCount(total);
+            stats.setBestScore(max(stats.getBestScore(), bestScore));
+            stats.setBestTime(min(stats.getBestTime(), bestTime));
+            stats.setFewestSteps(min(stats.getFewestSteps(), fewestSteps));
+            if (lastPlayed != null && (stats.getLastPlayed() == null || lastPlayed.isAfter(stats.getLastPlayed()))) {
+                stats.setLastPlayed(lastPlayed);
+            }
+        }
+        
+        private static Integer max(Integer a, Integer b) {
+            return a == null ? b : b == null ? a : Math.max(a, b);
+        }
+        
+        private static Integer min(Integer a, Integer b) {
+            return a == null ? b : b == null ? a : Math.min(a, b);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.numbermaze.user;
+
+/**
+ * 用户改名后发布（用户已保存），内存中保存了用户名副本的组件据此刷新
+ */
+public final class UserRenamedEvent {
+
+    private final Long userId;
+    private final String username;
+
+    public UserRenamedEvent(Long userId, String username) {
+        this.userId = userId;
+        this.username = username;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+}
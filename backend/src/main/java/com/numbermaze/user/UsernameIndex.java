@@ -0,0 +1,261 @@
+package com.numbermaze.user;
+
+import com.numbermaze.dto.UserDTO;
+import com.numbermaze.model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * 用户名前缀索引（不区分大小写）：全部用户名按 (小写用户名, ID) 排好序存放在三个数组中，
+ * 前缀查询二分定位后顺序读取前K条；新建和改名先记在一个小的跳表中，查询时与数组归并，
+ * 积累到一定数量后合并进新的数组
+ */
+@Component
+public class UsernameIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(UsernameIndex.class);
+    // Pending changes folded into the arrays once the delta reaches this size
+    private static final int DELTA_LIMIT = 4096;
+    // The name breaks ties so that a case-only rename is a removal plus a distinct addition
+    private static final Comparator<Entry> ORDER = Comparator
+            .comparing((Entry e) -> e.key)
+            .thenComparingLong(e -> e.id)
+            .thenComparing(e -> e.name);
+
+    // Readers take one consistent (base, delta) pair; writers are serialized on this object
+    private volatile State state = new State(Base.EMPTY);
+    private volatile boolean ready;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        State current = state;
+        int size = current.base.size();
+        for (Boolean added : current.delta.values()) {
+            size += added ? 1 : -1;
+        }
+        return size;
+    }
+
+    /**
+     * 用数据库中的全部用户预热；预热期间的新建和改名已记录在跳表中，合并时以它们为准
+     */
+    public synchronized void warm(Collection<User> users) {
+        List<Entry> entries = new ArrayList<>(users.size());
+        for (User user : users) {
+            if (user.getUsername() != null) {
+                entries.add(new Entry(user.getId(), user.getUsername()));
+            }
+        }
+        state = new State(state.merge(entries));
+        ready = true;
+        logger.info("用户名索引预热完成: {} 个用户", state.base.size());
+    }
+
+    public synchronized void add(Long id, String username) {
+        if (id == null || username == null) {
+            return;
+        }
+        Entry entry = new Entry(id, username);
+        if (state.base.contains(entry)) {
+            state.delta.remove(entry);
+        } else {
+            state.delta.put(entry, Boolean.TRUE);
+        }
+        compactIfNeeded();
+    }
+
+    public synchronized void remove(Long id, String username) {
+        if (id == null || username == null) {
+            return;
+        }
+        Entry entry = new Entry(id, username);
+        // Before warm-up the base is empty but the warm-up load may still bring the old name back
+        if (!ready || state.base.contains(entry)) {
+            state.delta.put(entry, Boolean.FALSE);
+        } else {
+            state.delta.remove(entry);
+        }
+        compactIfNeeded();
+    }
+
+    /**
+     * 返回用户名以 prefix 开头（不区分大小写）的前 limit 个用户，按用户名排序；
+     * 预热完成前抛出 IllegalStateException
+     */
+    public List<UserDTO> search(String prefix, int limit) {
+        if (!ready) {
+            throw new IllegalStateException("用户名索引尚未预热完成");
+        }
+        State current = state;
+        String key = normalize(prefix);
+        List<UserDTO> matches = new ArrayList<>(Math.min(limit, 64));
+        int i = current.base.lowerBound(key);
+        Iterator<Map.Entry<Entry, Boolean>> pending = current.delta.tailMap(new Entry(Long.MIN_VALUE, key, key)).entrySet().iterator();
+        Map.Entry<Entry, Boolean> next = advance(pending, key);
+        while (matches.size() < limit) {
+            Entry fromBase = i < current.base.size() && current.base.keys[i].startsWith(key) ? current.base.get(i) : null;
+            if (fromBase == null && next == null) {
+                break;
+            }
+            if (next != null && (fromBase == null || ORDER.compare(next.getKey(), fromBase) <= 0)) {
+                if (fromBase != null && ORDER.compare(next.getKey(), fromBase) == 0) {
+                    i++;
+                }
+                // Removed base entries only shadow the base; they are never returned
+                if (next.getValue()) {
+                    matches.add(next.getKey().toDTO());
+                }
+                next = advance(pending, key);
+            } else {
+                matches.add(fromBase.toDTO());
+                i++;
+            }
+        }
+        return matches;
+    }
+
+    private static Map.Entry<Entry, Boolean> advance(Iterator<Map.Entry<Entry, Boolean>> pending, String key) {
+        if (!pending.hasNext()) {
+            return null;
+        }
+        Map.Entry<Entry, Boolean> next = pending.next();
+        return next.getKey().key.startsWith(key) ? next : null;
+    }
+
+    private void compactIfNeeded() {
+        if (state.delta.size() >= DELTA_LIMIT) {
+            state = new State(state.merge(new ArrayList<>()));
+        }
+    }
+
+    private static String normalize(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+
+    private static final class State {
+        private final Base base;
+        private final ConcurrentNavigableMap<Entry, Boolean> delta = new ConcurrentSkipListMap<>(ORDER);
+
+        State(Base base) {
+            this.base = base;
+        }
+
+        // New arrays holding base + extra + pending additions, minus pending removals
+        Base merge(List<Entry> extra) {
+            for (int i = 0; i < base.size(); i++) {
+                extra.add(base.get(i));
+            }
+            delta.forEach((entry, added) -> {
+                if (added) {
+                    extra.add(entry);
+                }
+            });
+            extra.sort(ORDER);
+            List<Entry> kept = new ArrayList<>(extra.size());
+            for (Entry entry : extra) {
+                boolean duplicate = !kept.isEmpty() && ORDER.compare(kept.get(kept.size() - 1), entry) == 0;
+                if (!duplicate && !Boolean.FALSE.equals(delta.get(entry))) {
+                    kept.add(entry);
+                }
+            }
+            return Base.of(kept);
+        }
+    }
+
+    /**
+     * 排好序的用户名数组；用户名本身是小写时 keys 和 names 共用同一个字符串
+     */
+    private static final class Base {
+        private static final Base EMPTY = new Base(new String[0], new long[0], new String[0]);
+
+        private final String[] keys;
+        private final long[] ids;
+        private final String[] names;
+
+        Base(String[] keys, long[] ids, String[] names) {
+            this.keys = keys;
+            this.ids = ids;
+            this.names = names;
+        }
+
+        static Base of(List<Entry> entries) {
+            String[] keys = new String[entries.size()];
+            long[] ids = new long[entries.size()];
+            String[] names = new String[entries.size()];
+            for (int i = 0; i < entries.size(); i++) {
+                Entry entry = entries.get(i);
+                keys[i] = entry.key;
+                ids[i] = entry.id;
+                names[i] = entry.name;
+            }
+            return new Base(keys, ids, names);
+        }
+
+        int size() {
+            return keys.length;
+        }
+
+        Entry get(int i) {
+            return new Entry(ids[i], keys[i], names[i]);
+        }
+
+        // First position whose key is >= key
+        int lowerBound(String key) {
+            int index = Arrays.binarySearch(keys, key);
+            if (index < 0) {
+                return -index - 1;
+            }
+            while (index > 0 && keys[index - 1].equals(key)) {
+                index--;
+            }
+            return index;
+        }
+
+        boolean contains(Entry entry) {
+            for (int i = lowerBound(entry.key); i < keys.length && keys[i].equals(entry.key); i++) {
+                if (ids[i] == entry.id && names[i].equals(entry.name)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static final class Entry {
+        private final long id;
+        private final String key;
+        private final String name;
+
+        Entry(long id, String name) {
+            this(id, normalize(name), name);
+        }
+
+        Entry(long id, String key, String name) {
+            this.id = id;
+            this.key = key.equals(name) ? name : key;
+            this.name = name;
+        }
+
+        UserDTO toDTO() {
+            UserDTO dto = new UserDTO();
+            dto.setId(id);
+            dto.setUsername(name);
+            return dto;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package db.migration;
+
+import com.numbermaze.model.Score;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * 将score_seq对齐到已有数据之后，避免从自增主键切换到序列主键后发生ID冲突
+ */
+public class V3__Align_score_sequence extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        try (Statement statement = context.getConnection().createStatement()) {
+            long maxId;
+            try (ResultSet rs = statement.executeQuery("SELECT COALESCE(MAX(id), 0) FROM score")) {
+                rs.next();
+                maxId = rs.getLong(1);
+            }
+            if (maxId == 0) {
+                return;
+            }
+            // The pooled optimizer hands out (value - allocationSize, value], so leave a full block of headroom
+            long restartWith = maxId + Score.ID_ALLOCATION_SIZE + 1;
+            statement.execute("ALTER SEQUENCE score_seq RESTART WITH " + restartWith);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+-- Score timestamps used to be the server's local wall-clock time, and V7 encoded that as if it were UTC.
+-- Reinterpret every stored value in the session time zone (the JVM default, the zone that wrote the rows)
+-- so that score.timestamp holds real UTC epoch millis from now on.
+UPDATE score SET timestamp = CAST(EXTRACT(EPOCH FROM CAST(
+        DATEADD('MILLISECOND', timestamp, TIMESTAMP '1970-01-01 00:00:00') AS TIMESTAMP WITH TIME ZONE)) * 1000 AS BIGINT)
+WHERE timestamp IS NOT NULL;
+
+-- last_played is copied from score timestamps, so it moves from local time to UTC wall-clock time as well.
+UPDATE user_stats SET last_played = DATEADD('MILLISECOND',
+        CAST(EXTRACT(EPOCH FROM CAST(last_played AS TIMESTAMP WITH TIME ZONE)) * 1000 AS BIGINT),
+        TIMESTAMP '1970-01-01 00:00:00')
+WHERE last_played IS NOT NULL;
@@ -0,0 +1,21 @@
+-- Schema as previously generated by hibernate.ddl-auto=update.
+-- Existing databases are baselined at version 1 and skip this script.
+CREATE TABLE IF NOT EXISTS user (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    username VARCHAR(255),
+    email VARCHAR(255),
+    created_at TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS score (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_id BIGINT,
+    score INTEGER,
+    level INTEGER,
+    time INTEGER,
+    steps INTEGER,
+    player_name VARCHAR(255),
+    score_value INTEGER,
+    timestamp TIMESTAMP,
+    CONSTRAINT fk_score_user FOREIGN KEY (user_id) REFERENCES user (id)
+);
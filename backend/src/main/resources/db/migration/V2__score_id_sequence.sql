@@ -0,0 +1,2 @@
+-- Score ids come from a pooled sequence (allocationSize 50) so inserts can be batched.
+CREATE SEQUENCE IF NOT EXISTS score_seq START WITH 1 INCREMENT BY 50;
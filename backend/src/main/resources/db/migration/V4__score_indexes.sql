@@ -0,0 +1,10 @@
+-- Composite indexes matching the ScoreRepository access paths.
+-- Leaderboards: ORDER BY score DESC, optionally filtered by level.
+CREATE INDEX IF NOT EXISTS idx_score_score ON score (score DESC);
+CREATE INDEX IF NOT EXISTS idx_score_level_score ON score (level, score DESC);
+
+-- Per-user and per-player history.
+CREATE INDEX IF NOT EXISTS idx_score_user_score ON score (user_id, score DESC);
+CREATE INDEX IF NOT EXISTS idx_score_player_score_value ON score (player_name, score_value DESC);
+
+CREATE INDEX IF NOT EXISTS idx_user_username ON user (username);
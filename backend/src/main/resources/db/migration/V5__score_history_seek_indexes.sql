@@ -0,0 +1,7 @@
+-- Keyset pagination of score history seeks on (score, id); include id so the
+-- tiebreak is served from the index instead of a sort.
+DROP INDEX IF EXISTS idx_score_user_score;
+CREATE INDEX idx_score_user_score ON score (user_id, score DESC, id DESC);
+
+DROP INDEX IF EXISTS idx_score_player_score_value;
+CREATE INDEX idx_score_player_score_value ON score (player_name, score_value DESC, id DESC);
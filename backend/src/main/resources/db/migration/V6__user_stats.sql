@@ -0,0 +1,21 @@
+-- Per (user, level) aggregates maintained on every score save.
+CREATE TABLE user_stats (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    level INTEGER NOT NULL,
+    play_count BIGINT NOT NULL,
+    best_score INTEGER,
+    best_time INTEGER,
+    fewest_steps INTEGER,
+    mean_score DOUBLE NOT NULL,
+    last_played TIMESTAMP,
+    CONSTRAINT uk_user_stats_user_level UNIQUE (user_id, level),
+    CONSTRAINT fk_user_stats_user FOREIGN KEY (user_id) REFERENCES user (id)
+);
+
+-- Backfill from the existing score history.
+INSERT INTO user_stats (user_id, level, play_count, best_score, best_time, fewest_steps, mean_score, last_played)
+SELECT user_id, level, COUNT(*), MAX(score), MIN(time), MIN(steps), AVG(CAST(score AS DOUBLE)), MAX(timestamp)
+FROM score
+WHERE user_id IS NOT NULL AND level IS NOT NULL AND score IS NOT NULL
+GROUP BY user_id, level;
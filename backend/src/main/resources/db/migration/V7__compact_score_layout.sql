@@ -0,0 +1,13 @@
+-- Compact score rows: drop the copies of user.username (player_name) and score (score_value),
+-- store level as SMALLINT and the timestamp as UTC epoch millis (BIGINT) instead of a TIMESTAMP.
+-- Player history is now served through user_id and idx_score_user_score.
+DROP INDEX IF EXISTS idx_score_player_score_value;
+ALTER TABLE score DROP COLUMN player_name;
+ALTER TABLE score DROP COLUMN score_value;
+
+ALTER TABLE score ALTER COLUMN level SMALLINT;
+
+ALTER TABLE score ADD COLUMN timestamp_ms BIGINT;
+UPDATE score SET timestamp_ms = DATEDIFF('MILLISECOND', TIMESTAMP '1970-01-01 00:00:00', timestamp);
+ALTER TABLE score DROP COLUMN timestamp;
+ALTER TABLE score ALTER COLUMN timestamp_ms RENAME TO timestamp;
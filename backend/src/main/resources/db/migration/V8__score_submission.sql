@@ -0,0 +1,6 @@
+-- Idempotency keys of scores uploaded through POST /api/scores/batch.
+-- A retried upload looks its keys up here and skips the scores that were already stored.
+CREATE TABLE score_submission (
+    submission_key VARCHAR(64) PRIMARY KEY,
+    score_id BIGINT NOT NULL
+);
@@ -0,0 +1,3 @@
+-- Batch uploads insert their keys before the scores are stored and fill in score_id afterwards,
+-- so a key taken by a concurrent upload fails before the score-log store appends anything.
+ALTER TABLE score_submission ALTER COLUMN score_id SET NULL;
@@ -0,0 +1,48 @@
+package com.numbermaze.admission;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdmissionControlTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void readAndWriteBudgetsAreSeparateAndSuggestARetryInWholeSeconds() {
+        AdmissionControl control = new AdmissionControl(registry, 10, true, 1024, 1, 2, 0.1, 1);
+
+        assertThat(control.acquire("ip:1", true)).isZero();
+        // Next write token in 10s
+        assertThat(control.acquire("ip:1", true)).isEqualTo(10);
+        assertThat(control.acquire("ip:1", false)).isZero();
+        assertThat(control.acquire("ip:1", false)).isZero();
+        assertThat(control.acquire("ip:1", false)).isEqualTo(1);
+
+        assertThat(registry.get("numbermaze.admission.rejected").tag("budget", "write").counter().count()).isEqualTo(1);
+        assertThat(registry.get("numbermaze.admission.rejected").tag("budget", "read").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void disabledRateLimitingAdmitsEverything() {
+        AdmissionControl control = new AdmissionControl(registry, 10, false, 1024, 1, 1, 1, 1);
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(control.acquire("ip:1", true)).isZero();
+        }
+    }
+
+    @Test
+    void shedsRequestsBeyondTheInFlightLimit() {
+        AdmissionControl control = new AdmissionControl(registry, 2, true, 1024, 1, 1, 1, 1);
+
+        assertThat(control.enter()).isTrue();
+        assertThat(control.enter()).isTrue();
+        assertThat(control.enter()).isFalse();
+
+        control.exit();
+        assertThat(control.enter()).isTrue();
+        assertThat(registry.get("numbermaze.admission.in_flight").gauge().value()).isEqualTo(2);
+    }
+}
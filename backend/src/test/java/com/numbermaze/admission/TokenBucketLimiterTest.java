@@ -0,0 +1,87 @@
+package com.numbermaze.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TokenBucketLimiterTest {
+
+    private static final long INTERVAL = TimeUnit.MILLISECONDS.toNanos(200);
+
+    // Starts away from zero so nothing depends on the clock's origin
+    private final AtomicLong clock = new AtomicLong(123_456_789L);
+    // 5 per second, bursts of 3
+    private final TokenBucketLimiter limiter = new TokenBucketLimiter(5, 3, 1024, clock::get);
+
+    @Test
+    void allowsAFullBurstThenReportsTheWait() {
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.tryAcquire("client")).isZero();
+        }
+
+        assertThat(limiter.tryAcquire("client")).isEqualTo(INTERVAL);
+    }
+
+    @Test
+    void refillsOneTokenPerInterval() {
+        drain("client");
+
+        clock.addAndGet(INTERVAL - 1);
+        assertThat(limiter.tryAcquire("client")).isEqualTo(1);
+
+        clock.addAndGet(1);
+        assertThat(limiter.tryAcquire("client")).isZero();
+        assertThat(limiter.tryAcquire("client")).isEqualTo(INTERVAL);
+    }
+
+    @Test
+    void anIdleClientGetsNoMoreThanOneBurst() {
+        drain("client");
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(60));
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.tryAcquire("client")).isZero();
+        }
+        assertThat(limiter.tryAcquire("client")).isPositive();
+    }
+
+    @Test
+    void rejectedCallsDoNotConsumeTokens() {
+        drain("client");
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire("client");
+        }
+
+        clock.addAndGet(INTERVAL);
+
+        assertThat(limiter.tryAcquire("client")).isZero();
+    }
+
+    @Test
+    void clientsHaveSeparateBucketsUnlessTheyShareAStripe() {
+        drain("alice");
+        assertThat(limiter.tryAcquire("bob")).isZero();
+
+        TokenBucketLimiter shared = new TokenBucketLimiter(5, 1, 1, clock::get);
+        assertThat(shared.tryAcquire("alice")).isZero();
+        assertThat(shared.tryAcquire("bob")).isPositive();
+    }
+
+    @Test
+    void rejectsInvalidSettings() {
+        assertThatThrownBy(() -> new TokenBucketLimiter(0, 1, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TokenBucketLimiter(1, 0, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TokenBucketLimiter(1, 1, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void drain(String key) {
+        while (limiter.tryAcquire(key) == 0) {
+            // take the whole burst
+        }
+    }
+}
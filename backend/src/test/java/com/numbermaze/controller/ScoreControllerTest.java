@@ -0,0 +1,294 @@
+package com.numbermaze.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.numbermaze.admission.AdmissionControl;
+import com.numbermaze.leaderboard.LeaderboardBroadcaster;
+import com.numbermaze.model.Score;
+import com.numbermaze.model.User;
+import com.numbermaze.puzzle.IssuedPuzzle;
+import com.numbermaze.puzzle.PuzzleLevel;
+import com.numbermaze.puzzle.PuzzlePool;
+import com.numbermaze.service.ScoreService;
+import com.numbermaze.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+class ScoreControllerTest {
+
+    private static final long USER_ID = 7L;
+
+    @Mock
+    private ScoreService scoreService;
+    @Mock
+    private UserService userService;
+    @Mock
+    private LeaderboardBroadcaster leaderboardBroadcaster;
+    @Mock
+    private AdmissionControl admissionControl;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    // A real pool that is never started: take() generates each puzzle on the spot
+    private final PuzzlePool puzzlePool = new PuzzlePool(1, 1_000L, 100);
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        ScoreController controller = new ScoreController(scoreService, userService, Optional.empty(), puzzlePool,
+                leaderboardBroadcaster, admissionControl, objectMapper, true, 200, 10_000, 1_000);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+
+        User user = new User();
+        user.setId(USER_ID);
+        user.setUsername("alice");
+        lenient().when(userService.getUserById(USER_ID)).thenReturn(Optional.of(user));
+        lenient().when(userService.getUsersById(anySet())).thenReturn(Collections.singletonMap(USER_ID, user));
+        lenient().when(scoreService.saveScore(any(Score.class))).thenAnswer(invocation -> {
+            Score score = invocation.getArgument(0);
+            score.setId(1L);
+            return score;
+        });
+    }
+
+    @Test
+    void rejectsAScoreWithoutAPuzzle() throws Exception {
+        postScore(score(null, null)).andExpect(status().isBadRequest());
+
+        verify(scoreService, never()).saveScore(any());
+    }
+
+    @Test
+    void rejectsAWrongSolution() throws Exception {
+        IssuedPuzzle issued = puzzlePool.take(PuzzleLevel.MEDIUM, USER_ID);
+        int[] wrong = issued.getPuzzle().getSolution();
+        int last = wrong.length - 1;
+        wrong[last] = wrong[0];
+
+        postScore(score(issued.getId(), wrong)).andExpect(status().isBadRequest());
+
+        verify(scoreService, never()).saveScore(any());
+        // A rejected answer does not use up the puzzle
+        assertThat(issued.isSpent()).isFalse();
+    }
+
+    @Test
+    void rejectsAnUnknownPuzzleOrOneIssuedToAnotherUser() throws Exception {
+        IssuedPuzzle other = puzzlePool.take(PuzzleLevel.EASY, USER_ID + 1);
+
+        postScore(score("no-such-puzzle", other.getPuzzle().getSolution())).andExpect(status().isBadRequest());
+        postScore(score(other.getId(), other.getPuzzle().getSolution())).andExpect(status().isBadRequest());
+
+        verify(scoreService, never()).saveScore(any());
+    }
+
+    @Test
+    void storesAVerifiedScoreOnceAndRejectsTheReplay() throws Exception {
+        IssuedPuzzle issued = puzzlePool.take(PuzzleLevel.MEDIUM, USER_ID);
+        Map<String, Object> solved = score(issued.getId(), issued.getPuzzle().getSolution());
+
+        postScore(solved).andExpect(status().isCreated());
+        postScore(solved).andExpect(status().isBadRequest());
+
+        ArgumentCaptor<Score> saved = ArgumentCaptor.forClass(Score.class);
+        verify(scoreService, times(1)).saveScore(saved.capture());
+        // Level and score come from the puzzle, not from the claimed values
+        assertThat(saved.getValue().getLevel()).isEqualTo(PuzzleLevel.MEDIUM.getLevel());
+        assertThat(saved.getValue().getScore()).isLessThanOrEqualTo(PuzzleLevel.MEDIUM.getLevel() * 1000);
+        assertThat(saved.getValue().getSteps()).isGreaterThanOrEqualTo(issued.getPuzzle().hiddenCount());
+    }
+
+    @Test
+    void givesThePuzzleBackWhenTheScoreIsNotStored() throws Exception {
+        IssuedPuzzle issued = puzzlePool.take(PuzzleLevel.EASY, USER_ID);
+        Map<String, Object> solved = score(issued.getId(), issued.getPuzzle().getSolution());
+        when(scoreService.saveScore(any(Score.class)))
+                .thenThrow(new IllegalStateException("database down"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        postScore(solved).andExpect(status().isInternalServerError());
+        assertThat(issued.isSpent()).isFalse();
+
+        postScore(solved).andExpect(status().isCreated());
+        assertThat(issued.isSpent()).isTrue();
+    }
+
+    @Test
+    void answersAMatchingIfNoneMatchOnTheBoardWith304() throws Exception {
+        when(scoreService.getTopScoresVersion(null, 10)).thenReturn(OptionalLong.of(42));
+        when(scoreService.getTopScores(10)).thenReturn(Collections.emptyList());
+
+        mockMvc.perform(get("/api/scores/top"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "W/\"42\""));
+        // Strong and weak forms both match, as does a list containing the tag
+        mockMvc.perform(get("/api/scores/top").header("If-None-Match", "\"42\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "W/\"42\""));
+        mockMvc.perform(get("/api/scores/top").header("If-None-Match", "W/\"41\", W/\"42\""))
+                .andExpect(status().isNotModified());
+
+        verify(scoreService, times(1)).getTopScores(10);
+    }
+
+    @Test
+    void servesTheBoardAgainOnceItsVersionMoves() throws Exception {
+        when(scoreService.getTopScoresVersion(null, 10)).thenReturn(OptionalLong.of(43));
+        when(scoreService.getTopScores(10)).thenReturn(Collections.emptyList());
+
+        mockMvc.perform(get("/api/scores/top").header("If-None-Match", "W/\"42\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "W/\"43\""));
+    }
+
+    @Test
+    void sendsNoEtagForABoardReadFromTheStore() throws Exception {
+        when(scoreService.getTopScoresVersion(null, 10)).thenReturn(OptionalLong.empty());
+        when(scoreService.getTopScores(10)).thenReturn(Collections.emptyList());
+
+        mockMvc.perform(get("/api/scores/top").header("If-None-Match", "*"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("ETag"));
+    }
+
+    @Test
+    void answersAMatchingIfNoneMatchOnAUserHistoryWith304() throws Exception {
+        when(scoreService.getUserScoresVersion(USER_ID)).thenReturn(5L);
+
+        mockMvc.perform(get("/api/scores/user/" + USER_ID).header("If-None-Match", "W/\"5\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "W/\"5\""));
+
+        verify(scoreService, never()).getUserScores(eq(USER_ID), isNull(), anyInt());
+    }
+
+    @Test
+    void doesNotTurnAMissingUserInto304() throws Exception {
+        mockMvc.perform(get("/api/scores/user/" + (USER_ID + 1)).header("If-None-Match", "*"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void reportsARetriedBatchAsDuplicates() throws Exception {
+        IssuedPuzzle first = puzzlePool.take(PuzzleLevel.EASY, USER_ID);
+        IssuedPuzzle second = puzzlePool.take(PuzzleLevel.EASY, USER_ID);
+        List<Map<String, Object>> batch = Arrays.asList(
+                keyed(score(first.getId(), first.getPuzzle().getSolution()), "k1"),
+                keyed(score(second.getId(), second.getPuzzle().getSolution()), "k2"));
+        when(scoreService.saveScoresOnce(anyList(), anyList()))
+                .thenReturn(Collections.emptyMap())
+                // The retry finds k1 stored; k2 was lost with the first response
+                .thenReturn(Collections.singletonMap("k1", 11L));
+
+        postBatch(batch)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(2));
+        // The same keys may present their puzzles again
+        postBatch(batch)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.duplicates").value(1))
+                .andExpect(jsonPath("$.items[0].status").value("DUPLICATE"))
+                .andExpect(jsonPath("$.items[0].id").value(11))
+                .andExpect(jsonPath("$.items[1].status").value("CREATED"));
+    }
+
+    @Test
+    void rejectsAKeyRepeatedWithinABatch() throws Exception {
+        IssuedPuzzle first = puzzlePool.take(PuzzleLevel.EASY, USER_ID);
+        IssuedPuzzle second = puzzlePool.take(PuzzleLevel.EASY, USER_ID);
+        when(scoreService.saveScoresOnce(anyList(), anyList())).thenReturn(Collections.emptyMap());
+
+        postBatch(Arrays.asList(
+                keyed(score(first.getId(), first.getPuzzle().getSolution()), "k1"),
+                keyed(score(second.getId(), second.getPuzzle().getSolution()), "k1")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.items[1].status").value("REJECTED"));
+        // The rejected item never claimed its puzzle
+        assertThat(second.isSpent()).isFalse();
+    }
+
+    @Test
+    void rejectsAPuzzleResubmittedUnderAnotherKey() throws Exception {
+        IssuedPuzzle issued = puzzlePool.take(PuzzleLevel.EASY, USER_ID);
+        Map<String, Object> solved = score(issued.getId(), issued.getPuzzle().getSolution());
+        when(scoreService.saveScoresOnce(anyList(), anyList())).thenReturn(Collections.emptyMap());
+
+        postBatch(Collections.singletonList(keyed(solved, "k1")))
+                .andExpect(jsonPath("$.created").value(1));
+        postBatch(Collections.singletonList(keyed(solved, "k2")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.items[0].status").value("REJECTED"));
+
+        verify(scoreService, times(1)).saveScoresOnce(anyList(), anyList());
+    }
+
+    private ResultActions postBatch(List<Map<String, Object>> scores) throws Exception {
+        return mockMvc.perform(post("/api/scores/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(scores)));
+    }
+
+    private ResultActions postScore(Map<String, Object> score) throws Exception {
+        return mockMvc.perform(post("/api/scores")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(score)));
+    }
+
+    // puzzleId and solution are request-only on ScoreDTO, so the body is built as a map
+    private static Map<String, Object> score(String puzzleId, int[] solution) {
+        Map<String, Object> user = new HashMap<>();
+        user.put("id", USER_ID);
+        Map<String, Object> score = new HashMap<>();
+        score.put("user", user);
+        score.put("score", 999_999);
+        score.put("level", PuzzleLevel.EASY.getLevel());
+        score.put("time", 1);
+        score.put("steps", 1);
+        score.put("puzzleId", puzzleId);
+        score.put("solution", solution);
+        return score;
+    }
+
+    private static Map<String, Object> keyed(Map<String, Object> score, String submissionKey) {
+        Map<String, Object> copy = new HashMap<>(score);
+        copy.put("submissionKey", submissionKey);
+        return copy;
+    }
+}
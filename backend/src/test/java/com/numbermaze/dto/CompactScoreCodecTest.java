@@ -0,0 +1,122 @@
+package com.numbermaze.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompactScoreCodecTest {
+
+    @Test
+    void roundTripsALeaderboard() throws IOException {
+        List<ScoreDTO> scores = Arrays.asList(
+                score(10L, 1L, "alice", 980, 3, 45, 30),
+                score(11L, 2L, "bob", 975, 3, 50, 31),
+                score(7L, 1L, "alice", 970, 2, 60, 33));
+
+        assertThat(roundTrip(scores)).isEqualTo(scores);
+    }
+
+    @Test
+    void keepsNullsInEveryNullableField() throws IOException {
+        ScoreDTO noUser = score(1L, null, null, 500, 1, 10, 5);
+        ScoreDTO noUsername = score(2L, 3L, null, 400, 1, 10, 5);
+        // A null between values must not shift the deltas that follow it
+        ScoreDTO blank = score(null, 4L, "dora", null, null, null, null);
+        ScoreDTO after = score(3L, 4L, "dora", 300, 2, 20, 6);
+        List<ScoreDTO> scores = Arrays.asList(noUser, noUsername, blank, after);
+
+        assertThat(roundTrip(scores)).isEqualTo(scores);
+    }
+
+    @Test
+    void roundTripsExtremeAndNegativeValues() throws IOException {
+        List<ScoreDTO> scores = Arrays.asList(
+                score(Long.MAX_VALUE, Long.MIN_VALUE + 1, "名字", Integer.MAX_VALUE, 0, 0, 0),
+                score(1L, -1L, "", Integer.MIN_VALUE, -5, Integer.MAX_VALUE, Integer.MIN_VALUE));
+
+        assertThat(roundTrip(scores)).isEqualTo(scores);
+    }
+
+    @Test
+    void refusesTheOneValueItCannotTellFromNull() {
+        ScoreDTO unencodable = score(1L, Long.MIN_VALUE, "alice", 100, 1, 10, 5);
+
+        assertThatThrownBy(() -> encode(Collections.singletonList(unencodable))).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void writesEachUserOnce() throws IOException {
+        List<ScoreDTO> sameUser = new ArrayList<>();
+        List<ScoreDTO> distinctUsers = new ArrayList<>();
+        for (long i = 1; i <= 50; i++) {
+            sameUser.add(score(i, 1L, "a-rather-long-username", 1000, 1, 10, 5));
+            distinctUsers.add(score(i, i, "a-rather-long-username", 1000, 1, 10, 5));
+        }
+
+        List<ScoreDTO> decoded = roundTrip(sameUser);
+
+        assertThat(encode(sameUser).length).isLessThan(encode(distinctUsers).length / 3);
+        assertThat(decoded.get(0).getUser()).isSameAs(decoded.get(49).getUser());
+    }
+
+    @Test
+    void roundTripsAnEmptyList() throws IOException {
+        assertThat(roundTrip(Collections.emptyList())).isEmpty();
+    }
+
+    @Test
+    void rejectsAnotherVersionOrIncompleteData() throws IOException {
+        byte[] encoded = encode(Collections.singletonList(score(1L, 1L, "alice", 100, 1, 10, 5)));
+        byte[] otherVersion = encoded.clone();
+        otherVersion[0] = CompactScoreCodec.FORMAT_VERSION + 1;
+        byte[] truncated = Arrays.copyOf(encoded, encoded.length - 1);
+
+        assertThatThrownBy(() -> decode(otherVersion)).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> decode(truncated)).isInstanceOf(EOFException.class);
+        assertThatThrownBy(() -> decode(new byte[0])).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void rejectsAUserReferenceOutsideTheUserTable() {
+        // Version 1, no users, one row: id 1, then user reference 1
+        byte[] encoded = {CompactScoreCodec.FORMAT_VERSION, 0, 1, 3, 1, 0, 0, 0, 0};
+
+        assertThatThrownBy(() -> decode(encoded)).isInstanceOf(IOException.class).isNotInstanceOf(EOFException.class);
+    }
+
+    private static List<ScoreDTO> roundTrip(List<ScoreDTO> scores) throws IOException {
+        return decode(encode(scores));
+    }
+
+    private static byte[] encode(List<ScoreDTO> scores) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CompactScoreCodec.encode(scores, out);
+        return out.toByteArray();
+    }
+
+    private static List<ScoreDTO> decode(byte[] bytes) throws IOException {
+        return CompactScoreCodec.decode(new ByteArrayInputStream(bytes));
+    }
+
+    private static ScoreDTO score(Long id, Long userId, String username, Integer score, Integer level,
+                                  Integer time, Integer steps) {
+        ScoreDTO dto = new ScoreDTO(id, null, null, score, level, time, steps);
+        if (userId != null || username != null) {
+            UserDTO user = new UserDTO();
+            user.setId(userId);
+            user.setUsername(username);
+            dto.setUser(user);
+        }
+        return dto;
+    }
+}
@@ -0,0 +1,97 @@
+package com.numbermaze.ingestion;
+
+import com.numbermaze.model.Score;
+import com.numbermaze.model.User;
+import com.numbermaze.service.ScoreService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ScoreWriteBehindQueueTest {
+
+    private final ScoreService scoreService = mock(ScoreService.class);
+    // Batches are cleared after each flush, so they are copied as they arrive
+    private final List<List<Integer>> batches = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    void writesQueuedScoresInBatchesAndDrainsOnShutdown() throws Exception {
+        recordBatches();
+        ScoreWriteBehindQueue queue = queue(100, 2);
+        for (int i = 1; i <= 5; i++) {
+            assertThat(queue.submit(score(i))).isTrue();
+        }
+
+        queue.start();
+        queue.shutdown();
+
+        assertThat(batches).allSatisfy(batch -> assertThat(batch).hasSizeLessThanOrEqualTo(2));
+        assertThat(batches.stream().mapToInt(List::size).sum()).isEqualTo(5);
+        assertThat(queue.getQueueDepth()).isZero();
+    }
+
+    @Test
+    void refusesScoresWhenFullOrStopped() throws Exception {
+        recordBatches();
+        ScoreWriteBehindQueue queue = queue(2, 10);
+
+        assertThat(queue.submit(score(1))).isTrue();
+        assertThat(queue.submit(score(2))).isTrue();
+        assertThat(queue.submit(score(3))).isFalse();
+
+        queue.start();
+        queue.shutdown();
+        assertThat(queue.submit(score(4))).isFalse();
+    }
+
+    @Test
+    void retriesAFailedBatchRowByRow() throws Exception {
+        when(scoreService.saveScores(anyList())).thenThrow(new IllegalStateException("constraint"));
+        when(scoreService.saveScore(any(Score.class)))
+                .thenThrow(new IllegalStateException("bad row"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        ScoreWriteBehindQueue queue = queue(10, 10);
+        queue.submit(score(1));
+        queue.submit(score(2));
+
+        queue.start();
+        queue.shutdown();
+
+        // The bad row is dropped, the other one is still written
+        verify(scoreService, times(2)).saveScore(any(Score.class));
+    }
+
+    private void recordBatches() {
+        when(scoreService.saveScores(anyList())).thenAnswer(invocation -> {
+            List<Score> batch = invocation.getArgument(0);
+            List<Integer> values = new ArrayList<>();
+            batch.forEach(score -> values.add(score.getScore()));
+            batches.add(values);
+            return batch;
+        });
+    }
+
+    private ScoreWriteBehindQueue queue(int capacity, int batchSize) {
+        return new ScoreWriteBehindQueue(scoreService, new SimpleMeterRegistry(), capacity, batchSize, 20L);
+    }
+
+    private static Score score(int value) {
+        User user = new User();
+        user.setId(7L);
+        Score score = new Score();
+        score.setUser(user);
+        score.setScore(value);
+        score.setLevel(1);
+        return score;
+    }
+}
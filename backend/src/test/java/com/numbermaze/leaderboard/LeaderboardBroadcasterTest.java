@@ -0,0 +1,132 @@
+package com.numbermaze.leaderboard;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.numbermaze.model.Score;
+import com.numbermaze.model.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+class LeaderboardBroadcasterTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private final LeaderboardIndex index = new LeaderboardIndex(3);
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private LeaderboardBroadcaster broadcaster;
+
+    @AfterEach
+    void tearDown() {
+        if (broadcaster != null) {
+            broadcaster.stop();
+        }
+    }
+
+    @Test
+    void refusesSubscribersUntilTheIndexIsWarm() {
+        broadcaster = broadcaster(10);
+
+        assertThatThrownBy(() -> broadcaster.subscribe(null, 3)).isInstanceOf(IllegalStateException.class);
+        assertThat(subscribers()).isZero();
+    }
+
+    @Test
+    void refusesSubscribersBeyondTheLimit() {
+        index.warm(Collections.emptyList(), Collections.emptyMap());
+        broadcaster = broadcaster(1);
+
+        broadcaster.subscribe(null, 3);
+
+        assertThatThrownBy(() -> broadcaster.subscribe(1, 3)).isInstanceOf(IllegalStateException.class);
+        assertThat(subscribers()).isEqualTo(1);
+    }
+
+    @Test
+    void sendsASnapshotThenOnlyTheRanksThatChanged() throws Exception {
+        index.warm(Arrays.asList(score(1, 300, 1), score(2, 200, 1)), Collections.emptyMap());
+        broadcaster = broadcaster(10);
+        broadcaster.start();
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new PushEndpoint(broadcaster)).build();
+
+        MockHttpServletResponse response = mockMvc.perform(get("/push"))
+                .andExpect(request().asyncStarted())
+                .andReturn().getResponse();
+        String snapshot = await(response, body -> body.contains("event:snapshot"));
+        assertThat(snapshot).contains("\"rank\":1").contains("\"rank\":2");
+
+        Score third = score(3, 250, 1);
+        index.offer(third);
+        broadcaster.publish(third);
+
+        String body = await(response, content -> content.contains("event:update"));
+        String update = body.substring(body.indexOf("event:update"));
+        // 250 takes rank 2 and pushes 200 to rank 3; rank 1 is unchanged
+        assertThat(update).contains("\"rank\":2").contains("\"rank\":3").doesNotContain("\"rank\":1,");
+    }
+
+    private LeaderboardBroadcaster broadcaster(int maxSubscribers) {
+        return new LeaderboardBroadcaster(index, objectMapper, registry, 10, 60_000, 60_000, maxSubscribers, 32, 1);
+    }
+
+    private double subscribers() {
+        return registry.get("numbermaze.leaderboard.subscribers").gauge().value();
+    }
+
+    // Pushes arrive on the sender thread, so poll the response body for a while
+    private static String await(MockHttpServletResponse response, Predicate<String> condition) throws Exception {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (true) {
+            String body = response.getContentAsString();
+            if (condition.test(body)) {
+                return body;
+            }
+            assertThat(System.currentTimeMillis()).as("push not received, body so far: %s", body).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    @RestController
+    static class PushEndpoint {
+        private final LeaderboardBroadcaster broadcaster;
+
+        PushEndpoint(LeaderboardBroadcaster broadcaster) {
+            this.broadcaster = broadcaster;
+        }
+
+        @GetMapping("/push")
+        SseEmitter push() {
+            return broadcaster.subscribe(null, 3);
+        }
+    }
+
+    private static Score score(long id, int value, int level) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername("user" + id);
+        Score score = new Score();
+        score.setId(id);
+        score.setUser(user);
+        score.setScore(value);
+        score.setLevel(level);
+        score.setTimestamp(T0);
+        return score;
+    }
+}
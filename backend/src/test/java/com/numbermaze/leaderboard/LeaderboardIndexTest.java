@@ -0,0 +1,109 @@
+package com.numbermaze.leaderboard;
+
+import com.numbermaze.dto.ScoreDTO;
+import com.numbermaze.model.Score;
+import com.numbermaze.model.User;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LeaderboardIndexTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private final LeaderboardIndex index = new LeaderboardIndex(3);
+
+    @Test
+    void servesOnlyAfterWarmUpAndWithinCapacity() {
+        assertThat(index.canServe(3)).isFalse();
+
+        index.warm(Collections.emptyList(), Collections.emptyMap());
+
+        assertThat(index.canServe(3)).isTrue();
+        assertThat(index.canServe(4)).isFalse();
+        assertThat(index.canServe(0)).isFalse();
+    }
+
+    @Test
+    void keepsTheBestScoresAndBreaksTiesByTimeThenId() {
+        index.offer(score(1, 100, 1, T0));
+        index.offer(score(2, 300, 1, T0));
+        index.offer(score(3, 200, 1, T0.plusMinutes(1)));
+        index.offer(score(4, 200, 1, T0));
+
+        assertThat(ids(index.getTopScores(10))).containsExactly(2L, 4L, 3L);
+        assertThat(ids(index.getTopScores(2))).containsExactly(2L, 4L);
+    }
+
+    @Test
+    void rejectsAScoreThatDoesNotBeatAFullBoard() {
+        index.offer(score(1, 300, 1, T0));
+        index.offer(score(2, 200, 1, T0));
+        index.offer(score(3, 100, 1, T0));
+        long version = index.getVersion(null);
+
+        assertThat(index.offer(score(4, 100, 1, T0.plusMinutes(1)))).isFalse();
+        assertThat(index.getVersion(null)).isEqualTo(version);
+
+        assertThat(index.offer(score(5, 150, 1, T0))).isTrue();
+        assertThat(index.getVersion(null)).isGreaterThan(version);
+        assertThat(ids(index.getTopScores(3))).containsExactly(1L, 2L, 5L);
+    }
+
+    @Test
+    void keepsABoardPerLevelBesideTheOverallBoard() {
+        index.offer(score(1, 300, 1, T0));
+        index.offer(score(2, 200, 2, T0));
+        // Not a puzzle level: overall board only
+        index.offer(score(3, 100, 99, T0));
+
+        assertThat(ids(index.getTopScores(3))).containsExactly(1L, 2L, 3L);
+        assertThat(ids(index.getTopScoresByLevel(2, 3))).containsExactly(2L);
+        assertThat(index.getTopScoresByLevel(3, 3)).isEmpty();
+        assertThat(index.getTopScoresByLevel(99, 3)).isEmpty();
+    }
+
+    @Test
+    void ignoresUnsavedScores() {
+        Score unsaved = score(1, 500, 1, T0);
+        unsaved.setId(null);
+
+        assertThat(index.offer(unsaved)).isFalse();
+        assertThat(index.getTopScores(3)).isEmpty();
+    }
+
+    @Test
+    void renameReplacesTheUsernameOnEveryBoard() {
+        index.offer(score(1, 300, 1, T0));
+        long version = index.getVersion(1);
+
+        assertThat(index.rename(7L, "bob")).isTrue();
+
+        assertThat(index.getTopScores(1).get(0).getUser().getUsername()).isEqualTo("bob");
+        assertThat(index.getTopScoresByLevel(1, 1).get(0).getUser().getUsername()).isEqualTo("bob");
+        assertThat(index.getVersion(1)).isGreaterThan(version);
+        assertThat(index.rename(8L, "carol")).isFalse();
+    }
+
+    private static List<Long> ids(List<ScoreDTO> scores) {
+        return scores.stream().map(ScoreDTO::getId).collect(Collectors.toList());
+    }
+
+    private static Score score(long id, int value, int level, LocalDateTime timestamp) {
+        User user = new User();
+        user.setId(7L);
+        user.setUsername("alice");
+        Score score = new Score();
+        score.setId(id);
+        score.setUser(user);
+        score.setScore(value);
+        score.setLevel(level);
+        score.setTimestamp(timestamp);
+        return score;
+    }
+}
@@ -0,0 +1,123 @@
+package com.numbermaze.leaderboard;
+
+import com.numbermaze.model.Score;
+import com.numbermaze.model.User;
+import com.numbermaze.model.UserStats;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RankIndexTest {
+
+    private final RankIndex index = new RankIndex(1000);
+
+    @Test
+    void refusesQueriesBeforeWarmUp() {
+        assertThatThrownBy(() -> index.getRank(1L, null)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void ranksPlayersByTheirBestScoreWithTiesSharingARank() {
+        index.warm(Collections.emptyList());
+        index.offer(score(1L, 1, 300));
+        index.offer(score(2L, 1, 500));
+        index.offer(score(3L, 1, 300));
+        index.offer(score(4L, 1, 100));
+
+        assertThat(index.getRank(2L, null).get().getRank()).isEqualTo(1);
+        assertThat(index.getRank(1L, null).get().getRank()).isEqualTo(2);
+        assertThat(index.getRank(3L, null).get().getRank()).isEqualTo(2);
+        assertThat(index.getRank(4L, null).get().getRank()).isEqualTo(4);
+        assertThat(index.getRank(4L, null).get().getTotal()).isEqualTo(4);
+        assertThat(index.getRank(5L, null)).isEmpty();
+    }
+
+    @Test
+    void aNewBestMovesThePlayerAndRemovesTheOldScore() {
+        index.warm(Collections.emptyList());
+        index.offer(score(1L, 1, 300));
+        index.offer(score(2L, 1, 200));
+
+        index.offer(score(2L, 1, 400));
+
+        PlayerRank improved = index.getRank(2L, null).get();
+        assertThat(improved.getRank()).isEqualTo(1);
+        assertThat(improved.getBestScore()).isEqualTo(400);
+        assertThat(improved.getTotal()).isEqualTo(2);
+        // Nobody is left behind at the old score
+        assertThat(index.getRank(1L, null).get().getRank()).isEqualTo(2);
+
+        index.offer(score(2L, 1, 50));
+        assertThat(index.getRank(2L, null).get().getBestScore()).isEqualTo(400);
+    }
+
+    @Test
+    void keepsSeparateBoardsPerLevel() {
+        index.warm(Collections.emptyList());
+        index.offer(score(1L, 1, 900));
+        index.offer(score(2L, 2, 100));
+        index.offer(score(1L, 2, 50));
+
+        assertThat(index.getRank(1L, 2).get().getRank()).isEqualTo(2);
+        assertThat(index.getRank(2L, 2).get().getRank()).isEqualTo(1);
+        assertThat(index.getRank(2L, 1)).isEmpty();
+        assertThat(index.getRank(1L, 99)).isEmpty();
+    }
+
+    @Test
+    void scoresOutsideTheRangeTieAtTheEnds() {
+        index.warm(Collections.emptyList());
+        index.offer(score(1L, 1, 5000));
+        index.offer(score(2L, 1, 1000));
+        index.offer(score(3L, 1, -10));
+        index.offer(score(4L, 1, 0));
+
+        assertThat(index.getRank(1L, null).get().getRank()).isEqualTo(1);
+        assertThat(index.getRank(2L, null).get().getRank()).isEqualTo(1);
+        assertThat(index.getRank(3L, null).get().getRank()).isEqualTo(3);
+        assertThat(index.getRank(4L, null).get().getRank()).isEqualTo(3);
+    }
+
+    @Test
+    void warmsFromStatsAndMatchesACountOfHigherBests() {
+        Random random = new Random(1);
+        Map<Long, Integer> best = new HashMap<>();
+        List<UserStats> stats = new ArrayList<>();
+        for (long userId = 1; userId <= 200; userId++) {
+            UserStats stat = new UserStats(userId, 1);
+            stat.setBestScore(random.nextInt(1001));
+            stats.add(stat);
+            best.put(userId, stat.getBestScore());
+        }
+        index.warm(stats);
+        for (int i = 0; i < 500; i++) {
+            long userId = 1 + random.nextInt(200);
+            int value = random.nextInt(1001);
+            index.offer(score(userId, 1, value));
+            best.merge(userId, value, Math::max);
+        }
+
+        best.forEach((userId, score) -> {
+            long higher = best.values().stream().filter(other -> other > score).count();
+            assertThat(index.getRank(userId, 1).get().getRank()).isEqualTo(higher + 1);
+        });
+    }
+
+    private static Score score(Long userId, Integer level, int value) {
+        User user = new User();
+        user.setId(userId);
+        Score score = new Score();
+        score.setUser(user);
+        score.setLevel(level);
+        score.setScore(value);
+        return score;
+    }
+}
@@ -0,0 +1,112 @@
+package com.numbermaze.leaderboard;
+
+import com.numbermaze.dto.ScoreDTO;
+import com.numbermaze.model.Score;
+import com.numbermaze.model.User;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WindowedLeaderboardTest {
+
+    private final LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+    private final WindowedLeaderboard board = new WindowedLeaderboard(3, Duration.ofHours(1));
+
+    @Test
+    void refusesReadsBeforeWarmUpAndRejectsTheAllTimeWindow() {
+        assertThatThrownBy(() -> board.getTopScores(LeaderboardWindow.DAY, null, 3))
+                .isInstanceOf(IllegalStateException.class);
+
+        board.markReady();
+        assertThatThrownBy(() -> board.getTopScores(LeaderboardWindow.ALL, null, 3))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void eachWindowOnlyCountsScoresInsideIt() {
+        board.offer(score(1, 100, 1, now.minusHours(2)));
+        board.offer(score(2, 500, 1, now.minusDays(3)));
+        assertThat(board.offer(score(3, 900, 1, now.minusDays(8)))).isFalse();
+        board.markReady();
+
+        assertThat(ids(board.getTopScores(LeaderboardWindow.DAY, null, 3))).containsExactly(1L);
+        assertThat(ids(board.getTopScores(LeaderboardWindow.WEEK, null, 3))).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void mergesBucketsInLeaderboardOrderUpToTheCapacity() {
+        board.offer(score(1, 100, 1, now.minusHours(1)));
+        board.offer(score(2, 400, 1, now.minusHours(5)));
+        board.offer(score(3, 300, 2, now));
+        board.offer(score(4, 200, 2, now.minusHours(9)));
+        board.markReady();
+
+        assertThat(ids(board.getTopScores(LeaderboardWindow.DAY, null, 10))).containsExactly(2L, 3L, 4L);
+        assertThat(ids(board.getTopScores(LeaderboardWindow.DAY, null, 2))).containsExactly(2L, 3L);
+        assertThat(ids(board.getTopScores(LeaderboardWindow.DAY, 2, 10))).containsExactly(3L, 4L);
+        assertThat(board.getTopScores(LeaderboardWindow.DAY, 5, 10)).isEmpty();
+    }
+
+    @Test
+    void countsScoresStampedInTheFutureTowardsTheCurrentBucket() {
+        board.offer(score(1, 100, 1, now.plusHours(3)));
+        board.markReady();
+
+        assertThat(ids(board.getTopScores(LeaderboardWindow.DAY, null, 3))).containsExactly(1L);
+    }
+
+    @Test
+    void versionChangesOnlyWhenTheWindowTopChanges() {
+        board.markReady();
+        for (int id = 1; id <= 3; id++) {
+            board.offer(score(id, 100 * id, 1, now.minusHours(id)));
+        }
+        long version = board.getVersion(LeaderboardWindow.DAY, null);
+        assertThat(board.getVersion(LeaderboardWindow.DAY, null)).isEqualTo(version);
+
+        // Enters its bucket's top-K but not the merged top three
+        board.offer(score(4, 50, 1, now.minusHours(10)));
+        assertThat(board.getVersion(LeaderboardWindow.DAY, null)).isEqualTo(version);
+
+        board.offer(score(5, 1000, 1, now));
+        assertThat(board.getVersion(LeaderboardWindow.DAY, null)).isNotEqualTo(version);
+        assertThat(ids(board.getTopScores(LeaderboardWindow.DAY, null, 3))).containsExactly(5L, 3L, 2L);
+    }
+
+    @Test
+    void renameReachesEveryBucket() {
+        board.offer(score(1, 100, 1, now.minusHours(1)));
+        board.offer(score(2, 200, 1, now.minusDays(2)));
+        board.markReady();
+
+        board.rename(7L, "bob");
+
+        assertThat(board.getTopScores(LeaderboardWindow.WEEK, null, 3))
+                .extracting(score -> score.getUser().getUsername())
+                .containsOnly("bob");
+    }
+
+    private static List<Long> ids(List<ScoreDTO> scores) {
+        return scores.stream().map(ScoreDTO::getId).collect(Collectors.toList());
+    }
+
+    private static Score score(long id, int value, int level, LocalDateTime timestamp) {
+        User user = new User();
+        user.setId(7L);
+        user.setUsername("alice");
+        Score score = new Score();
+        score.setId(id);
+        score.setUser(user);
+        score.setScore(value);
+        score.setLevel(level);
+        score.setTimestamp(timestamp);
+        return score;
+    }
+}
@@ -0,0 +1,57 @@
+package com.numbermaze.puzzle;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IssuedPuzzleTest {
+
+    private final IssuedPuzzle issued = new IssuedPuzzle("id", PuzzleGenerator.generate(PuzzleLevel.EASY, 1L), 7L, 1_000L);
+
+    @Test
+    void onlyTheFirstSubmissionClaimsThePuzzle() {
+        assertThat(issued.claim(null)).isTrue();
+        assertThat(issued.isSpent()).isTrue();
+
+        // A replay without a submission key is just a second submission
+        assertThat(issued.claim(null)).isFalse();
+        assertThat(issued.isClaimedBy(null)).isFalse();
+    }
+
+    @Test
+    void aKeyedRetryIsRecognisedButAnotherKeyIsNot() {
+        assertThat(issued.claim("k1")).isTrue();
+
+        assertThat(issued.claim("k1")).isFalse();
+        assertThat(issued.isClaimedBy("k1")).isTrue();
+        assertThat(issued.claim("k2")).isFalse();
+        assertThat(issued.isClaimedBy("k2")).isFalse();
+    }
+
+    @Test
+    void releaseHandsThePuzzleBackOnlyForTheClaimingSubmission() {
+        issued.claim("k1");
+
+        issued.release("k2");
+        assertThat(issued.isSpent()).isTrue();
+
+        issued.release("k1");
+        assertThat(issued.isSpent()).isFalse();
+        assertThat(issued.claim("k2")).isTrue();
+    }
+
+    @Test
+    void boundPuzzlesOnlyAcceptTheirUser() {
+        IssuedPuzzle open = new IssuedPuzzle("open", issued.getPuzzle(), null, 1_000L);
+
+        assertThat(issued.isIssuedTo(7L)).isTrue();
+        assertThat(issued.isIssuedTo(8L)).isFalse();
+        assertThat(open.isIssuedTo(8L)).isTrue();
+    }
+
+    @Test
+    void elapsedSecondsIsNeverNegative() {
+        assertThat(issued.elapsedSeconds(3_500L)).isEqualTo(2);
+        assertThat(issued.elapsedSeconds(0L)).isZero();
+    }
+}
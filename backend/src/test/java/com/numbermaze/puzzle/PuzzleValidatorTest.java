@@ -0,0 +1,105 @@
+package com.numbermaze.puzzle;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PuzzleValidatorTest {
+
+    private final Puzzle puzzle = PuzzleGenerator.generate(PuzzleLevel.MEDIUM, 42L);
+
+    @Test
+    void acceptsTheSolution() {
+        assertThat(PuzzleValidator.isSolved(puzzle, puzzle.getSolution())).isTrue();
+    }
+
+    @Test
+    void rejectsMissingOrWrongLengthValues() {
+        int[] solution = puzzle.getSolution();
+
+        assertThat(PuzzleValidator.isSolved(puzzle, null)).isFalse();
+        assertThat(PuzzleValidator.isSolved(puzzle, new int[0])).isFalse();
+        assertThat(PuzzleValidator.isSolved(puzzle, java.util.Arrays.copyOf(solution, solution.length + 1))).isFalse();
+    }
+
+    @Test
+    void rejectsValuesOutOfRangeOrRepeated() {
+        int[] outOfRange = puzzle.getSolution();
+        outOfRange[0] = outOfRange.length + 1;
+        int[] repeated = puzzle.getSolution();
+        repeated[1] = repeated[0];
+
+        assertThat(PuzzleValidator.isSolved(puzzle, outOfRange)).isFalse();
+        assertThat(PuzzleValidator.isSolved(puzzle, repeated)).isFalse();
+        // Scratch arrays are reused, so a later valid call must not see stale marks
+        assertThat(PuzzleValidator.isSolved(puzzle, puzzle.getSolution())).isTrue();
+    }
+
+    @Test
+    void rejectsAChangedGiven() {
+        int[] givens = puzzle.getGivens();
+        int[] values = puzzle.getSolution();
+        int given = firstGiven(givens);
+        int hidden = firstHidden(givens);
+        values[given] = values[hidden];
+        values[hidden] = givens[given];
+
+        assertThat(PuzzleValidator.isSolved(puzzle, values)).isFalse();
+    }
+
+    @Test
+    void rejectsConsecutiveNumbersOnCellsThatAreNotNeighbours() {
+        HexGrid grid = HexGrid.of(2);
+        Puzzle open = new Puzzle(PuzzleLevel.EASY, 0L, grid, new int[grid.size()], new int[grid.size()], new int[0][]);
+        int far = 1;
+        while (grid.areAdjacent(0, far)) {
+            far++;
+        }
+        int[] values = new int[grid.size()];
+        values[0] = 1;
+        values[far] = 2;
+        int next = 3;
+        for (int cell = 0; cell < values.length; cell++) {
+            if (values[cell] == 0) {
+                values[cell] = next++;
+            }
+        }
+
+        assertThat(PuzzleValidator.isSolved(open, values)).isFalse();
+    }
+
+    @Test
+    void checksDiamondsAgainstTheFilledNumbers() {
+        int[] solution = puzzle.getSolution();
+        int one = indexOf(solution, 1);
+        Puzzle consecutive = new Puzzle(puzzle.getLevel(), 0L, puzzle.getGrid(), solution, new int[solution.length],
+                new int[][]{{one, indexOf(solution, 2)}});
+        Puzzle apart = new Puzzle(puzzle.getLevel(), 0L, puzzle.getGrid(), solution, new int[solution.length],
+                new int[][]{{one, indexOf(solution, 3)}});
+
+        assertThat(PuzzleValidator.isSolved(consecutive, solution)).isTrue();
+        assertThat(PuzzleValidator.isSolved(apart, solution)).isFalse();
+    }
+
+    private static int firstGiven(int[] givens) {
+        for (int cell = 0; cell < givens.length; cell++) {
+            if (givens[cell] != 0) {
+                return cell;
+            }
+        }
+        throw new AssertionError("puzzle has no givens");
+    }
+
+    private static int firstHidden(int[] givens) {
+        return indexOf(givens, 0);
+    }
+
+    private static int indexOf(int[] values, int value) {
+        for (int cell = 0; cell < values.length; cell++) {
+            if (values[cell] == value) {
+                return cell;
+            }
+        }
+        throw new AssertionError("no cell holds " + value);
+    }
+}
@@ -0,0 +1,43 @@
+package com.numbermaze.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ScoreCursorTest {
+
+    @Test
+    void roundTripsThroughItsToken() {
+        ScoreCursor cursor = new ScoreCursor(-15, Long.MAX_VALUE);
+
+        Optional<ScoreCursor> decoded = ScoreCursor.decode(cursor.encode());
+
+        assertThat(decoded).isPresent();
+        assertThat(decoded.get().getScore()).isEqualTo(-15);
+        assertThat(decoded.get().getId()).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    void tokensAreSafeInAQueryString() {
+        String token = new ScoreCursor(Integer.MAX_VALUE, 123_456_789L).encode();
+
+        assertThat(token).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    void rejectsMalformedTokens() {
+        assertThat(ScoreCursor.decode("not base64!")).isEmpty();
+        assertThat(ScoreCursor.decode(encode("100"))).isEmpty();
+        assertThat(ScoreCursor.decode(encode("100:abc"))).isEmpty();
+        assertThat(ScoreCursor.decode(encode("x:5"))).isEmpty();
+        assertThat(ScoreCursor.decode("")).isEmpty();
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+}
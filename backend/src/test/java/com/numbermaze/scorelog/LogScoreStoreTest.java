@@ -0,0 +1,118 @@
+package com.numbermaze.scorelog;
+
+import com.numbermaze.dto.ScoreDTO;
+import com.numbermaze.model.Score;
+import com.numbermaze.model.User;
+import com.numbermaze.repository.ScoreCursor;
+import com.numbermaze.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LogScoreStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private LogScoreStore store;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        when(userRepository.findById(anyLong())).thenAnswer(invocation -> Optional.of(user(invocation.getArgument(0))));
+        store = open();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        store.close();
+    }
+
+    @Test
+    void pagesAUsersHistoryByScoreThenIdDescending() {
+        int[] values = {50, 30, 50, 10, 30, 30, 0};
+        for (int value : values) {
+            store.save(score(7L, value));
+        }
+        store.save(score(8L, 99));
+        store.save(score(7L, null));
+
+        assertThat(keys(allPages(3))).containsExactly("50/3", "50/1", "30/6", "30/5", "30/2", "10/4", "0/7");
+    }
+
+    @Test
+    void resumesAfterACursorThatMatchesNoScore() {
+        store.save(score(7L, 40));
+        store.save(score(7L, 20));
+
+        List<ScoreDTO> page = store.findUserScoresPage(7L, new ScoreCursor(30, 1L), 10);
+
+        assertThat(keys(page)).containsExactly("20/2");
+    }
+
+    @Test
+    void rebuildsTheHistoryFromTheLogOnRestart() throws IOException {
+        store.save(score(7L, 10));
+        store.save(score(7L, 30));
+        store.save(score(7L, 20));
+        store.close();
+
+        store = open();
+
+        assertThat(keys(allPages(2))).containsExactly("30/2", "20/3", "10/1");
+        assertThat(store.findUserScoresPage(9L, null, 10)).isEmpty();
+    }
+
+    private List<ScoreDTO> allPages(int size) {
+        List<ScoreDTO> all = new ArrayList<>();
+        ScoreCursor cursor = null;
+        while (true) {
+            List<ScoreDTO> page = store.findUserScoresPage(7L, cursor, size);
+            all.addAll(page);
+            if (page.size() < size) {
+                return all;
+            }
+            ScoreDTO last = page.get(page.size() - 1);
+            cursor = new ScoreCursor(last.getScore(), last.getId());
+        }
+    }
+
+    private LogScoreStore open() throws IOException {
+        LogScoreStore opened = new LogScoreStore(userRepository, directory.toString(), 4, 60_000L);
+        opened.open();
+        return opened;
+    }
+
+    private static List<String> keys(List<ScoreDTO> scores) {
+        List<String> keys = new ArrayList<>();
+        scores.forEach(score -> keys.add(score.getScore() + "/" + score.getId()));
+        return keys;
+    }
+
+    private static Score score(Long userId, Integer value) {
+        Score score = new Score();
+        score.setUser(user(userId));
+        score.setScore(value);
+        score.setLevel(1);
+        return score;
+    }
+
+    private static User user(Long id) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername("player" + id);
+        return user;
+    }
+}
@@ -0,0 +1,165 @@
+package com.numbermaze.scorelog;
+
+import com.numbermaze.model.Score;
+import com.numbermaze.model.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ScoreLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void appendsAcrossSegmentsAndReplaysAfterReopen() throws IOException {
+        try (ScoreLog log = ScoreLog.open(directory, 3)) {
+            for (int i = 1; i <= 7; i++) {
+                assertThat(log.append(score(i * 10))).isEqualTo(i);
+            }
+            assertThat(log.read(5).score).isEqualTo(50);
+            assertThat(log.read(8)).isNull();
+        }
+        assertThat(segmentFiles()).hasSize(3);
+
+        try (ScoreLog log = ScoreLog.open(directory, 3)) {
+            assertThat(log.size()).isEqualTo(7);
+            assertThat(replayedScores(log)).containsExactly(10, 20, 30, 40, 50, 60, 70);
+            assertThat(log.append(score(80))).isEqualTo(8);
+        }
+    }
+
+    @Test
+    void recoversUpToATruncatedTail() throws IOException {
+        try (ScoreLog log = ScoreLog.open(directory, 10)) {
+            for (int i = 1; i <= 5; i++) {
+                log.append(score(i));
+            }
+        }
+        // Crash halfway through the fifth record
+        try (FileChannel channel = FileChannel.open(segmentFiles().get(0), StandardOpenOption.WRITE)) {
+            channel.truncate(4L * ScoreRecord.SIZE + ScoreRecord.SIZE / 2);
+        }
+
+        try (ScoreLog log = ScoreLog.open(directory, 10)) {
+            assertThat(log.size()).isEqualTo(4);
+            assertThat(replayedScores(log)).containsExactly(1, 2, 3, 4);
+            assertThat(log.append(score(99))).isEqualTo(5);
+        }
+        try (ScoreLog log = ScoreLog.open(directory, 10)) {
+            assertThat(replayedScores(log)).containsExactly(1, 2, 3, 4, 99);
+        }
+    }
+
+    @Test
+    void dropsEverythingAfterACorruptRecord() throws IOException {
+        try (ScoreLog log = ScoreLog.open(directory, 10)) {
+            for (int i = 1; i <= 5; i++) {
+                log.append(score(i));
+            }
+        }
+        // Flip a byte inside the third record's checksummed body
+        try (FileChannel channel = FileChannel.open(segmentFiles().get(0), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0x7F}), 2L * ScoreRecord.SIZE + 33);
+        }
+
+        try (ScoreLog log = ScoreLog.open(directory, 10)) {
+            assertThat(log.size()).isEqualTo(2);
+            assertThat(log.append(score(42))).isEqualTo(3);
+        }
+        // The stale fourth and fifth records were wiped and do not come back behind the new third one
+        try (ScoreLog log = ScoreLog.open(directory, 10)) {
+            assertThat(replayedScores(log)).containsExactly(1, 2, 42);
+        }
+    }
+
+    @Test
+    void ignoresSegmentsAfterAGap() throws IOException {
+        try (ScoreLog log = ScoreLog.open(directory, 2)) {
+            for (int i = 1; i <= 5; i++) {
+                log.append(score(i));
+            }
+        }
+        Files.delete(segmentFiles().get(1));
+
+        try (ScoreLog log = ScoreLog.open(directory, 2)) {
+            assertThat(replayedScores(log)).containsExactly(1, 2);
+        }
+    }
+
+    @Test
+    void recordsKeepNullFields() {
+        Score empty = new Score();
+        empty.setTimestamp(null);
+
+        ScoreRecord record = ScoreRecord.of(9, empty);
+        Score restored = record.toScore();
+
+        assertThat(record.hasUser()).isFalse();
+        assertThat(record.hasScore()).isFalse();
+        assertThat(record.levelOrNull()).isNull();
+        assertThat(restored.getId()).isEqualTo(9L);
+        assertThat(restored.getScore()).isNull();
+        assertThat(restored.getLevel()).isNull();
+        assertThat(restored.getTime()).isNull();
+        assertThat(restored.getSteps()).isNull();
+        assertThat(restored.getTimestamp()).isNull();
+    }
+
+    @Test
+    void recordsRoundTripThroughTheirBinaryForm() {
+        Score score = score(1234);
+        ByteBuffer buffer = ByteBuffer.allocate(ScoreRecord.SIZE);
+        CRC32 crc = new CRC32();
+
+        ScoreRecord.of(3, score).writeTo(buffer, crc);
+        ScoreRecord read = ScoreRecord.readFrom(buffer, 0, crc);
+
+        Score restored = read.toScore();
+        assertThat(read.userId).isEqualTo(7L);
+        assertThat(restored.getScore()).isEqualTo(1234);
+        assertThat(restored.getLevel()).isEqualTo(2);
+        assertThat(restored.getTimestamp()).isEqualTo(score.getTimestamp());
+        assertThat(ScoreRecord.readFrom(ByteBuffer.allocate(ScoreRecord.SIZE), 0, crc)).isNull();
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> stream = Files.list(directory)) {
+            stream.sorted().forEach(files::add);
+        }
+        return files;
+    }
+
+    private static List<Integer> replayedScores(ScoreLog log) {
+        List<Integer> scores = new ArrayList<>();
+        log.forEach(record -> scores.add(record.score));
+        return scores;
+    }
+
+    private static Score score(int value) {
+        User user = new User();
+        user.setId(7L);
+        Score score = new Score();
+        score.setUser(user);
+        score.setScore(value);
+        score.setLevel(2);
+        score.setTime(30);
+        score.setSteps(12);
+        score.setTimestamp(LocalDateTime.of(2024, 1, 1, 12, 0, 0));
+        return score;
+    }
+}
@@ -0,0 +1,120 @@
+package com.numbermaze.service.impl;
+
+import com.numbermaze.model.Score;
+import com.numbermaze.model.User;
+import com.numbermaze.model.UserStats;
+import com.numbermaze.repository.UserRepository;
+import com.numbermaze.repository.UserStatsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class UserStatsServiceImplTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    private final UserStatsRepository userStatsRepository = mock(UserStatsRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final UserStatsServiceImpl service = new UserStatsServiceImpl(userStatsRepository, userRepository);
+
+    @BeforeEach
+    void setUp() {
+        when(userStatsRepository.findByUserIdAndLevel(anyLong(), anyInt())).thenReturn(Optional.empty());
+        when(userStatsRepository.save(any(UserStats.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void foldsABatchIntoOneRowPerUserAndLevel() {
+        service.recordAll(Arrays.asList(
+                score(7L, 1, 100, 40, 12, T0),
+                score(7L, 1, 300, 30, 15, T0.plusMinutes(5)),
+                score(7L, 2, 50, 90, 20, T0)));
+
+        ArgumentCaptor<UserStats> saved = ArgumentCaptor.forClass(UserStats.class);
+        verify(userStatsRepository, times(2)).save(saved.capture());
+        UserStats level1 = saved.getAllValues().stream().filter(s -> s.getLevel() == 1).findFirst().get();
+        assertThat(level1.getUserId()).isEqualTo(7L);
+        assertThat(level1.getPlayCount()).isEqualTo(2);
+        assertThat(level1.getBestScore()).isEqualTo(300);
+        assertThat(level1.getBestTime()).isEqualTo(30);
+        assertThat(level1.getFewestSteps()).isEqualTo(12);
+        assertThat(level1.getMeanScore()).isEqualTo(200.0);
+        assertThat(level1.getLastPlayed()).isEqualTo(T0.plusMinutes(5));
+    }
+
+    @Test
+    void mergesIntoTheExistingRow() {
+        UserStats existing = new UserStats(7L, 1);
+        existing.setPlayCount(3);
+        existing.setMeanScore(100.0);
+        existing.setBestScore(500);
+        existing.setBestTime(20);
+        existing.setFewestSteps(10);
+        existing.setLastPlayed(T0.plusDays(1));
+        when(userStatsRepository.findByUserIdAndLevel(7L, 1)).thenReturn(Optional.of(existing));
+
+        service.record(score(7L, 1, 300, 25, 8, T0));
+
+        assertThat(existing.getPlayCount()).isEqualTo(4);
+        assertThat(existing.getMeanScore()).isEqualTo(150.0);
+        assertThat(existing.getBestScore()).isEqualTo(500);
+        assertThat(existing.getBestTime()).isEqualTo(20);
+        assertThat(existing.getFewestSteps()).isEqualTo(8);
+        // An older score does not move lastPlayed back
+        assertThat(existing.getLastPlayed()).isEqualTo(T0.plusDays(1));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void locksTheUsersBeforeReadingTheirStats() {
+        service.recordAll(Arrays.asList(score(9L, 1, 10, 1, 1, T0), score(3L, 1, 10, 1, 1, T0)));
+
+        ArgumentCaptor<Collection<Long>> locked = ArgumentCaptor.forClass(Collection.class);
+        verify(userRepository).findByIdInOrderByIdAsc(locked.capture());
+        assertThat(locked.getValue()).containsExactly(3L, 9L);
+    }
+
+    @Test
+    void skipsScoresWithoutUserLevelOrValue() {
+        Score noUser = score(7L, 1, 10, 1, 1, T0);
+        noUser.setUser(null);
+        Score noLevel = score(7L, null, 10, 1, 1, T0);
+        Score noValue = score(7L, 1, null, 1, 1, T0);
+
+        service.recordAll(Arrays.asList(noUser, noLevel, noValue));
+        service.recordAll(Collections.emptyList());
+
+        verifyNoInteractions(userRepository);
+        verify(userStatsRepository, never()).save(any());
+    }
+
+    private static Score score(Long userId, Integer level, Integer value, int time, int steps, LocalDateTime at) {
+        User user = new User();
+        user.setId(userId);
+        Score score = new Score();
+        score.setUser(user);
+        score.setLevel(level);
+        score.setScore(value);
+        score.setTime(time);
+        score.setSteps(steps);
+        score.setTimestamp(at);
+        return score;
+    }
+}
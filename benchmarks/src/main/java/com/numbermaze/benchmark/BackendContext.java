@@ -0,0 +1,65 @@
+package com.numbermaze.benchmark;
+
+import com.numbermaze.Application;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 在基准测试进程内启动后端应用上下文，使用独立的内存H2数据库（由 Flyway 建表）
+ */
+public final class BackendContext {
+
+    public static final int USERS = 10_000;
+
+    private BackendContext() {
+    }
+
+    // All benchmark traffic comes from one address, so the per-client rate limit is off (-D can turn it back on).
+    // Benchmarks post scores without solving puzzles, so they run with puzzle verification off like a legacy client
+    public static ConfigurableApplicationContext start(String database, WebApplicationType webApplicationType) {
+        Map<String, Object> overrides = new HashMap<>();
+        overrides.put("spring.datasource.url", "jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1");
+        overrides.put("server.port", "0");
+        overrides.put("spring.main.banner-mode", "off");
+        overrides.put("logging.level.root", "WARN");
+        overrides.put("logging.level.com.numbermaze", "WARN");
+        overrides.put("admission.rate-limit.enabled", "false");
+        overrides.put("puzzle.verification.required", "false");
+        // Default properties rank below application.yml, so these sit right after the system properties/env instead
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addAfter(StandardEnvironment.SYSTEM_ENVIRONMENT_PROPERTY_SOURCE_NAME,
+                new MapPropertySource("benchmark", overrides));
+        return new SpringApplicationBuilder(Application.class)
+                .web(webApplicationType)
+                .environment(environment)
+                .run();
+    }
+
+    /**
+     * 写入 USERS 个用户和 rows 条分数，分数分布与 IndexBenchmark 相同
+     */
+    public static void seed(DataSource dataSource, int rows) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO user (username, created_at) "
+                    + "SELECT 'player' || X, CURRENT_TIMESTAMP FROM SYSTEM_RANGE(1, " + USERS + ")");
+            // Timestamps are UTC epoch millis, one second apart going back from now
+            statement.execute("INSERT INTO score (id, user_id, score, level, time, steps, timestamp) "
+                    + "SELECT X, MOD(X, " + USERS + ") + 1, MOD(X * 7919, 3000), MOD(X, 3) + 1, MOD(X, 600), MOD(X, 50), "
+                    + System.currentTimeMillis() + " - X * 1000 FROM SYSTEM_RANGE(1, " + rows + ")");
+            // Keep ids handed out by the pooled sequence clear of the seeded rows
+            statement.execute("ALTER SEQUENCE score_seq RESTART WITH " + (rows + 1));
+            statement.execute("ANALYZE");
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.numbermaze.benchmark;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.configuration.FluentConfiguration;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 索引迁移前后对比：在内存H2中按迁移脚本建表并写入大量分数，分别输出执行计划和查询延迟
+ * <p>
+ * 运行: mvn compile exec:java -Drows=1000000
+ */
+public class IndexBenchmark {
+
+    // H2 otherwise hands back the cached result of a repeated query, which hides the cost of a table scan
+    private static final String URL = "jdbc:h2:mem:index-benchmark;DB_CLOSE_DELAY=-1;OPTIMIZE_REUSE_RESULTS=0";
+    private static final int USERS = 10_000;
+    private static final int WARMUP = 3;
+    private static final int ITERATIONS = 20;
+
+    // The ScoreRepository access paths
+    private static final Map<String, String> QUERIES = new LinkedHashMap<>();
+
+    static {
+        QUERIES.put("findTopScores", "SELECT * FROM score ORDER BY score DESC LIMIT 10");
+        QUERIES.put("findTopScoresByLevel", "SELECT * FROM score WHERE level = 2 ORDER BY level, score DESC LIMIT 10");
+        QUERIES.put("findUserScoresFirstPage",
+                "SELECT * FROM score WHERE user_id = 42 AND score IS NOT NULL ORDER BY score DESC, id DESC LIMIT 51");
+        QUERIES.put("findUserScoresAfter", "SELECT * FROM score WHERE user_id = 42 "
+                + "AND (score < 1500 OR (score = 1500 AND id < 500000)) ORDER BY score DESC, id DESC LIMIT 51");
+        // Player history: username lookup, then the user's history
+        QUERIES.put("getScoresByPlayer", "SELECT s.* FROM score s JOIN user u ON u.id = s.user_id "
+                + "WHERE u.username = 'player42' AND s.score IS NOT NULL ORDER BY s.score DESC, s.id DESC LIMIT 51");
+    }
+
+    public static void main(String[] args) throws SQLException {
+        int rows = Integer.getInteger("rows", 1_000_000);
+        String migrations = System.getProperty("migrations", "filesystem:../backend/src/main/resources/db/migration");
+
+        // Schema before the index migration (V4)
+        flyway(migrations).target("2").load().migrate();
+        try (Connection connection = DriverManager.getConnection(URL, "sa", "")) {
+            seed(connection, rows);
+            report(connection, "迁移前 (无二级索引)");
+
+            flyway(migrations).load().migrate();
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("ANALYZE");
+            }
+            report(connection, "迁移后 (复合索引)");
+        }
+    }
+
+    private static FluentConfiguration flyway(String migrations) {
+        return Flyway.configure().dataSource(URL, "sa", "").locations(migrations);
+    }
+
+    private static void seed(Connection connection, int rows) throws SQLException {
+        long start = System.nanoTime();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO user (username, created_at) "
+                    + "SELECT 'player' || X, CURRENT_TIMESTAMP FROM SYSTEM_RANGE(1, " + USERS + ")");
+            // Explicit ids above the identity counter make H2 advance and commit it on every row, which is quadratic
+            statement.execute("ALTER TABLE score ALTER COLUMN id RESTART WITH " + (rows + 1));
+            // Scores spread over all users and levels with a pseudo-random score distribution,
+            // in the V2 layout; the later migrations convert them
+            statement.execute("INSERT INTO score (id, user_id, score, level, time, steps, player_name, score_value, timestamp) "
+                    + "SELECT X, MOD(X, " + USERS + ") + 1, MOD(X * 7919, 3000), MOD(X, 3) + 1, MOD(X, 600), MOD(X, 50), "
+                    + "'player' || (MOD(X, " + USERS + ") + 1), MOD(X * 7919, 3000), DATEADD('SECOND', -X, CURRENT_TIMESTAMP) "
+                    + "FROM SYSTEM_RANGE(1, " + rows + ")");
+        }
+        System.out.printf("写入 %d 个用户, %d 条分数, 耗时 %d ms%n", USERS, rows, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static void report(Connection connection, String phase) throws SQLException {
+        System.out.println();
+        System.out.println("== " + phase + " ==");
+        for (Map.Entry<String, String> query : QUERIES.entrySet()) {
+            System.out.println("-- " + query.getKey());
+            System.out.println("   计划: " + explain(connection, query.getValue()).replaceAll("\\s+", " "));
+
+            long[] samples = new long[ITERATIONS];
+            for (int i = 0; i < WARMUP + ITERATIONS; i++) {
+                long nanos = time(connection, query.getValue());
+                if (i >= WARMUP) {
+                    samples[i - WARMUP] = nanos;
+                }
+            }
+            Arrays.sort(samples);
+            System.out.printf("   延迟: p50=%.3f ms, p95=%.3f ms, max=%.3f ms%n",
+                    samples[ITERATIONS / 2] / 1e6, samples[ITERATIONS * 95 / 100] / 1e6, samples[ITERATIONS - 1] / 1e6);
+        }
+    }
+
+    private static String explain(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("EXPLAIN " + sql)) {
+            return rs.next() ? rs.getString(1) : "";
+        }
+    }
+
+    private static long time(Connection connection, String sql) throws SQLException {
+        long start = System.nanoTime();
+        try (PreparedStatement statement = connection.prepareStatement(sql);
+             ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                rs.getLong(1);
+            }
+        }
+        return System.nanoTime() - start;
+    }
+}
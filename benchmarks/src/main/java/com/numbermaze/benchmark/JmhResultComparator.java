@@ -0,0 +1,69 @@
+package com.numbermaze.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 对比两次 JMH 结果（-rf json），任一基准比基线差超过阈值时以状态码1退出，可用于发布前的回归检查
+ * <p>
+ * 运行: mvn compile exec:java -Dbenchmark.main=com.numbermaze.benchmark.JmhResultComparator \
+ *        -Dexec.args="baseline.json target/jmh-result.json 10"
+ */
+public class JmhResultComparator {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("用法: JmhResultComparator <基线.json> <当前.json> [允许退化百分比, 默认10]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+        Map<String, JsonNode> baseline = load(new File(args[0]));
+        Map<String, JsonNode> current = load(new File(args[1]));
+
+        int regressions = 0;
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("%-90s (新增)%n", entry.getKey());
+                continue;
+            }
+            double oldScore = before.path("primaryMetric").path("score").asDouble();
+            double newScore = entry.getValue().path("primaryMetric").path("score").asDouble();
+            String unit = entry.getValue().path("primaryMetric").path("scoreUnit").asText();
+            // Throughput modes improve upwards, time modes downwards
+            boolean higherIsBetter = "thrpt".equals(entry.getValue().path("mode").asText());
+            double change = (newScore - oldScore) / oldScore * 100;
+            double worse = higherIsBetter ? -change : change;
+            boolean regressed = worse > threshold;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-90s %12.3f -> %12.3f %-8s %+7.1f%%%s%n",
+                    entry.getKey(), oldScore, newScore, unit, change, regressed ? "  <-- 退化" : "");
+        }
+        System.out.printf("%n%d 项超过 %.1f%% 的退化阈值%n", regressions, threshold);
+        System.exit(regressions > 0 ? 1 : 0);
+    }
+
+    // Keyed by benchmark, mode and parameters so parameterized runs compare like with like
+    private static Map<String, JsonNode> load(File file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(result.path("benchmark").asText())
+                    .append(" [").append(result.path("mode").asText()).append(']');
+            Iterator<Map.Entry<String, JsonNode>> params = result.path("params").fields();
+            while (params.hasNext()) {
+                Map.Entry<String, JsonNode> param = params.next();
+                key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText());
+            }
+            results.put(key.toString(), result);
+        }
+        return results;
+    }
+}
@@ -0,0 +1,314 @@
+package com.numbermaze.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 模拟前端真实流量的负载测试：按 api-service.js 的请求组合（查询/创建用户、保存分数、轮询排行榜）
+ * 以固定到达率发送请求（开放模型）。延迟从计划发送时间算起，服务变慢时排队等待的时间也计入，
+ * 避免协调遗漏（coordinated omission）；结果用 HdrHistogram 统计
+ * <p>
+ * 运行: mvn compile exec:java -Dbenchmark.main=com.numbermaze.benchmark.LoadTest -Drate=500 -Dduration=60
+ * <ul>
+ * <li>rate: 每秒请求数 (默认200)</li>
+ * <li>duration / warmup: 测量和预热时长，秒 (默认60 / 10)</li>
+ * <li>concurrency: HTTP客户端线程数 (默认32)</li>
+ * <li>users: 预先创建的用户数 (默认500)</li>
+ * <li>mix: 请求组合权重 (默认 top:40,level:30,save:15,user:12,create:3)</li>
+ * <li>target: 已运行实例的地址，如 http://localhost:8080；不指定时在进程内启动后端</li>
+ * <li>out: 各请求类型 .hgrm 延迟分布文件的输出目录 (默认 target/load-test)</li>
+ * </ul>
+ */
+public class LoadTest {
+
+    private static final long HIGHEST_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final long REPORT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final int LEVELS = 3;
+
+    enum Operation {
+        TOP("top"),
+        TOP_BY_LEVEL("level"),
+        SAVE_SCORE("save"),
+        FIND_USER("user"),
+        CREATE_USER("create");
+
+        private final String key;
+
+        Operation(String key) {
+            this.key = key;
+        }
+    }
+
+    private final URI baseUri;
+    private final HttpClient client;
+    private final ExecutorService executor;
+    private final Operation[] weightedOperations;
+    private final Map<Operation, Stats> stats = new EnumMap<>(Operation.class);
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong createdUsers = new AtomicLong();
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+    private long[] userIds;
+    private String[] usernames;
+
+    LoadTest(URI baseUri, int concurrency, Map<Operation, Integer> mix) {
+        this.baseUri = baseUri;
+        this.executor = Executors.newFixedThreadPool(concurrency);
+        this.client = HttpClient.newBuilder()
+                .executor(executor)
+                .connectTimeout(REQUEST_TIMEOUT)
+                .build();
+        int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+        this.weightedOperations = new Operation[total];
+        int i = 0;
+        for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+            for (int w = 0; w < entry.getValue(); w++) {
+                weightedOperations[i++] = entry.getKey();
+            }
+        }
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new Stats());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        double rate = Double.parseDouble(System.getProperty("rate", "200"));
+        int duration = Integer.getInteger("duration", 60);
+        int warmup = Integer.getInteger("warmup", 10);
+        int concurrency = Integer.getInteger("concurrency", 32);
+        int users = Integer.getInteger("users", 500);
+        Map<Operation, Integer> mix = parseMix(System.getProperty("mix", "top:40,level:30,save:15,user:12,create:3"));
+        File out = new File(System.getProperty("out", "target/load-test"));
+        String target = System.getProperty("target");
+
+        ConfigurableApplicationContext context = null;
+        if (target == null) {
+            context = BackendContext.start("load-test", WebApplicationType.SERVLET);
+            target = "http://localhost:" + ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+        }
+        LoadTest test = new LoadTest(URI.create(target), concurrency, mix);
+        try {
+            System.out.printf("目标: %s, 到达率: %.0f 请求/秒, 并发线程: %d, 组合: %s%n", target, rate, concurrency, mix);
+            test.createUsers(users);
+
+            System.out.printf("预热 %d 秒...%n", warmup);
+            test.run(warmup, rate);
+            test.reset();
+
+            System.out.printf("测量 %d 秒...%n", duration);
+            test.run(duration, rate);
+            test.report(duration, out);
+        } finally {
+            test.executor.shutdownNow();
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    private static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String part : mix.split(",")) {
+            String[] pair = part.trim().split(":");
+            Operation operation = null;
+            for (Operation candidate : Operation.values()) {
+                if (candidate.key.equals(pair[0])) {
+                    operation = candidate;
+                }
+            }
+            if (operation == null || pair.length != 2) {
+                throw new IllegalArgumentException("无法解析请求组合: " + part);
+            }
+            weights.put(operation, Integer.parseInt(pair[1]));
+        }
+        return weights;
+    }
+
+    /**
+     * 准备阶段：同步创建用户，保存分数和按用户名查询时从中随机选取
+     */
+    private void createUsers(int count) throws IOException, InterruptedException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        userIds = new long[count];
+        usernames = new String[count];
+        for (int i = 0; i < count; i++) {
+            usernames[i] = "load-" + runId + "-" + i;
+            HttpResponse<String> response = client.send(
+                    post("/api/users", "{\"username\":\"" + usernames[i] + "\"}"), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 201) {
+                throw new IllegalStateException("创建用户失败: 状态码 " + response.statusCode());
+            }
+            userIds[i] = objectMapper.readTree(response.body()).path("id").asLong();
+        }
+        System.out.printf("已创建 %d 个用户%n", count);
+    }
+
+    /**
+     * 按固定间隔的计划时间发送请求，不等待响应；调度落后时立即补发，但延迟仍从计划时间算起
+     */
+    private void run(int seconds, double rate) throws InterruptedException {
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+        long nextReport = start + REPORT_INTERVAL_NANOS;
+        for (long intended = start; intended < end; intended += intervalNanos) {
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            issue(weightedOperations[ThreadLocalRandom.current().nextInt(weightedOperations.length)], intended);
+            if (System.nanoTime() >= nextReport) {
+                progress(TimeUnit.NANOSECONDS.toSeconds(nextReport - start));
+                nextReport += REPORT_INTERVAL_NANOS;
+            }
+        }
+        // Let outstanding requests finish so they are counted
+        long deadline = System.nanoTime() + REQUEST_TIMEOUT.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        progress(seconds);
+    }
+
+    private void issue(Operation operation, long intendedNanos) {
+        Stats operationStats = stats.get(operation);
+        inFlight.incrementAndGet();
+        client.sendAsync(request(operation), HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> {
+                    long micros = (System.nanoTime() - intendedNanos) / 1_000;
+                    operationStats.recorder.recordValue(Math.min(micros, HIGHEST_MICROS));
+                    if (error != null || response.statusCode() >= 400) {
+                        operationStats.errors.increment();
+                    }
+                    inFlight.decrementAndGet();
+                });
+    }
+
+    // Mirrors the calls made by frontend/js/services/api-service.js
+    private HttpRequest request(Operation operation) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int user = random.nextInt(userIds.length);
+        switch (operation) {
+            case TOP:
+                return get("/api/scores/top?limit=10");
+            case TOP_BY_LEVEL:
+                return get("/api/scores/top/level/" + (random.nextInt(LEVELS) + 1) + "?limit=10");
+            case SAVE_SCORE:
+                int level = random.nextInt(LEVELS) + 1;
+                int time = 30 + random.nextInt(600);
+                int steps = 10 + random.nextInt(60);
+                int score = Math.max(0, 1000 * level - time * 2 - steps * 10);
+                return post("/api/scores", "{\"user\":{\"id\":" + userIds[user] + "},\"score\":" + score
+                        + ",\"level\":" + level + ",\"time\":" + time + ",\"steps\":" + steps + "}");
+            case FIND_USER:
+                return get("/api/users/username/" + usernames[user]);
+            case CREATE_USER:
+                return post("/api/users", "{\"username\":\"load-" + runId + "-new-" + createdUsers.incrementAndGet() + "\"}");
+            default:
+                throw new IllegalArgumentException(operation.name());
+        }
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(baseUri.resolve(path)).timeout(REQUEST_TIMEOUT).GET().build();
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(baseUri.resolve(path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    // Moves each recorder's interval into its running total and prints the interval across all operations
+    private void progress(long elapsedSeconds) {
+        Histogram interval = new Histogram(HIGHEST_MICROS, 3);
+        for (Stats operationStats : stats.values()) {
+            Histogram operationInterval = operationStats.recorder.getIntervalHistogram();
+            operationStats.total.add(operationInterval);
+            interval.add(operationInterval);
+        }
+        System.out.printf("  %4ds: %6d 个响应, p50=%8.2fms, p99=%8.2fms, max=%8.2fms, 进行中=%d%n",
+                elapsedSeconds, interval.getTotalCount(),
+                interval.getValueAtPercentile(50) / 1000.0, interval.getValueAtPercentile(99) / 1000.0,
+                interval.getMaxValue() / 1000.0, inFlight.get());
+    }
+
+    private void reset() {
+        for (Stats operationStats : stats.values()) {
+            operationStats.recorder.reset();
+            operationStats.total.reset();
+            operationStats.errors.reset();
+        }
+    }
+
+    private void report(int seconds, File out) throws IOException {
+        if (!out.isDirectory() && !out.mkdirs()) {
+            throw new IOException("无法创建输出目录: " + out);
+        }
+        Histogram all = new Histogram(HIGHEST_MICROS, 3);
+        long errors = 0;
+        System.out.println();
+        System.out.printf("%-8s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+                "请求", "次数", "错误", "请求/秒", "p50(ms)", "p90(ms)", "p99(ms)", "p99.9(ms)", "max(ms)");
+        for (Map.Entry<Operation, Stats> entry : stats.entrySet()) {
+            Histogram total = entry.getValue().total;
+            long operationErrors = entry.getValue().errors.sum();
+            if (total.getTotalCount() == 0) {
+                continue;
+            }
+            print(entry.getKey().key, total, operationErrors, seconds);
+            all.add(total);
+            errors += operationErrors;
+            writeDistribution(total, new File(out, entry.getKey().key + ".hgrm"));
+        }
+        print("all", all, errors, seconds);
+        writeDistribution(all, new File(out, "all.hgrm"));
+        System.out.printf("%n延迟分布已写入 %s (可用 HdrHistogram Plotter 绘图)%n", out.getAbsolutePath());
+    }
+
+    private static void print(String name, Histogram histogram, long errors, int seconds) {
+        System.out.printf("%-8s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                name, histogram.getTotalCount(), errors, (double) histogram.getTotalCount() / seconds,
+                histogram.getValueAtPercentile(50) / 1000.0, histogram.getValueAtPercentile(90) / 1000.0,
+                histogram.getValueAtPercentile(99) / 1000.0, histogram.getValueAtPercentile(99.9) / 1000.0,
+                histogram.getMaxValue() / 1000.0);
+    }
+
+    private static void writeDistribution(Histogram histogram, File file) throws IOException {
+        try (PrintStream stream = new PrintStream(file, "UTF-8")) {
+            // Recorded in microseconds, reported in milliseconds
+            histogram.outputPercentileDistribution(stream, 1000.0);
+        }
+    }
+
+    private static final class Stats {
+        private final Recorder recorder = new Recorder(HIGHEST_MICROS, 3);
+        private final Histogram total = new Histogram(HIGHEST_MICROS, 3);
+        private final LongAdder errors = new LongAdder();
+    }
+}
@@ -0,0 +1,206 @@
+package com.numbermaze.benchmark;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.OutputStreamAppender;
+import com.numbermaze.aspect.RequestBodyLogAspect;
+import com.numbermaze.config.WebLogInterceptor;
+import com.numbermaze.dto.ScoreDTO;
+import com.numbermaze.dto.UserDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 请求日志开销对比：旧实现（UUID请求ID、逐个格式化请求头和响应头、每次调用格式化参数和返回值、同步输出）
+ * 与当前的 WebLogInterceptor + 采样的 RequestBodyLogAspect + 异步输出，统计请求线程上每个请求的耗时和内存分配
+ * <p>
+ * 运行: mvn compile exec:java -Dbenchmark.main=com.numbermaze.benchmark.RequestLoggingBenchmark
+ */
+public class RequestLoggingBenchmark {
+
+    private static final int WARMUP = 200_000;
+    private static final int REQUESTS = 1_000_000;
+    private static final String PATTERN =
+            "%d{yyyy-MM-dd HH:mm:ss.SSS} %-5level [%thread] %X{requestId:---------} %logger{36} - %msg%n";
+
+    // The removed implementation, reproduced under its own logger names
+    private static final Logger legacyInterceptorLogger = LoggerFactory.getLogger("com.numbermaze.legacy.WebLogInterceptor");
+    private static final Logger legacyAspectLogger = LoggerFactory.getLogger("com.numbermaze.legacy.RequestBodyLogAspect");
+
+    public static void main(String[] args) throws Exception {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        MockHttpServletRequest request = leaderboardRequest();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        response.setContentType("application/json");
+        Object[] handlerArgs = {10};
+        ResponseEntity<List<ScoreDTO>> result = ResponseEntity.ok(leaderboard(10));
+
+        WebLogInterceptor interceptor = new WebLogInterceptor();
+        RequestBodyLogAspect aspect = new RequestBodyLogAspect(0.01);
+
+        ch.qos.logback.classic.Logger appLogger = context.getLogger("com.numbermaze");
+        appLogger.setAdditive(false);
+
+        Appender<ILoggingEvent> sink = discardingAppender(context);
+        appLogger.addAppender(sink);
+        appLogger.setLevel(Level.DEBUG);
+        run("旧实现 (DEBUG, 同步输出)", request, () -> legacyRequest(request, response, handlerArgs, result));
+
+        Appender<ILoggingEvent> async = asyncAppender(context, sink);
+        appLogger.detachAppender(sink);
+        appLogger.addAppender(async);
+        appLogger.setLevel(Level.INFO);
+        run("当前实现 (INFO, 异步输出)", request, () -> currentRequest(interceptor, aspect, request, response, handlerArgs, result));
+
+        appLogger.setLevel(Level.DEBUG);
+        run("当前实现 (DEBUG, 1%采样, 异步输出)", request,
+                () -> currentRequest(interceptor, aspect, request, response, handlerArgs, result));
+        async.stop();
+    }
+
+    private static void run(String name, MockHttpServletRequest request, Runnable requestWork) {
+        for (int i = 0; i < WARMUP; i++) {
+            requestWork.run();
+            request.clearAttributes();
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            requestWork.run();
+            request.clearAttributes();
+        }
+        long nanos = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        System.out.printf("%-32s %8.0f ns/请求, %8d B/请求%n", name, (double) nanos / REQUESTS, allocated / REQUESTS);
+    }
+
+    private static void currentRequest(WebLogInterceptor interceptor, RequestBodyLogAspect aspect,
+                                       MockHttpServletRequest request, MockHttpServletResponse response,
+                                       Object[] handlerArgs, Object result) {
+        interceptor.preHandle(request, response, null);
+        // Same decision and formatting as RequestBodyLogAspect.logRequestBody
+        if (aspect.shouldLog()) {
+            LoggerFactory.getLogger(RequestBodyLogAspect.class)
+                    .debug("请求方法: {}.{}, 参数: {}", "ScoreController", "getTopScores", Arrays.toString(handlerArgs));
+            LoggerFactory.getLogger(RequestBodyLogAspect.class)
+                    .debug("方法返回: {}.{}, 结果: {}", "ScoreController", "getTopScores", result.toString());
+        }
+        interceptor.afterCompletion(request, response, null, null);
+    }
+
+    private static void legacyRequest(MockHttpServletRequest request, MockHttpServletResponse response,
+                                      Object[] handlerArgs, Object result) {
+        String requestId = UUID.randomUUID().toString().substring(0, 8);
+        MDC.put("requestId", requestId);
+        long startTime = System.currentTimeMillis();
+        request.setAttribute("startTime", startTime);
+        StringBuilder reqHeadersLog = new StringBuilder();
+        Enumeration<String> headerNames = request.getHeaderNames();
+        while (headerNames.hasMoreElements()) {
+            String headerName = headerNames.nextElement();
+            if (!"authorization".equalsIgnoreCase(headerName) && !"cookie".equalsIgnoreCase(headerName)) {
+                reqHeadersLog.append(headerName).append(": ").append(request.getHeader(headerName)).append(", ");
+            }
+        }
+        legacyInterceptorLogger.info("API请求开始 | ID: {} | {} {} | 客户端IP: {} | Headers: [{}]",
+                requestId, request.getMethod(), request.getRequestURI(), request.getRemoteAddr(),
+                reqHeadersLog.length() > 0 ? reqHeadersLog.substring(0, reqHeadersLog.length() - 2) : "");
+
+        legacyAspectLogger.debug("请求方法: {}.{}, 参数: {}", "ScoreController", "getTopScores", Arrays.toString(handlerArgs));
+        String resultStr = result.toString();
+        if (resultStr.length() > 1000) {
+            resultStr = resultStr.substring(0, 1000) + "... (结果已截断)";
+        }
+        legacyAspectLogger.debug("方法返回: {}.{}, 结果: {}", "ScoreController", "getTopScores", resultStr);
+
+        long processingTime = System.currentTimeMillis() - (Long) request.getAttribute("startTime");
+        StringBuilder respHeadersLog = new StringBuilder();
+        response.getHeaderNames().forEach(headerName ->
+                respHeadersLog.append(headerName).append(": ").append(response.getHeader(headerName)).append(", "));
+        legacyInterceptorLogger.info("API请求结束 | ID: {} | 状态码: {} | 耗时: {}ms | Headers: [{}]",
+                requestId, response.getStatus(), processingTime,
+                respHeadersLog.length() > 0 ? respHeadersLog.substring(0, respHeadersLog.length() - 2) : "");
+        MDC.remove("requestId");
+    }
+
+    // A typical browser request for the leaderboard
+    private static MockHttpServletRequest leaderboardRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/scores/top");
+        request.setRemoteAddr("192.168.1.20");
+        request.setParameter("limit", "10");
+        request.addHeader("Host", "localhost:8080");
+        request.addHeader("Connection", "keep-alive");
+        request.addHeader("User-Agent",
+                "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0 Safari/537.36");
+        request.addHeader("Accept", "*/*");
+        request.addHeader("Origin", "http://localhost:5500");
+        request.addHeader("Referer", "http://localhost:5500/");
+        request.addHeader("Sec-Fetch-Site", "same-site");
+        request.addHeader("Sec-Fetch-Mode", "cors");
+        request.addHeader("Sec-Fetch-Dest", "empty");
+        request.addHeader("Accept-Encoding", "gzip, deflate, br");
+        request.addHeader("Accept-Language", "zh-CN,zh;q=0.9,en;q=0.8");
+        return request;
+    }
+
+    private static List<ScoreDTO> leaderboard(int size) {
+        List<ScoreDTO> scores = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            UserDTO user = new UserDTO();
+            user.setId((long) i);
+            user.setUsername("player" + i);
+            ScoreDTO score = new ScoreDTO();
+            score.setId((long) i);
+            score.setUser(user);
+            score.setScore(3000 - i * 10);
+            score.setLevel(3);
+            score.setTime(60 + i);
+            score.setSteps(25 + i);
+            scores.add(score);
+        }
+        return scores;
+    }
+
+    private static Appender<ILoggingEvent> discardingAppender(LoggerContext context) {
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern(PATTERN);
+        encoder.start();
+        OutputStreamAppender<ILoggingEvent> appender = new OutputStreamAppender<>();
+        appender.setContext(context);
+        appender.setEncoder(encoder);
+        appender.setOutputStream(OutputStream.nullOutputStream());
+        appender.start();
+        return appender;
+    }
+
+    // Same settings as ASYNC_FILE in logback-spring.xml
+    private static Appender<ILoggingEvent> asyncAppender(LoggerContext context, Appender<ILoggingEvent> delegate) {
+        AsyncAppender appender = new AsyncAppender();
+        appender.setContext(context);
+        appender.setQueueSize(8192);
+        appender.setDiscardingThreshold(1638);
+        appender.setNeverBlock(true);
+        appender.addAppender(delegate);
+        appender.start();
+        return appender;
+    }
+}
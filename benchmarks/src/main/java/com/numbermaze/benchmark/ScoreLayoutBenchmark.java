@@ -0,0 +1,101 @@
+package com.numbermaze.benchmark;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.configuration.FluentConfiguration;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * 分数表紧凑存储迁移（V7）前后的存储占用：在文件型H2中按 V6 的表结构写入分数，
+ * 压缩数据库后分别记录分数表的行数据大小和整个数据库文件大小（差值主要是索引）
+ * <p>
+ * 运行: mvn compile exec:java -Dbenchmark.main=com.numbermaze.benchmark.ScoreLayoutBenchmark -Drows=1000000
+ */
+public class ScoreLayoutBenchmark {
+
+    private static final int USERS = 10_000;
+
+    public static void main(String[] args) throws SQLException, IOException {
+        int rows = Integer.getInteger("rows", 1_000_000);
+        String migrations = System.getProperty("migrations", "filesystem:../backend/src/main/resources/db/migration");
+        Path directory = Paths.get(System.getProperty("out", "target/score-layout")).toAbsolutePath();
+        Path file = directory.resolve("layout.mv.db");
+        Files.createDirectories(directory);
+        Files.deleteIfExists(file);
+        String url = "jdbc:h2:file:" + directory.resolve("layout");
+
+        flyway(url, migrations).target("6").load().migrate();
+        try (Connection connection = DriverManager.getConnection(url, "sa", "")) {
+            seed(connection, rows);
+        }
+        Footprint before = measure(url, file);
+
+        long start = System.nanoTime();
+        flyway(url, migrations).load().migrate();
+        System.out.printf("V7 迁移 %d 条分数耗时 %d ms%n", rows, (System.nanoTime() - start) / 1_000_000);
+        Footprint after = measure(url, file);
+
+        System.out.println();
+        System.out.printf("%-20s %14s %14s %8s%n", "", "迁移前", "迁移后", "变化");
+        print("分数表行数据 (bytes)", before.tableBytes, after.tableBytes);
+        print("索引及其他 (bytes)", before.fileBytes - before.tableBytes, after.fileBytes - after.tableBytes);
+        print("数据库文件 (bytes)", before.fileBytes, after.fileBytes);
+        print("每行 (bytes)", before.tableBytes / rows, after.tableBytes / rows);
+    }
+
+    private static FluentConfiguration flyway(String url, String migrations) {
+        return Flyway.configure().dataSource(url, "sa", "").locations(migrations);
+    }
+
+    // Same distribution as IndexBenchmark, in the V6 layout with player_name/score_value copies
+    private static void seed(Connection connection, int rows) throws SQLException {
+        long start = System.nanoTime();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO user (username, created_at) "
+                    + "SELECT 'player' || X, CURRENT_TIMESTAMP FROM SYSTEM_RANGE(1, " + USERS + ")");
+            statement.execute("INSERT INTO score (id, user_id, score, level, time, steps, player_name, score_value, timestamp) "
+                    + "SELECT X, MOD(X, " + USERS + ") + 1, MOD(X * 7919, 3000), MOD(X, 3) + 1, MOD(X, 600), MOD(X, 50), "
+                    + "'player' || (MOD(X, " + USERS + ") + 1), MOD(X * 7919, 3000), DATEADD('SECOND', -X, CURRENT_TIMESTAMP) "
+                    + "FROM SYSTEM_RANGE(1, " + rows + ")");
+        }
+        System.out.printf("写入 %d 个用户, %d 条分数, 耗时 %d ms%n", USERS, rows, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // Compact first so pages freed by the migration do not count; DISK_SPACE_USED excludes indexes
+    private static Footprint measure(String url, Path file) throws SQLException, IOException {
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("SHUTDOWN COMPACT");
+        }
+        long tableBytes;
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT DISK_SPACE_USED('SCORE')")) {
+            rs.next();
+            tableBytes = rs.getLong(1);
+        }
+        return new Footprint(tableBytes, Files.size(file));
+    }
+
+    private static void print(String label, long before, long after) {
+        System.out.printf("%-20s %14d %14d %7.1f%%%n", label, before, after, (after - before) * 100.0 / before);
+    }
+
+    private static final class Footprint {
+        private final long tableBytes;
+        private final long fileBytes;
+
+        Footprint(long tableBytes, long fileBytes) {
+            this.tableBytes = tableBytes;
+            this.fileBytes = fileBytes;
+        }
+    }
+}
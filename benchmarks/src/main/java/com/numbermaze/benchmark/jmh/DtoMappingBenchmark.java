@@ -0,0 +1,62 @@
+package com.numbermaze.benchmark.jmh;
+
+import com.numbermaze.dto.ScoreDTO;
+import com.numbermaze.model.Score;
+import com.numbermaze.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ScoreDTO 与 Score 实体之间的转换
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class DtoMappingBenchmark {
+
+    private Score score;
+    private ScoreDTO dto;
+
+    @Setup
+    public void setUp() {
+        User user = new User();
+        user.setId(42L);
+        user.setUsername("player42");
+        user.setEmail("player42@example.com");
+
+        score = new Score();
+        score.setId(1000L);
+        score.setUser(user);
+        score.setScore(2450);
+        score.setLevel(3);
+        score.setTime(95);
+        score.setSteps(31);
+        score.setTimestamp(LocalDateTime.of(2024, 5, 1, 12, 0));
+
+        dto = ScoreDTO.fromEntity(score);
+    }
+
+    @Benchmark
+    public ScoreDTO fromEntity() {
+        return ScoreDTO.fromEntity(score);
+    }
+
+    @Benchmark
+    public Score toEntity() {
+        return dto.toEntity();
+    }
+}
@@ -0,0 +1,99 @@
+package com.numbermaze.benchmark.jmh;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.numbermaze.dto.CompactScoreCodec;
+import com.numbermaze.dto.ScoreDTO;
+import com.numbermaze.dto.UserDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 分数列表各响应编码的序列化耗时：JSON / 紧凑二进制编码，各自加或不加 gzip（与 Tomcat 压缩相同的默认级别）。
+ * 各编码的响应字节数在 setUp 时输出；数据为排行榜形态，相邻分数接近，同一玩家在前N名中多次出现
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ScoreEncodingBenchmark {
+
+    private static final int PLAYERS = 25;
+
+    @Param({"10", "100", "1000"})
+    public int size;
+
+    @Param({"json", "json-gzip", "compact", "compact-gzip"})
+    public String encoding;
+
+    private ObjectWriter writer;
+    private List<ScoreDTO> scores;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        writer = objectMapper.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, ScoreDTO.class));
+        scores = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            UserDTO user = new UserDTO();
+            user.setId((long) (i * 7 % PLAYERS + 1));
+            user.setUsername("player" + (i * 7 % PLAYERS + 1));
+            ScoreDTO score = new ScoreDTO();
+            score.setId(100_000L + i * 37L % 1000);
+            score.setUser(user);
+            score.setScore(3000 - i * 3);
+            score.setLevel(i % 3 + 1);
+            score.setTime(60 + i % 600);
+            score.setSteps(20 + i % 50);
+            scores.add(score);
+        }
+        byte[] encoded = encode();
+        if (encoding.startsWith("compact") && !encoding.endsWith("gzip")
+                && CompactScoreCodec.decode(new ByteArrayInputStream(encoded)).size() != size) {
+            throw new IllegalStateException("紧凑编码往返结果不一致");
+        }
+        System.out.printf("%n%s, %d 条: %d bytes (%.1f bytes/条)%n", encoding, size, encoded.length, (double) encoded.length / size);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256 + size * 64);
+        if (encoding.endsWith("gzip")) {
+            try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+                write(gzip);
+            }
+        } else {
+            write(bytes);
+        }
+        return bytes.toByteArray();
+    }
+
+    private void write(OutputStream out) throws IOException {
+        if (encoding.startsWith("compact")) {
+            CompactScoreCodec.encode(scores, out);
+        } else {
+            writer.writeValue(out, scores);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.numbermaze.benchmark.jmh;
+
+import com.numbermaze.benchmark.BackendContext;
+import com.numbermaze.dto.ScoreDTO;
+import com.numbermaze.model.Score;
+import com.numbermaze.repository.ScoreRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ScoreRepository 的排行榜查询，直接访问数据库（不经过内存排行榜）：
+ * 加载实体（连带用户）与直接投影为 ScoreDTO 的对比
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TopScoresQueryBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    @Param({"10", "100"})
+    public int limit;
+
+    private ConfigurableApplicationContext context;
+    private ScoreRepository scoreRepository;
+    private PageRequest page;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = BackendContext.start("top-scores-" + rows, WebApplicationType.NONE);
+        BackendContext.seed(context.getBean(DataSource.class), rows);
+        scoreRepository = context.getBean(ScoreRepository.class);
+        page = PageRequest.of(0, limit);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Score> findTopScores() {
+        return scoreRepository.findTopScores(page);
+    }
+
+    @Benchmark
+    public List<Score> findTopScoresByLevel() {
+        return scoreRepository.findTopScoresByLevel(2, page);
+    }
+
+    @Benchmark
+    public List<ScoreDTO> findTopScoreViews() {
+        return scoreRepository.findTopScoreViews(page);
+    }
+
+    @Benchmark
+    public List<ScoreDTO> findTopScoreViewsByLevel() {
+        return scoreRepository.findTopScoreViewsByLevel(2, page);
+    }
+}
@@ -0,0 +1,114 @@
+package com.numbermaze.benchmark.jmh;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.numbermaze.benchmark.BackendContext;
+import com.numbermaze.dto.CompactScoreCodec;
+import com.numbermaze.model.User;
+import com.numbermaze.repository.UserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * 通过 MockMvc 的完整 GET /api/scores/top 路径（内容协商和消息转换器，不含 gzip），
+ * 分别按 Accept 返回 JSON 和紧凑二进制编码；setUp 时检查响应的状态码、类型和内容，协商失败（如406）时直接报错
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TopScoresResponseBenchmark {
+
+    private static final int PLAYERS = 25;
+    private static final int SCORES = 100;
+
+    @Param({MediaType.APPLICATION_JSON_VALUE, CompactScoreCodec.MEDIA_TYPE})
+    public String accept;
+
+    @Param({"10", "100"})
+    public int limit;
+
+    private ConfigurableApplicationContext context;
+    private MockMvc mockMvc;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = BackendContext.start("top-scores-response", WebApplicationType.SERVLET);
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+
+        long[] userIds = new long[PLAYERS];
+        for (int i = 0; i < PLAYERS; i++) {
+            User user = new User();
+            user.setUsername("player" + i);
+            userIds[i] = context.getBean(UserRepository.class).save(user).getId();
+        }
+        // Through the controller so the scores reach the in-memory leaderboard
+        for (int i = 0; i < SCORES; i++) {
+            String body = "{\"user\":{\"id\":" + userIds[i % PLAYERS] + "},\"score\":" + (3000 - i * 3)
+                    + ",\"level\":" + (i % 3 + 1) + ",\"time\":" + (60 + i) + ",\"steps\":" + (20 + i % 50) + "}";
+            int status = mockMvc.perform(post("/api/scores").contentType(MediaType.APPLICATION_JSON)
+                    .content(body.getBytes(StandardCharsets.UTF_8))).andReturn().getResponse().getStatus();
+            if (status != 201) {
+                throw new IllegalStateException("写入分数失败: 状态码 " + status);
+            }
+        }
+        check(mockMvc.perform(get("/api/scores/top").param("limit", String.valueOf(limit))
+                .header(HttpHeaders.ACCEPT, accept)).andReturn().getResponse());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] getTopScores() throws Exception {
+        return mockMvc.perform(get("/api/scores/top").param("limit", String.valueOf(limit))
+                .header(HttpHeaders.ACCEPT, accept)).andReturn().getResponse().getContentAsByteArray();
+    }
+
+    private void check(MockHttpServletResponse response) throws Exception {
+        if (response.getStatus() != 200) {
+            throw new IllegalStateException("Accept: " + accept + " 返回状态码 " + response.getStatus());
+        }
+        MediaType contentType = MediaType.parseMediaType(response.getContentType());
+        if (!contentType.isCompatibleWith(MediaType.parseMediaType(accept))) {
+            throw new IllegalStateException("Accept: " + accept + " 返回了 " + contentType);
+        }
+        byte[] body = response.getContentAsByteArray();
+        int rows = accept.equals(CompactScoreCodec.MEDIA_TYPE)
+                ? CompactScoreCodec.decode(new ByteArrayInputStream(body)).size()
+                : context.getBean(ObjectMapper.class).readTree(body).size();
+        if (rows != limit) {
+            throw new IllegalStateException("Accept: " + accept + " 返回 " + rows + " 条，应为 " + limit);
+        }
+        System.out.printf("%nAccept: %s, 前 %d 名: %d bytes%n", accept, limit, body.length);
+    }
+}
@@ -121,6 +121,7 @@ class NumberMaze {
 
         document.getElementById('closeLeaderboard').addEventListener('click', () => {
             document.getElementById('leaderboardModal').style.display = 'none';
+            this.closeLeaderboardStream();
         });
 
         // Leaderboard filters
@@ -132,6 +133,10 @@ class NumberMaze {
             this.displayLeaderboard();
         });
 
+        document.getElementById('leaderboardWindowFilter').addEventListener('change', () => {
+            this.displayLeaderboard();
+        });
+
         // User management
         document.getElementById('manageUsers').addEventListener('click', () => {
             this.userManager.populateUserList();
@@ -142,12 +147,12 @@ class NumberMaze {
             document.getElementById('userModal').style.display = 'none';
         });
 
-        document.getElementById('addUser').addEventListener('click', () => {
+        document.getElementById('addUser').addEventListener('click', async () => {
             const newUserNameInput = document.getElementById('newUserName');
             const name = newUserNameInput.value.trim();
             
             if (name) {
-                const userId = this.userManager.addUser(name);
+                const userId = await this.userManager.addUser(name);
                 if (userId) {
                     this.userManager.setCurrentUser(userId);
                     this.userManager.populateUserList();
@@ -169,63 +174,93 @@ class NumberMaze {
         scoreList.innerHTML = '<li class="loading">加载中...</li>';
         
         try {
-            // 从后端获取分数
-            const userScores = await this.userManager.getUserScores();
+            // 从后端获取按难度汇总的统计，无需下载全部分数记录
+            const userStats = await this.userManager.getUserStats();
             
-            if (!userScores || userScores.length === 0) {
+            if (!userStats || userStats.length === 0) {
                 scoreList.innerHTML = '<li>暂无分数记录</li>';
                 return;
             }
             
-            // 确保数据结构正确并进行排序
-            const validScores = userScores
-                .filter(score => score && typeof score.score === 'number')
-                .sort((a, b) => b.score - a.score);
-            
-            if (validScores.length === 0) {
-                scoreList.innerHTML = '<li>暂无有效分数记录</li>';
-                return;
-            }
-            
             scoreList.innerHTML = '';
-            validScores.forEach(score => {
+            userStats.forEach(stat => {
                 const li = document.createElement('li');
-                // 确保有效性检查，提供默认值
-                const diffText = score.difficulty ? this.getDifficultyText(score.difficulty) : '未知';
-                const scoreValue = score.score || 0;
-                const timeValue = score.time || 0;
-                const stepsValue = score.steps || 0;
+                const diffText = stat.difficulty ? this.getDifficultyText(stat.difficulty) : '未知';
+                const bestScore = stat.bestScore || 0;
+                const bestTime = stat.bestTime || 0;
+                const fewestSteps = stat.fewestSteps || 0;
+                const meanScore = Math.round(stat.meanScore || 0);
                 
                 li.innerHTML = `
                     <span class="score-difficulty">${diffText}</span>
-                    <span class="score-value">${scoreValue}分</span>
-                    <span class="score-details">用时${timeValue}秒 | ${stepsValue}步</span>
+                    <span class="score-value">最高${bestScore}分</span>
+                    <span class="score-details">最快${bestTime}秒 | 最少${fewestSteps}步 | 平均${meanScore}分 | 共${stat.playCount}局</span>
                 `;
                 scoreList.appendChild(li);
             });
             
-            console.log('Scores displayed successfully:', validScores);
+            console.log('Stats displayed successfully:', userStats);
         } catch (error) {
-            console.error('Error loading scores:', error);
+            console.error('Error loading stats:', error);
             scoreList.innerHTML = '<li class="error">加载分数失败: ' + (error.message || '未知错误') + '</li>';
         }
     };
 
-    displayLeaderboard = async () => {
+    displayLeaderboard = () => {
         const leaderboardBody = document.getElementById('leaderboardBody');
         leaderboardBody.innerHTML = '<tr><td colspan="6" class="loading">加载中...</td></tr>';
         
+        // 获取筛选条件
+        const difficulty = document.getElementById('leaderboardDifficultyFilter').value;
+        const limit = parseInt(document.getElementById('leaderboardLimitFilter').value);
+        const range = document.getElementById('leaderboardWindowFilter').value;
+        
+        // 优先订阅实时推送，榜单变化时自动刷新，无需轮询；实时推送只覆盖全部时间的榜单，今日 / 本周榜直接读取
+        this.closeLeaderboardStream();
+        if (range !== 'all') {
+            this.fetchLeaderboard(difficulty, limit, range);
+            return;
+        }
+        if (window.EventSource) {
+            console.log('Subscribing to leaderboard with difficulty:', difficulty, 'limit:', limit);
+            const stream = this.userManager.subscribeLeaderboard(difficulty, limit, this.renderLeaderboard, () => {
+                // The server refused the stream (e.g. still warming up): fall back to a single fetch
+                if (stream.readyState === EventSource.CLOSED && this.leaderboardStream === stream) {
+                    this.leaderboardStream = null;
+                    this.fetchLeaderboard(difficulty, limit);
+                }
+            });
+            this.leaderboardStream = stream;
+            return;
+        }
+        this.fetchLeaderboard(difficulty, limit);
+    };
+
+    closeLeaderboardStream = () => {
+        if (this.leaderboardStream) {
+            this.leaderboardStream.close();
+            this.leaderboardStream = null;
+        }
+    };
+
+    fetchLeaderboard = async (difficulty, limit, range = 'all') => {
         try {
-            // 获取筛选条件
-            const difficulty = document.getElementById('leaderboardDifficultyFilter').value;
-            const limit = parseInt(document.getElementById('leaderboardLimitFilter').value);
-            
-            console.log('Fetching leaderboard with difficulty:', difficulty, 'limit:', limit);
+            console.log('Fetching leaderboard with difficulty:', difficulty, 'limit:', limit, 'window:', range);
             
             // 从后端获取排行榜数据
-            const leaderboardScores = await this.userManager.getLeaderboardScores(difficulty, limit);
+            const leaderboardScores = await this.userManager.getLeaderboardScores(difficulty, limit, range);
             console.log('Raw leaderboard data:', leaderboardScores);
-            
+            this.renderLeaderboard(leaderboardScores);
+        } catch (error) {
+            console.error('Error loading leaderboard:', error);
+            const leaderboardBody = document.getElementById('leaderboardBody');
+            leaderboardBody.innerHTML = `<tr><td colspan="6" class="error">加载排行榜失败: ${error.message || '未知错误'}</td></tr>`;
+        }
+    };
+
+    renderLeaderboard = (leaderboardScores) => {
+        const leaderboardBody = document.getElementById('leaderboardBody');
+        try {
             if (!leaderboardScores || !Array.isArray(leaderboardScores) || leaderboardScores.length === 0) {
                 console.warn('No leaderboard data returned or invalid format');
                 leaderboardBody.innerHTML = '<tr><td colspan="6" style="text-align: center;">暂无分数记录</td></tr>';
@@ -290,18 +325,20 @@ class NumberMaze {
             
             console.log('Leaderboard displayed successfully with', leaderboardScores.length, 'entries');
         } catch (error) {
-            console.error('Error loading leaderboard:', error);
-            leaderboardBody.innerHTML = `<tr><td colspan="6" class="error">加载排行榜失败: ${error.message || '未知错误'}</td></tr>`;
+            console.error('Error rendering leaderboard:', error);
+            leaderboardBody.innerHTML = `<tr><td colspan="6" class="error">显示排行榜失败: ${error.message || '未知错误'}</td></tr>`;
         }
     };
 
-    startNewGame = () => {
+    startNewGame = async () => {
         if (this.pathAnimation) cancelAnimationFrame(this.pathAnimation);
         if (this.celebrationAnimation) cancelAnimationFrame(this.celebrationAnimation);
 
+        // A newer click wins if the previous game is still waiting for its puzzle
+        const game = this.gameCounter = (this.gameCounter || 0) + 1;
+        this.stopTimer();
         this.ctx.clearRect(0, 0, this.canvas.width, this.canvas.height);
 
-        this.startTime = Date.now();
         this.elapsedTime = 0;
         this.steps = 0;
         this.score = 0;
@@ -310,8 +347,6 @@ class NumberMaze {
         this.updateUndoButton();
         this.updateDisplays();
 
-        this.startTimer();
-
         const difficulty = document.getElementById('difficultySelect').value;
         const settings = this.difficultySettings[difficulty];
         this.sideLength = settings.sideLength;
@@ -319,14 +354,83 @@ class NumberMaze {
         this.totalHexagons = settings.totalHexagons;
 
         this.resizeCanvas(); // Ensure canvas is resized properly
-        this.drawPattern();
 
-        this.generatePath();
-        this.hideRandomNumbers();
+        // 登录用户使用服务端发放的谜题，分数才能通过服务端校验；访客或获取失败时在本地生成
+        this.puzzleId = null;
+        const currentUser = this.userManager.getCurrentUser();
+        const puzzle = currentUser.id === -1 ? null : await this.fetchServerPuzzle(difficulty, currentUser.id);
+        if (game !== this.gameCounter) return;
+        if (puzzle) {
+            this.loadServerPuzzle(puzzle);
+        } else {
+            this.drawPattern();
+            this.generatePath();
+            this.hideRandomNumbers();
+        }
+
+        this.startTime = Date.now();
+        this.startTimer();
         this.drawPath();
         this.statusDisplay.textContent = "Game started! Fill in the missing numbers.";
     };
 
+    async fetchServerPuzzle(difficulty, userId) {
+        try {
+            return await this.userManager.apiService.getPuzzle(difficulty, userId);
+        } catch (error) {
+            console.warn('Falling back to a local puzzle:', error);
+            return null;
+        }
+    }
+
+    // 按服务端谜题的坐标建立棋盘；格子保持服务端顺序，提交的答案也按这个顺序
+    loadServerPuzzle(puzzle) {
+        const size = this.calculateHexagonSize();
+        const horizontalSpacing = size * Math.sqrt(3);
+        const verticalSpacing = size * 1.5;
+        const centerX = this.canvas.width / 2;
+        const centerY = this.canvas.height / 2;
+
+        this.hexagons = puzzle.values.map((value, i) => {
+            const q = puzzle.q[i];
+            const r = puzzle.r[i];
+            const x = centerX + horizontalSpacing * (q + r / 2);
+            const y = centerY + verticalSpacing * r;
+            const hexagon = { x, y, q, r, s: -q - r, size, vertices: this.calculateHexagonVertices(x, y, size) };
+            if (value !== 0) {
+                hexagon.value = value;
+            }
+            return hexagon;
+        });
+        this.totalHexagons = this.hexagons.length;
+        // The server never hides the endpoints
+        this.start = this.hexagons.find(h => h.value === 1);
+        this.end = this.hexagons.find(h => h.value === this.totalHexagons);
+        this.path = null;
+
+        this.missingNumbers.clear();
+        const shown = new Set(puzzle.values);
+        for (let n = 1; n <= this.totalHexagons; n++) {
+            if (!shown.has(n)) {
+                this.missingNumbers.add(n);
+            }
+        }
+
+        this.diamonds = puzzle.diamonds.map(([a, b]) => {
+            const hex1 = this.hexagons[a];
+            const hex2 = this.hexagons[b];
+            return {
+                x: (hex1.x + hex2.x) / 2,
+                y: (hex1.y + hex2.y) / 2,
+                size: hex1.size * 0.12,
+                hex1: hex1,
+                hex2: hex2,
+                angle: Math.atan2(hex2.y - hex1.y, hex2.x - hex1.x)
+            };
+        });
+        this.puzzleId = puzzle.id;
+    }
+
     hideRandomNumbers() {
         this.missingNumbers.clear();
         this.diamonds = []; // Clear any existing diamonds
@@ -760,11 +864,15 @@ class NumberMaze {
         }
         
         try {
+            const puzzle = this.puzzleId
+                ? { puzzleId: this.puzzleId, solution: this.hexagons.map(h => h.value) }
+                : null;
             await this.userManager.saveScore(
                 difficulty,
                 this.score,
                 this.elapsedTime,
-                this.steps
+                this.steps,
+                puzzle
             );
             this.statusDisplay.textContent += " (分数已保存)";
         } catch (error) {
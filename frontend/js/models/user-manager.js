@@ -12,12 +12,18 @@ class UserManager {
             // 先从本地存储加载当前用户ID
             const savedUserId = localStorage.getItem('currentMazeUser');
             
-            // 从后端加载所有用户
+            // 从后端加载第一页用户
             await this.loadUsers();
             
-            // 如果有已保存的用户ID，尝试设置当前用户
+            // 如果有已保存的用户ID，尝试设置当前用户（不在第一页时单独查询）
             if (savedUserId && savedUserId !== '-1') {
-                const user = this.users.find(u => u.id === parseInt(savedUserId));
+                let user = this.users.find(u => u.id === parseInt(savedUserId));
+                if (!user) {
+                    user = await this.apiService.getUserById(parseInt(savedUserId)).catch(() => null);
+                    if (user) {
+                        this.users.push(user);
+                    }
+                }
                 if (user) {
                     this.currentUser = user;
                 }
@@ -31,7 +37,12 @@ class UserManager {
 
     async loadUsers() {
         try {
-            this.users = await this.apiService.getUsers();
+            const page = await this.apiService.getUsers();
+            // Keep the current user selectable even when it is not on the first page
+            if (this.currentUser.id !== -1 && !page.users.some(u => u.id === this.currentUser.id)) {
+                page.users.push(this.currentUser);
+            }
+            this.users = page.users;
             return this.users;
         } catch (error) {
             console.error('Failed to load users:', error);
@@ -80,8 +91,8 @@ class UserManager {
             };
             
             const newUser = await this.apiService.createUser(userData);
-            // 重新加载用户列表以保持同步
-            await this.loadUsers();
+            // 新用户ID最大，不在第一页中，直接加入本地列表
+            this.users.push(newUser);
             return newUser.id;
         } catch (error) {
             console.error('Error creating user:', error);
@@ -136,7 +147,8 @@ class UserManager {
         element.classList.add('active');
     }
 
-    async saveScore(difficulty, score, time, steps) {
+    // puzzle 为服务端谜题的 { puzzleId, solution }，分数由服务端按谜题重新计算
+    async saveScore(difficulty, score, time, steps, puzzle) {
         if (this.currentUser.id === -1) {
             console.log('Guest user cannot save scores');
             return null;
@@ -154,6 +166,10 @@ class UserManager {
                 time: time,
                 steps: steps
             };
+            if (puzzle) {
+                scoreData.puzzleId = puzzle.puzzleId;
+                scoreData.solution = puzzle.solution;
+            }
             
             console.log('Score data to send:', JSON.stringify(scoreData));
             
@@ -193,15 +209,37 @@ class UserManager {
         }
     }
 
-    async getLeaderboardScores(difficulty, limit) {
+    async getUserStats() {
+        if (this.currentUser.id === -1) {
+            return []; // 访客没有统计
+        }
+
+        try {
+            const stats = await this.apiService.getUserStats(this.currentUser.id);
+            if (!stats || !Array.isArray(stats)) {
+                console.warn('Invalid stats data returned from API:', stats);
+                return [];
+            }
+
+            return stats.map(stat => ({
+                ...stat,
+                difficulty: this.apiService.mapLevelToDifficulty(stat.level)
+            }));
+        } catch (error) {
+            console.error('Error getting user stats:', error);
+            return [];
+        }
+    }
+
+    async getLeaderboardScores(difficulty, limit, window = 'all') {
         try {
             let scores;
             
             if (difficulty === 'all') {
-                scores = await this.apiService.getTopScores(limit);
+                scores = await this.apiService.getTopScores(limit, window);
             } else {
                 const level = this.apiService.mapDifficultyToLevel(difficulty);
-                scores = await this.apiService.getTopScoresByLevel(level, limit);
+                scores = await this.apiService.getTopScoresByLevel(level, limit, window);
             }
             
             return scores.map(score => ({
@@ -213,4 +251,15 @@ class UserManager {
             return [];
         }
     }
+
+    // 实时排行榜：difficulty 为 'all' 时订阅总榜
+    subscribeLeaderboard(difficulty, limit, onUpdate, onError) {
+        const level = difficulty === 'all' ? null : this.apiService.mapDifficultyToLevel(difficulty);
+        return this.apiService.subscribeTopScores(level, limit, scores => {
+            onUpdate(scores.map(score => ({
+                ...score,
+                difficulty: this.apiService.mapLevelToDifficulty(score.level)
+            })));
+        }, onError);
+    }
 }
@@ -12,11 +12,16 @@ class ApiService {
         return response;
     }
 
-    // 获取所有用户
-    async getUsers() {
+    // 按ID分页获取用户，nextCursor 为 null 表示已是最后一页
+    async getUsers(cursor = null, size = 50) {
         try {
-            const response = await fetch(`${this.baseUrl}/users`);
-            return this.handleError(response).json();
+            const params = new URLSearchParams({ size });
+            if (cursor !== null) {
+                params.set('cursor', cursor);
+            }
+            const response = await fetch(`${this.baseUrl}/users?${params}`);
+            const users = await this.handleError(response).json();
+            return { users, nextCursor: response.headers.get('X-Next-Cursor') };
         } catch (error) {
             console.error('Failed to fetch users:', error);
             throw error;
@@ -62,6 +67,21 @@ class ApiService {
         }
     }
 
+    // 获取服务端发放的谜题，提交分数时附带其 id 和答案；传入 userId 时只有该用户能提交
+    async getPuzzle(difficulty, userId) {
+        try {
+            const params = new URLSearchParams({ level: this.mapDifficultyToLevel(difficulty) });
+            if (userId !== undefined && userId !== -1) {
+                params.set('userId', userId);
+            }
+            const response = await fetch(`${this.baseUrl}/puzzles?${params}`);
+            return this.handleError(response).json();
+        } catch (error) {
+            console.error('Failed to fetch puzzle:', error);
+            throw error;
+        }
+    }
+
     // 保存游戏分数
     async saveScore(scoreData) {
         try {
@@ -99,10 +119,21 @@ class ApiService {
         }
     }
 
-    // 获取排行榜分数
-    async getTopScores(limit = 10) {
+    // 获取用户在各难度上的汇总统计
+    async getUserStats(userId) {
         try {
-            const response = await fetch(`${this.baseUrl}/scores/top?limit=${limit}`);
+            const response = await fetch(`${this.baseUrl}/users/${userId}/stats`);
+            return this.handleError(response).json();
+        } catch (error) {
+            console.error(`Failed to fetch stats for user ${userId}:`, error);
+            throw error;
+        }
+    }
+
+    // 获取排行榜分数；window 为 'day' / 'week' 时为最近一天 / 一周的滚动排行榜
+    async getTopScores(limit = 10, window = 'all') {
+        try {
+            const response = await fetch(`${this.baseUrl}/scores/top?limit=${limit}&window=${window}`);
             return this.handleError(response).json();
         } catch (error) {
             console.error('Failed to fetch top scores:', error);
@@ -111,9 +142,9 @@ class ApiService {
     }
 
     // 获取特定难度的排行榜分数
-    async getTopScoresByLevel(level, limit = 10) {
+    async getTopScoresByLevel(level, limit = 10, window = 'all') {
         try {
-            const response = await fetch(`${this.baseUrl}/scores/top/level/${this.mapDifficultyToLevel(level)}?limit=${limit}`);
+            const response = await fetch(`${this.baseUrl}/scores/top/level/${this.mapDifficultyToLevel(level)}?limit=${limit}&window=${window}`);
             return this.handleError(response).json();
         } catch (error) {
             console.error(`Failed to fetch top scores for level ${level}:`, error);
@@ -121,6 +152,37 @@ class ApiService {
         }
     }
 
+    // 订阅排行榜推送（SSE）：snapshot 为完整榜单，update 只包含变化的名次；每次变化后以完整列表回调
+    // 返回 EventSource，调用方负责 close()
+    subscribeTopScores(level, limit, onUpdate, onError) {
+        const params = new URLSearchParams({ limit });
+        if (level != null) {
+            params.set('level', level);
+        }
+        const source = new EventSource(`${this.baseUrl}/scores/top/stream?${params}`);
+        let scores = [];
+        const apply = (update, replace) => {
+            if (replace) {
+                scores = [];
+            }
+            update.changes.forEach(change => {
+                scores[change.rank - 1] = change.score;
+            });
+            scores.length = update.size;
+            onUpdate(scores.slice());
+        };
+        // Reconnects start over with a fresh snapshot
+        source.addEventListener('snapshot', event => apply(JSON.parse(event.data), true));
+        source.addEventListener('update', event => apply(JSON.parse(event.data), false));
+        source.onerror = error => {
+            console.warn('Leaderboard stream interrupted:', error);
+            if (onError) {
+                onError(error);
+            }
+        };
+        return source;
+    }
+
     // 将前端难度映射到后端级别数字
     mapDifficultyToLevel(difficulty) {
         switch(difficulty) {